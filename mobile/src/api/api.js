@@ -59,6 +59,9 @@ async function request(path, opts={}, retries = 1){
     const duration = Date.now() - startTime;
     Logger.performance(`API ${opts.method || 'GET'} ${path}`, duration);
     
+    // GET condicional (If-None-Match): nada mudou desde a versão que o app já tem
+    if(res.status===304) return null;
+
     if(!res.ok) {
       let errorMessage = `Erro ${res.status}`;
       let errorDetails = null;
@@ -75,6 +78,7 @@ async function request(path, opts={}, retries = 1){
           case 403: errorMessage = 'Acesso negado'; break;
           case 404: errorMessage = 'Recurso não encontrado'; break;
           case 409: errorMessage = 'Conflito - recurso já existe'; break;
+          case 429: errorMessage = 'Muitas requisições - tente novamente em instantes'; break;
           case 500: errorMessage = 'Erro interno do servidor'; break;
           case 503: errorMessage = 'Serviço indisponível'; break;
           default: errorMessage = `Erro ${res.status}`;
@@ -130,8 +134,63 @@ export const Backend={
   async updateUser(id,u){ return request('/api/users/'+id,{ method:'PUT', body:JSON.stringify(u)}); },
   async deleteUser(id){ return request('/api/users/'+id,{ method:'DELETE'}); },
   async createWalk(w){ return request('/api/walks',{ method:'POST', body:JSON.stringify(w)}); },
-  async getWalk(id){ return request('/api/walks/'+id); },
-  async listWalksByUser(userId){ return request('/api/walks/user/'+userId); },
+  async createWalks(walks){ return request('/api/walks/batch',{ method:'POST', body:JSON.stringify(walks)}); },
+  // Caminhada ao vivo: abre a sessão, envia os pontos em lotes numerados (seq) e finaliza
+  async startLiveWalk(w){ return request('/api/walks/live',{ method:'POST', body:JSON.stringify(w)}); },
+  async appendLivePoints(id, seq, points){ return request('/api/walks/live/'+id+'/points?seq='+seq,{ method:'POST', body:JSON.stringify(points)}); },
+  async finishLiveWalk(id, { duration } = {}){
+    const query = duration != null ? '?duration=' + duration : '';
+    return request('/api/walks/live/'+id+'/finish'+query,{ method:'POST'});
+  },
+  async discardLiveWalk(id){ return request('/api/walks/live/'+id,{ method:'DELETE'}); },
+  // zoom (0-22) ou tolerance (metros) pedem a polyline já simplificada pelo servidor
+  async getWalk(id, { zoom, tolerance } = {}){
+    let query = '';
+    if (zoom != null) query = '?zoom=' + zoom;
+    else if (tolerance != null) query = '?tolerance=' + tolerance;
+    return request('/api/walks/'+id+query);
+  },
+  async listWalksByUser(userId, { from, to, fields } = {}){
+    // O backend pagina por cursor; percorre as páginas e devolve a lista completa
+    const walks = [];
+    let cursor = null;
+    do {
+      let query = '?limit=200';
+      if (fields) query += '&fields=' + fields;
+      if (cursor) query += '&cursor=' + encodeURIComponent(cursor);
+      if (from) query += '&from=' + encodeURIComponent(from);
+      if (to) query += '&to=' + encodeURIComponent(to);
+      const page = await request('/api/walks/user/'+userId+query);
+      walks.push(...(page?.items || []));
+      cursor = page?.nextCursor;
+    } while (cursor);
+    return walks;
+  },
+  // Alterações desde a marca d'água since (0 = tudo); null quando nada mudou (304)
+  async listWalkChanges(userId, since = 0){
+    const items = [];
+    const deleted = [];
+    let watermark = since;
+    let more;
+    do {
+      const changes = await request('/api/walks/user/'+userId+'/changes?limit=200&since='+watermark, {
+        headers:{'Content-Type':'application/json', 'If-None-Match':'"'+watermark+'"'},
+      });
+      if (!changes) break;
+      items.push(...changes.items);
+      deleted.push(...changes.deleted);
+      watermark = changes.watermark;
+      more = changes.more;
+    } while (more);
+    return watermark === since ? null : { items, deleted, watermark };
+  },
+  async listWalkSummariesByUser(userId, range = {}){ return Backend.listWalksByUser(userId, { ...range, fields: 'summary' }); },
+  async getUserStats(userId, { from, to } = {}){
+    let query = '';
+    if (from) query += (query ? '&' : '?') + 'from=' + from;
+    if (to) query += (query ? '&' : '?') + 'to=' + to;
+    return request('/api/users/'+userId+'/stats'+query);
+  },
   async updateWalk(id,w){ return request('/api/walks/'+id,{ method:'PUT', body:JSON.stringify(w)}); },
   async deleteWalk(id){ return request('/api/walks/'+id,{ method:'DELETE'}); },
 };
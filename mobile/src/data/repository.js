@@ -1,5 +1,8 @@
 import { UsersRepo, WalksRepo } from '../storage/storage';
-import { Backend, usingBackend } from '../api/api';
+import { Backend, usingBackend, apiBase } from '../api/api';
+
+// Caminhadas já baixadas por usuário (e servidor), com a marca d'água da última sincronização
+const walkCache = new Map();
 
 // Users
 export async function listUsers(){
@@ -17,16 +20,46 @@ export async function updateUser(id, user){
 }
 
 export async function removeUser(id){
-  if(await usingBackend()) return Backend.deleteUser(id);
+  if(await usingBackend()) {
+    walkCache.delete((await apiBase()) + '|' + id);
+    return Backend.deleteUser(id);
+  }
   return UsersRepo.remove(id);
 }
 
 // Walks
+// Com backend, só baixa o que mudou desde a última vez (ou nada, com 304)
 export async function listWalksByUser(userId){
-  if(await usingBackend()) return Backend.listWalksByUser(userId);
+  if(await usingBackend()) return syncWalks(userId);
+  return WalksRepo.listByUser(userId);
+}
+
+async function syncWalks(userId){
+  const key = (await apiBase()) + '|' + userId;
+  const cached = walkCache.get(key) || { watermark: 0, walks: new Map() };
+  const changes = await Backend.listWalkChanges(userId, cached.watermark);
+  if (changes) {
+    changes.deleted.forEach(id => cached.walks.delete(id));
+    changes.items.forEach(walk => cached.walks.set(walk.id, walk));
+    cached.watermark = changes.watermark;
+  }
+  walkCache.set(key, cached);
+  // Mesma ordem da listagem do servidor: mais recentes primeiro
+  return [...cached.walks.values()].sort((a, b) => new Date(b.startTime) - new Date(a.startTime));
+}
+
+// Sem polyline: apenas distância e horários (dashboard)
+export async function listWalkSummariesByUser(userId){
+  if(await usingBackend()) return Backend.listWalkSummariesByUser(userId);
   return WalksRepo.listByUser(userId);
 }
 
+// Totais agregados no servidor; null no modo local (a tela calcula localmente)
+export async function getUserStats(userId, range){
+  if(await usingBackend()) return Backend.getUserStats(userId, range);
+  return null;
+}
+
 export async function addWalk(walk){
   if(await usingBackend()) return Backend.createWalk(walk);
   return WalksRepo.add(walk);
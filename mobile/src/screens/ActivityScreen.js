@@ -3,6 +3,7 @@ import { View, Text, Alert, ScrollView, Modal, TouchableOpacity } from 'react-na
 import * as Location from 'expo-location';
 import Toast from 'react-native-toast-message';
 import { addWalk } from '../data/repository';
+import { Backend, usingBackend } from '../api/api';
 import { UsersRepo } from '../storage/storage';
 import { colors, spacing, typography, radius, shadows } from '../theme/theme';
 import { Button } from '../components/Button';
@@ -13,6 +14,9 @@ import { PermissionManager } from '../utils/permissions';
 import { notifyWalkSaved } from '../utils/notifications';
 import { useFocusEffect } from '@react-navigation/native';
 
+// Intervalo de envio dos pontos para o servidor durante a caminhada
+const LIVE_FLUSH_MS = 15000;
+
 function haversine(a, b){
   const toRad = (v)=> v*Math.PI/180;
   const R = 6371000; // meters
@@ -39,6 +43,9 @@ export default function ActivityScreen(){
   const polylineRef = useRef([]);
   const watchRef = useRef(null);
   const timerRef = useRef(null);
+  // Sessão ao vivo no servidor: { id, seq, sent (coordenadas já enviadas), flushing }
+  const liveRef = useRef(null);
+  const flushRef = useRef(null);
 
   useEffect(()=>{ 
     loadUsers();
@@ -51,6 +58,7 @@ export default function ActivityScreen(){
       if (timerRef.current) {
         clearInterval(timerRef.current);
       }
+      stopLiveFlush();
     };
   }, []);
 
@@ -107,6 +115,77 @@ export default function ActivityScreen(){
     }
   }
 
+  // Com backend, os pontos vão para o servidor durante a caminhada; sem sessão
+  // (offline ou erro), a caminhada inteira é enviada ao finalizar, como antes
+  async function startLive(userId, startedAt) {
+    liveRef.current = null;
+    if (!(await usingBackend())) return;
+    try {
+      const points = polylineRef.current.slice();
+      const live = await Backend.startLiveWalk({ userId, startTime: startedAt.toISOString(), polyline: points });
+      liveRef.current = { id: live.id, seq: 0, sent: points.length, flushing: false };
+      flushRef.current = setInterval(() => { flushLive(); }, LIVE_FLUSH_MS);
+    } catch (e) {
+      Logger.warn('Live walk unavailable, walk will be sent when finished', e);
+    }
+  }
+
+  // Envia os pontos novos; em caso de erro o mesmo lote (mesmo seq) vai na próxima vez
+  async function flushLive() {
+    const live = liveRef.current;
+    if (!live || live.flushing) return;
+    const pts = polylineRef.current;
+    if (pts.length <= live.sent) return;
+    const batch = pts.slice(live.sent);
+    live.flushing = true;
+    try {
+      await Backend.appendLivePoints(live.id, live.seq, batch);
+      live.seq += 1;
+      live.sent += batch.length;
+    } catch (e) {
+      Logger.warn('Error sending live walk points', e);
+    } finally {
+      live.flushing = false;
+    }
+  }
+
+  function stopLiveFlush() {
+    if (flushRef.current) {
+      clearInterval(flushRef.current);
+      flushRef.current = null;
+    }
+  }
+
+  async function discardLive() {
+    stopLiveFlush();
+    const live = liveRef.current;
+    liveRef.current = null;
+    if (live) {
+      try { await Backend.discardLiveWalk(live.id); } catch (e) { Logger.warn('Error discarding live walk', e); }
+    }
+  }
+
+  // Grava pela sessão ao vivo quando existe; senão (ou se falhar) envia a caminhada inteira
+  async function persistWalk(walk) {
+    stopLiveFlush();
+    const live = liveRef.current;
+    if (live) {
+      try {
+        while (live.flushing) await new Promise(resolve => setTimeout(resolve, 100));
+        await flushLive();
+        if (polylineRef.current.length > live.sent) throw new Error('Pontos pendentes não enviados');
+        const saved = await Backend.finishLiveWalk(live.id, { duration: walk.duration });
+        liveRef.current = null;
+        return saved;
+      } catch (e) {
+        Logger.warn('Error finishing live walk, sending whole walk', e);
+        // Descarta a sessão antes de enviar a caminhada inteira, senão ela seria gravada duas vezes
+        await discardLive();
+      }
+    }
+    return addWalk(walk);
+  }
+
   function formatTime(seconds) {
     const hours = Math.floor(seconds / 3600);
     const minutes = Math.floor((seconds % 3600) / 60);
@@ -142,7 +221,8 @@ export default function ActivityScreen(){
       setPaused(false); 
       setDistance(0); 
       setElapsedTime(0);
-      setStartTime(new Date());
+      const startedAt = new Date();
+      setStartTime(startedAt);
       polylineRef.current = [];
 
       // Captura posição inicial para evitar atraso e reutilizar ponto anterior
@@ -151,6 +231,7 @@ export default function ActivityScreen(){
         const { latitude, longitude } = initialPosition.coords;
         polylineRef.current = [latitude, longitude];
       }
+      await startLive(selectedUser.id, startedAt);
       
       // Configuração otimizada para GPS mais preciso e atualizações mais frequentes
       // Reduzido timeInterval para 500ms para melhor responsividade na contagem
@@ -240,6 +321,7 @@ export default function ActivityScreen(){
               watchRef.current.remove(); 
               watchRef.current=null; 
             }
+            discardLive();
           }},
           { text: 'Salvar', onPress: () => saveWalk() }
         ]
@@ -287,7 +369,7 @@ export default function ActivityScreen(){
         throw new Error('Dados inválidos para salvar caminhada');
       }
       
-      const savedWalk = await addWalk(walk);
+      const savedWalk = await persistWalk(walk);
       
       if (!savedWalk || !savedWalk.id) {
         throw new Error('Falha ao salvar caminhada - nenhum ID retornado');
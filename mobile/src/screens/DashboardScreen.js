@@ -2,7 +2,7 @@ import React, { useEffect, useState, useMemo, useCallback } from 'react';
 import { View, Text, ScrollView, Dimensions, RefreshControl, TouchableOpacity, TextInput, Modal, FlatList } from 'react-native';
 import { useFocusEffect } from '@react-navigation/native';
 import { useTheme } from '../theme/ThemeContext';
-import { listUsers, updateUser, listWalksByUser } from '../data/repository';
+import { listUsers, updateUser, listWalkSummariesByUser, getUserStats } from '../data/repository';
 import { spacing, radius, typography, shadows } from '../theme/theme';
 import { Card } from '../components/Card';
 import { notifyGoalReached } from '../utils/notifications';
@@ -80,24 +80,47 @@ export default function DashboardScreen(){
         setGoalInput(String(currentUser.dailyGoalMeters));
       }
 
-      const userWalks = await listWalksByUser(currentUserId);
-
       const sum = (arr)=> arr.reduce((s,w)=> s + (w.distanceMeters||0), 0);
-
-      setTotal(sum(userWalks));
+      // Dia local no formato yyyy-MM-dd
+      const isoDay = (d)=> `${d.getFullYear()}-${String(d.getMonth()+1).padStart(2,'0')}-${String(d.getDate()).padStart(2,'0')}`;
 
       const startOfDay = new Date(); 
       startOfDay.setHours(0,0,0,0);
-      const todayList = userWalks.filter(w=> w.startTime ? new Date(w.startTime) >= startOfDay : false);
-      setToday(sum(todayList));
 
       const startOfWeek = new Date();
       const day = startOfWeek.getDay(); // 0..6
       const diff = (day+6)%7; // make Monday start
       startOfWeek.setDate(startOfWeek.getDate()-diff);
       startOfWeek.setHours(0,0,0,0);
-      const weekList = userWalks.filter(w=> w.startTime ? new Date(w.startTime) >= startOfWeek : false);
-      setWeek(sum(weekList));
+
+      const sixDaysAgo = new Date(startOfDay);
+      sixDaysAgo.setDate(sixDaysAgo.getDate()-6);
+      const rangeStart = startOfWeek < sixDaysAgo ? startOfWeek : sixDaysAgo;
+
+      // Com backend, os totais por dia já vêm agregados do servidor
+      const stats = await getUserStats(currentUserId, { from: isoDay(rangeStart), to: isoDay(startOfDay) });
+      const dailyTotals = {};
+      if (stats) {
+        setTotal(stats.totals?.distanceMeters || 0);
+        (stats.daily || []).forEach(b => { dailyTotals[b.start] = b.distanceMeters || 0; });
+      } else {
+        const userWalks = await listWalkSummariesByUser(currentUserId);
+        setTotal(sum(userWalks));
+        userWalks.forEach(w => {
+          if (!w.startTime) return;
+          const key = isoDay(new Date(w.startTime));
+          dailyTotals[key] = (dailyTotals[key] || 0) + (w.distanceMeters || 0);
+        });
+      }
+      const dayTotal = (date)=> dailyTotals[isoDay(date)] || 0;
+
+      setToday(dayTotal(startOfDay));
+
+      let weekSum = 0;
+      for (const date = new Date(startOfWeek); date <= startOfDay; date.setDate(date.getDate()+1)) {
+        weekSum += dayTotal(date);
+      }
+      setWeek(weekSum);
 
       const weeklyChartData = [];
       const days = ['Dom', 'Seg', 'Ter', 'Qua', 'Qui', 'Sex', 'Sáb'];
@@ -107,18 +130,9 @@ export default function DashboardScreen(){
         date.setDate(date.getDate() - i);
         date.setHours(0, 0, 0, 0);
         
-        const nextDay = new Date(date);
-        nextDay.setDate(nextDay.getDate() + 1);
-        
-        const dayWalks = userWalks.filter(w => {
-          if (!w.startTime) return false;
-          const walkDate = new Date(w.startTime);
-          return walkDate >= date && walkDate < nextDay;
-        });
-        
         weeklyChartData.push({
           x: days[date.getDay()],
-          y: sum(dayWalks),
+          y: dayTotal(date),
           date: date.toISOString().split('T')[0]
         });
       }
@@ -126,7 +140,7 @@ export default function DashboardScreen(){
       setWeeklyData(weeklyChartData);
 
       const goalTarget = currentUser?.dailyGoalMeters || 1000;
-      const todaySum = sum(todayList);
+      const todaySum = dayTotal(startOfDay);
       if (todaySum >= goalTarget && !goalNotified) {
         await notifyGoalReached(todaySum);
         setGoalNotified(true);
@@ -0,0 +1,64 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.model.WalkEntity;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Linha de base das conversões entre entidade, modelo e DTO.
+ * A conversão para documento do Firestore fica no FirestoreConversionBenchmark.
+ *
+ * Rodar com:
+ *   ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="ConversionBenchmark -prof gc"
+ * e acompanhar ops/ms junto com gc.alloc.rate.norm (bytes/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int points;
+
+    private WalkEntity entity;
+    private Walk walk;
+    private WalkDTO dto;
+
+    @Setup
+    public void setup() {
+        walk = new Walk();
+        walk.setId("42");
+        walk.setUserId("user-1");
+        walk.setStartTime(Instant.parse("2025-03-01T10:00:00Z"));
+        walk.setEndTime(Instant.parse("2025-03-01T11:00:00Z"));
+        walk.setDistanceMeters(points);
+        walk.setPolyline(new Polyline(Polylines.synthetic(points)));
+
+        entity = WalkEntity.fromWalk(walk);
+        entity.setId(42L);
+        dto = WalkDtos.of(walk);
+    }
+
+    @Benchmark
+    public Walk entityToWalk() {
+        return entity.toWalk();
+    }
+
+    @Benchmark
+    public WalkEntity entityFromWalk() {
+        return WalkEntity.fromWalk(walk);
+    }
+
+    @Benchmark
+    public Walk dtoToWalk() {
+        return dto.toWalk();
+    }
+}
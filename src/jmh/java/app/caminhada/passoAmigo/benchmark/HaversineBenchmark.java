@@ -0,0 +1,62 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.service.GeometryService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kernel de distância do GeometryService contra a forma "ingênua" (a mesma do
+ * haversine do ActivityScreen): um objeto por ponto e dois cossenos por trecho.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HaversineBenchmark {
+
+    private record Point(double latitude, double longitude) {
+    }
+
+    @Param({"1000", "100000"})
+    public int points;
+
+    private double[] coords;
+    private List<Point> boxed;
+
+    @Setup
+    public void setup() {
+        coords = Polylines.synthetic(points);
+        boxed = new ArrayList<>(points);
+        for (int i = 0; i < points; i++) {
+            boxed.add(new Point(coords[2 * i], coords[2 * i + 1]));
+        }
+    }
+
+    @Benchmark
+    public double primitiveKernel() {
+        return GeometryService.distanceMeters(coords);
+    }
+
+    @Benchmark
+    public double pointObjects() {
+        double sum = 0;
+        for (int i = 1; i < boxed.size(); i++) {
+            sum += haversine(boxed.get(i - 1), boxed.get(i));
+        }
+        return sum;
+    }
+
+    private static double haversine(Point a, Point b) {
+        double dLat = Math.toRadians(b.latitude() - a.latitude());
+        double dLon = Math.toRadians(b.longitude() - a.longitude());
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(a.latitude())) * Math.cos(Math.toRadians(b.latitude()))
+            * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * GeometryService.EARTH_RADIUS_METERS * Math.atan2(Math.sqrt(h), Math.sqrt(1 - h));
+    }
+}
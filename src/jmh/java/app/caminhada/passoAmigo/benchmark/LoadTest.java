@@ -0,0 +1,117 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teste de carga em malha fechada: para cada nível de concorrência, N clientes
+ * repetem a mesma requisição durante alguns segundos e o resultado é a vazão e a
+ * latência (p50/p99). Serve para comparar o servidor com e sem threads virtuais
+ * (todos os clientes saem do mesmo endereço, então desligue o limite por cliente):
+ *
+ *   java -jar target/passoAmigo-0.0.1-SNAPSHOT.jar --app.ratelimit.enabled=false    (threads de plataforma)
+ *   java -jar target/passoAmigo-0.0.1-SNAPSHOT.jar --app.ratelimit.enabled=false --spring.profiles.active=virtual (Java 21)
+ *
+ *   ./mvnw -Pbenchmark test-compile exec:exec -Dbench.main=app.caminhada.passoAmigo.benchmark.LoadTest \
+ *       -Dbench.args="url=http://localhost:8080/api/walks/1 levels=1,16,64,256,1024 seconds=10"
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        URI uri = URI.create(options.getOrDefault("url", "http://localhost:8080/api/walks/1"));
+        int[] levels = Arrays.stream(options.getOrDefault("levels", "1,16,64,256").split(","))
+            .mapToInt(Integer::parseInt).toArray();
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "10"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "3"));
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(60)).GET().build();
+
+        System.out.printf("%s%n%12s %12s %10s %10s %10s %8s%n", uri,
+            "concurrency", "requests", "req/s", "p50 ms", "p99 ms", "errors");
+        for (int concurrency : levels) {
+            run(client, request, concurrency, warmup);
+            Result result = run(client, request, concurrency, seconds);
+            System.out.printf("%12d %12d %10.1f %10.2f %10.2f %8d%n", concurrency, result.requests(),
+                result.requests() / (double) seconds, result.percentile(0.50), result.percentile(0.99), result.errors());
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds) throws Exception {
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        AtomicLong errors = new AtomicLong();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<long[]>> tasks = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                tasks.add(workers.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < deadline) {
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 400) {
+                                errors.incrementAndGet();
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - start;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            List<long[]> parts = new ArrayList<>();
+            for (Future<long[]> task : tasks) {
+                parts.add(task.get());
+            }
+            long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Result(all, errors.get());
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private record Result(long[] sortedLatencies, long errors) {
+        int requests() {
+            return sortedLatencies.length;
+        }
+
+        double percentile(double p) {
+            if (sortedLatencies.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sortedLatencies.length - 1, Math.ceil(p * sortedLatencies.length) - 1);
+            return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+        }
+    }
+}
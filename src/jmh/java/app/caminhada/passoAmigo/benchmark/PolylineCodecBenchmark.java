@@ -0,0 +1,58 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o formato texto legado (List<Double>.toString) com o PolylineCodec
+ * binário, em tamanho gravado e tempo de decodificação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PolylineCodecBenchmark {
+
+    @Param({"5000"})
+    public int points;
+
+    private String legacyText;
+    private byte[] binary;
+
+    @Setup
+    public void setup() {
+        double[] coords = Polylines.synthetic(points);
+        List<Double> boxed = new ArrayList<>(coords.length);
+        for (double value : coords) {
+            boxed.add(value);
+        }
+        legacyText = boxed.toString();
+        binary = PolylineCodec.encode(coords);
+        System.out.printf("%n[size] points=%d legacyText=%d bytes binary=%d bytes%n",
+                points, legacyText.getBytes(StandardCharsets.UTF_8).length, binary.length);
+    }
+
+    @Benchmark
+    public List<Double> decodeLegacyText() {
+        // Mesmo algoritmo do WalkEntity.toWalk antigo
+        String json = legacyText.substring(1, legacyText.length() - 1);
+        String[] parts = json.split(",");
+        List<Double> polyline = new ArrayList<>();
+        for (String part : parts) {
+            polyline.add(Double.parseDouble(part.trim()));
+        }
+        return polyline;
+    }
+
+    @Benchmark
+    public double[] decodeBinary() {
+        return PolylineCodec.decode(binary);
+    }
+}
@@ -0,0 +1,21 @@
+package app.caminhada.passoAmigo.benchmark;
+
+public final class Polylines {
+
+    private Polylines() {
+    }
+
+    // Trajeto sintético com um ponto por metro, como o rastreador do app grava
+    public static double[] synthetic(int points) {
+        double[] coords = new double[points * 2];
+        double lat = -23.5505;
+        double lon = -46.6333;
+        for (int i = 0; i < points; i++) {
+            lat += 0.000009 * Math.cos(i / 50.0);
+            lon += 0.000009 * Math.sin(i / 50.0);
+            coords[2 * i] = lat;
+            coords[2 * i + 1] = lon;
+        }
+        return coords;
+    }
+}
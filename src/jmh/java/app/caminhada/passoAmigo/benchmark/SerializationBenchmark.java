@@ -0,0 +1,91 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU de serialização x bytes na rede da resposta de GET /api/walks/{id} em JSON
+ * e CBOR (polyline pelo PolylineCodec), com e sem gzip (nível padrão, como o do
+ * Tomcat). points=2000 é uma caminhada típica (~2 km com um ponto por metro);
+ * 20000, uma longa.
+ *
+ * O tamanho de cada combinação sai no fim do trial ("bytes na rede").
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="SerializationBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"2000", "20000"})
+    public int points;
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper mapper;
+    private WalkDTO dto;
+    private byte[] wire;
+
+    @Setup
+    public void setup() throws IOException {
+        mapper = "cbor".equals(format) ? new ObjectMapper(new CBORFactory()) : new ObjectMapper();
+        Walk walk = new Walk();
+        walk.setId("1");
+        walk.setUserId("42");
+        walk.setStartTime(Instant.parse("2025-01-01T10:00:00Z"));
+        walk.setEndTime(Instant.parse("2025-01-01T11:00:00Z"));
+        walk.setDistanceMeters(points);
+        // Como as polylines gravadas: já na precisão do PolylineCodec
+        walk.setPolyline(new Polyline(PolylineCodec.quantize(Polylines.synthetic(points))));
+        dto = WalkDtos.of(walk);
+        wire = serialize();
+    }
+
+    @TearDown
+    public void report() {
+        System.out.printf("%n%s%s, %d pontos: %d bytes na rede%n", format, gzip ? "+gzip" : "", points, wire.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        byte[] body = mapper.writeValueAsBytes(dto);
+        if (!gzip) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public WalkDTO deserialize() throws IOException {
+        InputStream in = new ByteArrayInputStream(wire);
+        if (gzip) {
+            in = new GZIPInputStream(in);
+        }
+        return mapper.readValue(in, WalkDTO.class);
+    }
+}
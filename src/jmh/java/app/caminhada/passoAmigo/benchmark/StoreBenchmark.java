@@ -0,0 +1,136 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.PassoAmigoApplication;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.store.WalkStore;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mesmas operações do WalkStore em cada backend, com o contexto Spring completo
+ * (cache, totais diários e índice espacial no JPA). startup mede a subida do
+ * contexto sem servidor web, onde os backends não usados deixam de ser carregados.
+ *
+ * durable é o backend em memória com o WriteAheadLog (app.storage.memory.wal-dir num
+ * diretório temporário): createWalk passa a incluir o acréscimo e o fsync.
+ *
+ * Firestore só com o emulador: FIRESTORE_EMULATOR_HOST=... -Djmh.args="StoreBenchmark -p backend=firestore"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StoreBenchmark {
+
+    private static final Instant DAY = Instant.parse("2025-03-10T00:00:00Z");
+    private static final AtomicInteger CONTEXTS = new AtomicInteger();
+
+    @Param({"memory", "durable", "jpa"})
+    public String backend;
+
+    @Param({"1000"})
+    public int points;
+
+    @Param({"200"})
+    public int walksPerUser;
+
+    private ConfigurableApplicationContext context;
+    private WalkStore store;
+    private double[] coords;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = start(backend);
+        store = context.getBean(WalkStore.class);
+        coords = Polylines.synthetic(points);
+        ids = new String[walksPerUser];
+        for (int i = 0; i < walksPerUser; i++) {
+            ids[i] = store.createWalk(walk("bench", DAY.plusSeconds(60L * i))).join();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public String createWalk() {
+        return store.createWalk(walk("bench-writes", DAY)).join();
+    }
+
+    // Vários usuários gravando ao mesmo tempo (disputa de locks)
+    @Benchmark
+    @Threads(8)
+    public String createWalkConcurrent() {
+        return store.createWalk(walk("bench-" + Thread.currentThread().getId(), DAY)).join();
+    }
+
+    @Benchmark
+    public Walk getWalk() {
+        return store.getWalk(ids[ThreadLocalRandom.current().nextInt(ids.length)]).join();
+    }
+
+    @Benchmark
+    public Object listFirstPage() {
+        return store.listWalkSummariesByUser("bench", null, null, null, WalkStore.DEFAULT_PAGE_SIZE).join();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void startup() {
+        start(backend).close();
+    }
+
+    private Walk walk(String userId, Instant start) {
+        Walk walk = new Walk();
+        walk.setUserId(userId);
+        walk.setStartTime(start);
+        walk.setEndTime(start.plusSeconds(1800));
+        walk.setPolyline(new Polyline(coords));
+        return walk;
+    }
+
+    // Cada contexto com seu banco H2, já que o de startup sobe ao lado do da medição
+    private static ConfigurableApplicationContext start(String backend) {
+        SpringApplicationBuilder builder = new SpringApplicationBuilder(PassoAmigoApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties("spring.datasource.url=jdbc:h2:mem:bench" + CONTEXTS.incrementAndGet(),
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN");
+        if ("durable".equals(backend)) {
+            builder.profiles("memory").properties("app.storage.memory.wal-dir=" + tempDir());
+        } else if (!"jpa".equals(backend)) {
+            builder.profiles(backend);
+        }
+        return builder.run();
+    }
+
+    private static String tempDir() {
+        try {
+            Path dir = Files.createTempDirectory("bench-wal");
+            dir.toFile().deleteOnExit();
+            return dir.toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
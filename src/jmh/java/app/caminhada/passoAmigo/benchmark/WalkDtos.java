@@ -0,0 +1,28 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.model.Walk;
+
+// Cópia para WalkDTO como os controllers faziam antes do WalkSerializer, para comparação
+final class WalkDtos {
+
+    private WalkDtos() {
+    }
+
+    static WalkDTO of(Walk walk) {
+        WalkDTO dto = new WalkDTO();
+        dto.setId(walk.getId());
+        dto.setUserId(walk.getUserId());
+        dto.setStartTime(walk.getStartTime() != null ? walk.getStartTime().toString() : null);
+        dto.setEndTime(walk.getEndTime() != null ? walk.getEndTime().toString() : null);
+        dto.setDistanceMeters(walk.getDistanceMeters());
+        dto.setPolyline(walk.getPolyline());
+        dto.setDuration(walk.getDuration());
+        dto.setPaceSecondsPerKm(walk.getPaceSecondsPerKm());
+        if (walk.getVersion() > 0) {
+            dto.setVersion(walk.getVersion());
+            dto.setUpdatedAt(walk.getUpdatedAt().toString());
+        }
+        return dto;
+    }
+}
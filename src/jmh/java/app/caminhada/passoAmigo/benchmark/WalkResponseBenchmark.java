@@ -0,0 +1,136 @@
+package app.caminhada.passoAmigo.benchmark;
+
+import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.dto.WalkSerializer;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.model.WalkEntity;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Custo por requisição de WalkController.get (uma caminhada) e listByUser
+ * (várias caminhadas): entidade -> modelo -> JSON pelo WalkSerializer.
+ *
+ * Os métodos dto* reproduzem a cópia intermediária em WalkDTO (datas em String) e
+ * os legacy*, o caminho antigo com List<Double>.
+ * Rodar com "-prof gc" e comparar gc.alloc.rate.norm (bytes/op).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WalkResponseBenchmark {
+
+    @Param({"10000"})
+    public int points;
+
+    @Param({"20"})
+    public int walksPerUser;
+
+    private final ObjectMapper mapper = new ObjectMapper().registerModule(WalkSerializer.module());
+    private WalkEntity entity;
+    private WalkEntity legacyEntity;
+
+    @Setup
+    public void setup() {
+        Walk walk = new Walk();
+        walk.setId("1");
+        walk.setUserId("42");
+        walk.setStartTime(Instant.parse("2025-01-01T10:00:00Z"));
+        walk.setEndTime(Instant.parse("2025-01-01T11:00:00Z"));
+        walk.setDistanceMeters(points);
+        walk.setPolyline(new Polyline(Polylines.synthetic(points)));
+        entity = WalkEntity.fromWalk(walk);
+
+        // Formato antigo: texto em polylineJson
+        legacyEntity = WalkEntity.fromWalk(walk);
+        legacyEntity.setPolylineData(null);
+        legacyEntity.setPolylineJson(toBoxed(walk.getPolyline().coordinates()).toString());
+    }
+
+    @Benchmark
+    public byte[] get() throws Exception {
+        return mapper.writeValueAsBytes(entity.toWalk());
+    }
+
+    @Benchmark
+    public byte[] listByUser() throws Exception {
+        List<Walk> walks = new ArrayList<>(walksPerUser);
+        for (int i = 0; i < walksPerUser; i++) {
+            walks.add(entity.toWalk());
+        }
+        return mapper.writeValueAsBytes(walks);
+    }
+
+    @Benchmark
+    public byte[] dtoGet() throws Exception {
+        return mapper.writeValueAsBytes(WalkDtos.of(entity.toWalk()));
+    }
+
+    @Benchmark
+    public byte[] dtoListByUser() throws Exception {
+        List<WalkDTO> dtos = new ArrayList<>(walksPerUser);
+        for (int i = 0; i < walksPerUser; i++) {
+            dtos.add(WalkDtos.of(entity.toWalk()));
+        }
+        return mapper.writeValueAsBytes(dtos);
+    }
+
+    @Benchmark
+    public byte[] legacyGet() throws Exception {
+        return mapper.writeValueAsBytes(legacyDto(legacyEntity));
+    }
+
+    @Benchmark
+    public byte[] legacyListByUser() throws Exception {
+        List<LegacyWalkDTO> dtos = new ArrayList<>(walksPerUser);
+        for (int i = 0; i < walksPerUser; i++) {
+            dtos.add(legacyDto(legacyEntity));
+        }
+        return mapper.writeValueAsBytes(dtos);
+    }
+
+    private static LegacyWalkDTO legacyDto(WalkEntity entity) {
+        LegacyWalkDTO dto = new LegacyWalkDTO();
+        dto.id = entity.getId() != null ? entity.getId().toString() : null;
+        dto.userId = entity.getUserId();
+        dto.startTime = entity.getStartTime().toString();
+        dto.endTime = entity.getEndTime() != null ? entity.getEndTime().toString() : null;
+        dto.distanceMeters = entity.getDistanceMeters();
+        // Parser do WalkEntity.toWalk antigo
+        String json = entity.getPolylineJson().trim();
+        json = json.substring(1, json.length() - 1);
+        List<Double> polyline = new ArrayList<>();
+        for (String part : json.split(",")) {
+            polyline.add(Double.parseDouble(part.trim()));
+        }
+        dto.polyline = polyline;
+        return dto;
+    }
+
+    private static List<Double> toBoxed(double[] coords) {
+        List<Double> boxed = new ArrayList<>(coords.length);
+        for (double value : coords) {
+            boxed.add(value);
+        }
+        return boxed;
+    }
+
+    public static class LegacyWalkDTO {
+        public String id;
+        public String userId;
+        public String startTime;
+        public String endTime;
+        public Double distanceMeters;
+        public List<Double> polyline;
+        public Integer duration;
+    }
+}
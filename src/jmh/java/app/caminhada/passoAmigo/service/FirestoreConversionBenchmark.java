@@ -0,0 +1,47 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.benchmark.Polylines;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversão de Walk para documento do Firestore. Fica no pacote do serviço para
+ * medir o walkToMap sem torná-lo público.
+ *
+ * Rodar com:
+ *   ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="FirestoreConversionBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FirestoreConversionBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int points;
+
+    private Walk walk;
+
+    @Setup
+    public void setup() {
+        walk = new Walk();
+        walk.setId("42");
+        walk.setUserId("user-1");
+        walk.setStartTime(Instant.parse("2025-03-01T10:00:00Z"));
+        walk.setEndTime(Instant.parse("2025-03-01T11:00:00Z"));
+        walk.setDistanceMeters(points);
+        walk.setPolyline(new Polyline(Polylines.synthetic(points)));
+    }
+
+    @Benchmark
+    public Map<String, Object> walkToMap() {
+        return FirestoreService.walkToMap(walk);
+    }
+}
@@ -0,0 +1,57 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.model.Walk;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS = "users";
+    public static final String WALKS = "walks";
+
+    @Value("${app.cache.ttl:10m}")
+    private Duration ttl;
+
+    @Value("${app.cache.users.max-size:10000}")
+    private long usersMaxSize;
+
+    @Value("${app.cache.walks.max-coordinates:5000000}")
+    private long walksMaxCoordinates;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager manager = new CaffeineCacheManager();
+        manager.setAllowNullValues(false);
+        manager.registerCustomCache(USERS, Caffeine.newBuilder()
+                .maximumSize(usersMaxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        // Caminhadas variam muito de tamanho: o peso é o número de coordenadas
+        manager.registerCustomCache(WALKS, Caffeine.newBuilder()
+                .maximumWeight(walksMaxCoordinates)
+                .weigher((Object key, Object value) -> walkWeight(value))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build());
+        // Remoções só acontecem após o commit, para não recarregar dados antigos
+        return new TransactionAwareCacheManagerProxy(manager);
+    }
+
+    private static int walkWeight(Object value) {
+        if (value instanceof Walk walk && walk.getPolyline() != null) {
+            return 1 + walk.getPolyline().size();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,47 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.util.CodecMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import io.micrometer.core.instrument.Counter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * application/cbor como alternativa ao JSON: quem manda Accept: application/cbor
+ * recebe o mesmo conteúdo em CBOR, com as polylines como byte string no formato
+ * do PolylineCodec (ver Polyline) em vez de um array de doubles. Os corpos de
+ * requisição também podem vir em CBOR (Content-Type: application/cbor).
+ *
+ * Sem Accept (ou com qualquer tipo) a resposta continua em JSON.
+ */
+@Configuration
+public class CborConfig {
+
+    // Mesmas configurações do ObjectMapper do Spring Boot (datas em ISO-8601 etc.), com a fábrica CBOR
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new CountingCborConverter(builder.createXmlMapper(false).factory(new CBORFactory()).build());
+    }
+
+    static class CountingCborConverter extends MappingJackson2CborHttpMessageConverter {
+        private final Counter bytes = CodecMetrics.bytesSerialized("cbor");
+
+        CountingCborConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+                throws IOException {
+            MetricsConfig.writeCounting(bytes, outputMessage, message -> super.writeInternal(object, type, message));
+        }
+    }
+}
@@ -1,9 +1,11 @@
 package app.caminhada.passoAmigo.config;
 
+import com.google.auth.oauth2.AccessToken;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -13,9 +15,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Base64;
 
+// Só carregada com app.storage.type=firestore; os outros backends não inicializam o SDK
 @Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "firestore")
 public class FirebaseConfig {
 
+    // Projeto usado com o emulador quando firebase.project-id não é informado
+    private static final String EMULATOR_PROJECT_ID = "demo-passoamigo";
+
     @Value("${firebase.service-account-file:}")
     private String serviceAccountFile;
 
@@ -31,18 +38,32 @@ public class FirebaseConfig {
             return FirebaseApp.getInstance();
         }
 
-        InputStream credentialsStream = resolveCredentialsStream();
-        GoogleCredentials credentials = GoogleCredentials.fromStream(credentialsStream);
-
-        FirebaseOptions.Builder builder = FirebaseOptions.builder().setCredentials(credentials);
-        if (projectId != null && !projectId.isBlank()) {
-            builder.setProjectId(projectId);
+        FirebaseOptions.Builder builder = FirebaseOptions.builder();
+        if (usesEmulator() && !hasCredentials()) {
+            // O emulador (FIRESTORE_EMULATOR_HOST) não valida credenciais
+            builder.setCredentials(GoogleCredentials.create(new AccessToken("owner", null)))
+                .setProjectId(projectId != null && !projectId.isBlank() ? projectId : EMULATOR_PROJECT_ID);
+        } else {
+            builder.setCredentials(GoogleCredentials.fromStream(resolveCredentialsStream()));
+            if (projectId != null && !projectId.isBlank()) {
+                builder.setProjectId(projectId);
+            }
         }
 
         FirebaseOptions options = builder.build();
         return FirebaseApp.initializeApp(options);
     }
 
+    private static boolean usesEmulator() {
+        String host = System.getenv("FIRESTORE_EMULATOR_HOST");
+        return host != null && !host.isBlank();
+    }
+
+    private boolean hasCredentials() {
+        return (serviceAccountBase64 != null && !serviceAccountBase64.isBlank())
+            || (serviceAccountFile != null && !serviceAccountFile.isBlank());
+    }
+
     private InputStream resolveCredentialsStream() throws IOException {
         if (serviceAccountBase64 != null && !serviceAccountBase64.isBlank()) {
             byte[] decoded = Base64.getDecoder().decode(serviceAccountBase64);
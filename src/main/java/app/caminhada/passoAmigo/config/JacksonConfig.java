@@ -0,0 +1,19 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.dto.WalkSerializer;
+import com.fasterxml.jackson.databind.Module;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Módulos do Jackson: o Spring Boot registra os beans Module no ObjectMapper e no
+ * Jackson2ObjectMapperBuilder, então valem para JSON, CBOR (CborConfig) e a exportação.
+ */
+@Configuration
+public class JacksonConfig {
+
+    @Bean
+    public Module walkModule() {
+        return WalkSerializer.module();
+    }
+}
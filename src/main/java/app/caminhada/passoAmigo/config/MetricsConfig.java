@@ -0,0 +1,115 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.service.LiveWalkService;
+import app.caminhada.passoAmigo.util.CodecMetrics;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.lang.Nullable;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Métricas expostas em /actuator/prometheus:
+ * - http.server.requests: tempo por endpoint (uri, método, status), com histograma
+ *   para p99 no Prometheus (histogram_quantile).
+ * - passoamigo.storage: tempo por método dos serviços de armazenamento (@Timed em
+ *   DatabaseService, FirestoreService e InMemoryStore; tags class e method).
+ * - passoamigo.polyline.points.parsed e passoamigo.serialized.bytes (CodecMetrics;
+ *   format=json ou cbor para os corpos de resposta).
+ * - passoamigo.singleflight.shared (leituras coalescidas) e passoamigo.ratelimit.rejected (429).
+ * - cache.*, hikaricp.*, tomcat.threads.* e passoamigo.live.walks (gauges).
+ */
+@Configuration
+public class MetricsConfig {
+
+    public static final String STORAGE_TIMER = "passoamigo.storage";
+
+    // Necessário para o @Timed fora dos controllers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+
+    // Substitui o conversor JSON do Spring Boot para contar os bytes das respostas
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper) {
+        return new CountingJacksonConverter(objectMapper);
+    }
+
+    @Bean
+    public MeterBinder liveWalkMetrics(LiveWalkService liveWalkService) {
+        return registry -> Gauge.builder("passoamigo.live.walks", liveWalkService, LiveWalkService::activeCount)
+            .description("Caminhadas ao vivo em andamento")
+            .register(registry);
+    }
+
+    static class CountingJacksonConverter extends MappingJackson2HttpMessageConverter {
+        private final Counter bytes = CodecMetrics.bytesSerialized("json");
+
+        CountingJacksonConverter(ObjectMapper objectMapper) {
+            super(objectMapper);
+        }
+
+        @Override
+        protected void writeInternal(Object object, @Nullable Type type, HttpOutputMessage outputMessage)
+                throws IOException {
+            writeCounting(bytes, outputMessage, message -> super.writeInternal(object, type, message));
+        }
+    }
+
+    interface BodyWriter {
+        void write(HttpOutputMessage message) throws IOException;
+    }
+
+    // Conta os bytes gravados no corpo pelo conversor (antes da compressão do servidor)
+    static void writeCounting(Counter bytes, HttpOutputMessage outputMessage, BodyWriter writer) throws IOException {
+        CountingOutputStream body = new CountingOutputStream(outputMessage.getBody());
+        try {
+            writer.write(new HttpOutputMessage() {
+                @Override
+                public OutputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public HttpHeaders getHeaders() {
+                    return outputMessage.getHeaders();
+                }
+            });
+        } finally {
+            bytes.increment(body.count);
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package app.caminhada.passoAmigo.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Limite de requisições por cliente em /api/** (app.ratelimit.*; ver RateLimitInterceptor)
+@Configuration
+@ConditionalOnProperty(name = "app.ratelimit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    @Value("${app.ratelimit.capacity:100}")
+    private int capacity;
+
+    @Value("${app.ratelimit.per-second:20}")
+    private double perSecond;
+
+    @Value("${app.ratelimit.max-clients:100000}")
+    private int maxClients;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RateLimitInterceptor(capacity, perSecond, maxClients)).addPathPatterns("/api/**");
+    }
+}
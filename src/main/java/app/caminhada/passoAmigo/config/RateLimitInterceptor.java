@@ -0,0 +1,71 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.exception.TooManyRequestsException;
+import app.caminhada.passoAmigo.util.TokenBucket;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Um token bucket por cliente (endereço remoto; atrás de proxy, configure
+ * server.forward-headers-strategy para valer o X-Forwarded-For). Ao esgotar, a
+ * requisição vira 429 com Retry-After sem chegar ao controller nem ao banco.
+ *
+ * O limite é por cliente e não pelo userId da URL: vários aparelhos lendo a mesma
+ * caminhada em grupo são legítimos (e a leitura é coalescida no WalkController).
+ *
+ * Os baldes ficam num cache limitado a maxClients: um balde parado pelo tempo de
+ * recarga completa já está cheio e sai sem mudar o comportamento; acima do limite,
+ * o Caffeine descarta os menos usados (o cliente volta com balde cheio).
+ */
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitInterceptor.class);
+
+    private final int capacity;
+    private final double perSecond;
+    private final Cache<String, TokenBucket> buckets;
+    private final Counter rejected = Counter.builder("passoamigo.ratelimit.rejected")
+        .description("Requisições recusadas com 429 pelo limite por cliente")
+        .register(Metrics.globalRegistry);
+
+    public RateLimitInterceptor(int capacity, double perSecond, int maxClients) {
+        this.capacity = capacity;
+        this.perSecond = perSecond;
+        this.buckets = Caffeine.newBuilder()
+            .maximumSize(maxClients)
+            .expireAfterAccess(Duration.ofNanos((long) Math.ceil(capacity * 1_000_000_000d / perSecond)))
+            .build();
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Respostas assíncronas voltam ao DispatcherServlet; a requisição já foi contada
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        String client = request.getRemoteAddr();
+        long wait = buckets.get(client, key -> new TokenBucket(capacity, perSecond)).tryAcquire();
+        if (wait > 0) {
+            rejected.increment();
+            logger.debug("Rate limit exceeded for client: {}", client);
+            throw new TooManyRequestsException(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999L)));
+        }
+        return true;
+    }
+
+    long clients() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
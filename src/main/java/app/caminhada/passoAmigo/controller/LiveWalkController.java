@@ -0,0 +1,101 @@
+package app.caminhada.passoAmigo.controller;
+
+import app.caminhada.passoAmigo.dto.LiveWalkDTO;
+import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.service.LiveWalkService;
+import app.caminhada.passoAmigo.util.CodecMetrics;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Caminhada ao vivo: POST /api/walks/live abre a sessão (userId, startTime e,
+ * opcionalmente, os primeiros pontos em polyline), POST .../points acrescenta lotes
+ * e POST .../finish grava a caminhada. Os lotes vão como JSON compacto
+ * ([lat1, lon1, ...]) ou binário (application/octet-stream no formato do
+ * PolylineCodec). seq numera os lotes a partir de 0 para o app poder reenviar
+ * um lote sem duplicar pontos; da mesma forma, repetir o finish devolve a
+ * caminhada já gravada.
+ */
+@RestController
+@RequestMapping("/api/walks/live")
+public class LiveWalkController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveWalkController.class);
+
+    private final LiveWalkService liveWalkService;
+
+    public LiveWalkController(LiveWalkService liveWalkService) {
+        this.liveWalkService = liveWalkService;
+    }
+
+    @PostMapping
+    public ResponseEntity<LiveWalkDTO> start(@Valid @RequestBody WalkDTO walkDTO) {
+        Walk walk = walkDTO.toWalk();
+        LiveWalkDTO live = liveWalkService.start(walk.getUserId(), walk.getStartTime(),
+            walk.getPolyline() != null ? walk.getPolyline().coordinates() : null);
+        return ResponseEntity.created(URI.create("/api/walks/live/" + live.getId())).body(live);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<LiveWalkDTO> get(@PathVariable String id) {
+        return orNotFound(id, liveWalkService.get(id));
+    }
+
+    @PostMapping(path = "/{id}/points", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<LiveWalkDTO> appendJson(@PathVariable String id,
+                                                  @RequestParam(required = false) Integer seq,
+                                                  @RequestBody double[] points) {
+        CodecMetrics.jsonPointsParsed(points.length / 2);
+        return orNotFound(id, liveWalkService.append(id, seq, points));
+    }
+
+    @PostMapping(path = "/{id}/points", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<LiveWalkDTO> appendBinary(@PathVariable String id,
+                                                    @RequestParam(required = false) Integer seq,
+                                                    @RequestBody byte[] points) {
+        return orNotFound(id, liveWalkService.append(id, seq, PolylineCodec.decode(points)));
+    }
+
+    // duration (segundos em movimento, sem as pausas) é opcional, como em POST /api/walks
+    @PostMapping("/{id}/finish")
+    public CompletableFuture<ResponseEntity<?>> finish(@PathVariable String id,
+                                                       @RequestParam(required = false) Instant endTime,
+                                                       @RequestParam(required = false) Integer duration) {
+        logger.info("Finishing live walk: {}", id);
+        return liveWalkService.finish(id, endTime, duration).<ResponseEntity<?>>thenApply(walk -> {
+            if (walk == null) {
+                logger.warn("Live walk not found: {}", id);
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.created(URI.create("/api/walks/" + walk.getId())).body(walk);
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error finishing live walk: {}", id, e);
+            }
+        });
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> discard(@PathVariable String id) {
+        logger.info("Discarding live walk: {}", id);
+        return liveWalkService.discard(id) ? ResponseEntity.noContent().build() : ResponseEntity.notFound().build();
+    }
+
+    private static ResponseEntity<LiveWalkDTO> orNotFound(String id, LiveWalkDTO live) {
+        if (live == null) {
+            logger.warn("Live walk not found: {}", id);
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(live);
+    }
+}
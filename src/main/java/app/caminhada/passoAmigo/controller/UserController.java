@@ -1,7 +1,7 @@
 package app.caminhada.passoAmigo.controller;
 
 import app.caminhada.passoAmigo.model.User;
-import app.caminhada.passoAmigo.service.DatabaseService;
+import app.caminhada.passoAmigo.store.UserStore;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,64 +10,67 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * CRUD de usuários sobre o UserStore configurado (app.storage.type).
+ * Estatísticas e exportação ficam em UserHistoryController (só no backend JPA).
+ */
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
-    private final DatabaseService databaseService;
+    private final UserStore userStore;
 
-    public UserController(DatabaseService databaseService) {
-        this.databaseService = databaseService;
+    public UserController(UserStore userStore) {
+        this.userStore = userStore;
     }
 
     @PostMapping
-    public ResponseEntity<?> create(@Valid @RequestBody User user) {
-        try {
-            logger.info("Creating user: {}", user.getEmail());
-            String id = databaseService.createUser(user);
+    public CompletableFuture<ResponseEntity<?>> create(@Valid @RequestBody User user) {
+        logger.info("Creating user: {}", user.getEmail());
+        return userStore.createUser(user).<ResponseEntity<?>>thenApply(id -> {
             user.setId(id);
             logger.info("User created successfully with id: {}", id);
             return ResponseEntity.created(URI.create("/api/users/" + id)).body(user);
-        } catch (Exception e) {
-            logger.error("Error creating user", e);
-            throw new RuntimeException("Erro ao criar usuário", e);
-        }
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error creating user", e);
+            }
+        });
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> get(@PathVariable String id) {
-        try {
-            logger.debug("Getting user with id: {}", id);
-            User user = databaseService.getUser(id);
+    public CompletableFuture<ResponseEntity<?>> get(@PathVariable String id) {
+        logger.debug("Getting user with id: {}", id);
+        return userStore.getUser(id).<ResponseEntity<?>>thenApply(user -> {
             if (user == null) {
                 logger.warn("User not found with id: {}", id);
                 return ResponseEntity.notFound().build();
             }
-            return ResponseEntity.ok(user);
-        } catch (Exception e) {
-            logger.error("Error getting user with id: {}", id, e);
-            throw new RuntimeException("Erro ao buscar usuário", e);
-        }
+            return Versions.ok(user.getVersion()).body(user);
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error getting user with id: {}", id, e);
+            }
+        });
     }
 
     @GetMapping
-    public List<User> list() {
-        try {
-            logger.debug("Listing all users");
-            return databaseService.listUsers();
-        } catch (Exception e) {
-            logger.error("Error listing users", e);
-            throw new RuntimeException("Erro ao listar usuários", e);
-        }
+    public CompletableFuture<List<User>> list() {
+        logger.debug("Listing all users");
+        return userStore.listUsers().whenComplete((users, e) -> {
+            if (e != null) {
+                logger.error("Error listing users", e);
+            }
+        });
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable String id, @Valid @RequestBody User user) {
-        try {
-            logger.info("Updating user with id: {}", id);
-            boolean ok = databaseService.updateUser(id, user);
+    public CompletableFuture<ResponseEntity<?>> update(@PathVariable String id, @Valid @RequestBody User user) {
+        logger.info("Updating user with id: {}", id);
+        return userStore.updateUser(id, user).<ResponseEntity<?>>thenApply(ok -> {
             if (!ok) {
                 logger.warn("User not found for update with id: {}", id);
                 return ResponseEntity.notFound().build();
@@ -75,28 +78,28 @@ public class UserController {
             user.setId(id);
             logger.info("User updated successfully with id: {}", id);
             return ResponseEntity.ok(user);
-        } catch (Exception e) {
-            logger.error("Error updating user with id: {}", id, e);
-            throw new RuntimeException("Erro ao atualizar usuário", e);
-        }
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error updating user with id: {}", id, e);
+            }
+        });
     }
 
+    // Exclui também as caminhadas do usuário
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable String id) {
-        try {
-            logger.info("Deleting user with id: {}", id);
-            boolean ok = databaseService.deleteUser(id);
+    public CompletableFuture<ResponseEntity<?>> delete(@PathVariable String id) {
+        logger.info("Deleting user with id: {}", id);
+        return userStore.deleteUser(id).<ResponseEntity<?>>thenApply(ok -> {
             if (!ok) {
                 logger.warn("User not found for deletion with id: {}", id);
                 return ResponseEntity.notFound().build();
             }
             logger.info("User deleted successfully with id: {}", id);
             return ResponseEntity.noContent().build();
-        } catch (Exception e) {
-            logger.error("Error deleting user with id: {}", id, e);
-            throw new RuntimeException("Erro ao excluir usuário", e);
-        }
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error deleting user with id: {}", id, e);
+            }
+        });
     }
 }
-
-
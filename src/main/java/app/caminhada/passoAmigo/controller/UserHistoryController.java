@@ -0,0 +1,104 @@
+package app.caminhada.passoAmigo.controller;
+
+import app.caminhada.passoAmigo.dto.UserStatsDTO;
+import app.caminhada.passoAmigo.service.StatsService;
+import app.caminhada.passoAmigo.service.WalkExportService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Estatísticas e exportação do histórico do usuário. Usam os totais diários e a
+ * leitura em fluxo do banco, então só existem no backend JPA.
+ */
+@RestController
+@RequestMapping("/api/users")
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class UserHistoryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserHistoryController.class);
+    private final StatsService statsService;
+    private final WalkExportService walkExportService;
+    private final Duration exportTimeout;
+
+    public UserHistoryController(StatsService statsService, WalkExportService walkExportService,
+                                 @Value("${app.export.timeout:10m}") Duration exportTimeout) {
+        this.statsService = statsService;
+        this.walkExportService = walkExportService;
+        this.exportTimeout = exportTimeout;
+    }
+
+    // Totais por dia, semana e mês no período [from, to] (datas no fuso app.stats.zone)
+    @GetMapping("/{id}/stats")
+    public UserStatsDTO stats(@PathVariable String id,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        try {
+            logger.debug("Getting stats for user: {} ({} - {})", id, from, to);
+            return statsService.getUserStats(id, from, to);
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error getting stats for user: {}", id, e);
+            throw new RuntimeException("Erro ao calcular estatísticas", e);
+        }
+    }
+
+    /**
+     * Exporta todo o histórico em fluxo: NDJSON (padrão) ou GPX. Históricos longos
+     * levam mais que o timeout assíncrono padrão, então só esta resposta usa
+     * app.export.timeout.
+     */
+    @GetMapping("/{id}/walks/export")
+    public WebAsyncTask<Void> exportWalks(@PathVariable String id,
+                                          @RequestParam(defaultValue = "ndjson") String format,
+                                          HttpServletResponse response) {
+        logger.info("Exporting walks for user: {} as {}", id, format);
+        StreamingResponseBody body;
+        if ("gpx".equals(format)) {
+            response.setContentType("application/gpx+xml");
+            body = out -> walkExportService.writeGpx(id, out);
+        } else if ("ndjson".equals(format)) {
+            response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+            body = out -> walkExportService.writeNdjson(id, out);
+        } else {
+            throw new IllegalArgumentException("Formato de exportação inválido: " + format);
+        }
+        // O id vem da URL: no nome do arquivo só letras, dígitos, '-' e '_'
+        String filename = "walks-" + id.replaceAll("[^A-Za-z0-9_-]", "_") + "." + format;
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString());
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            body.writeTo(response.getOutputStream());
+            response.flushBuffer();
+            return null;
+        });
+    }
+
+    // Recalcula os totais diários de todos os usuários a partir das caminhadas
+    @PostMapping("/stats/rebuild")
+    public ResponseEntity<?> rebuildStats() {
+        try {
+            logger.info("Rebuilding daily stats");
+            long start = System.currentTimeMillis();
+            int users = statsService.rebuildAll();
+            return ResponseEntity.ok(Map.of("users", users, "elapsedMs", System.currentTimeMillis() - start));
+        } catch (Exception e) {
+            logger.error("Error rebuilding daily stats", e);
+            throw new RuntimeException("Erro ao recalcular estatísticas", e);
+        }
+    }
+}
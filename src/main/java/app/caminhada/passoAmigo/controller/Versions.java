@@ -0,0 +1,37 @@
+package app.caminhada.passoAmigo.controller;
+
+import app.caminhada.passoAmigo.util.ChangeClock;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Cabeçalhos de GET condicional a partir da versão (ChangeClock) do recurso. O
+ * Spring compara If-None-Match / If-Modified-Since com a ETag e o Last-Modified da
+ * resposta e troca o 200 por 304 sem corpo.
+ *
+ * As ETags são fracas (W/"versão"): JSON e CBOR, com ou sem gzip, são a mesma
+ * versão, e o Tomcat não comprime respostas com ETag forte. If-None-Match usa
+ * comparação fraca, então "versão" enviado pelo app continua valendo.
+ */
+final class Versions {
+
+    // O app pode guardar a resposta, mas revalida antes de usar
+    static final CacheControl REVALIDATE = CacheControl.noCache();
+
+    private Versions() {
+    }
+
+    // Versão 0 (desconhecida): resposta sem validadores
+    static ResponseEntity.BodyBuilder ok(long version) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT);
+        if (version > 0) {
+            ok.eTag(eTag(version)).lastModified(ChangeClock.toInstant(version)).cacheControl(REVALIDATE);
+        }
+        return ok;
+    }
+
+    static String eTag(long version) {
+        return "W/\"" + version + "\"";
+    }
+}
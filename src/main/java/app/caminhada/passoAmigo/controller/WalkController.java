@@ -1,139 +1,235 @@
 package app.caminhada.passoAmigo.controller;
 
+import app.caminhada.passoAmigo.dto.BatchResultDTO;
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
 import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
 import app.caminhada.passoAmigo.model.Walk;
-import app.caminhada.passoAmigo.service.DatabaseService;
+import app.caminhada.passoAmigo.store.WalkStore;
+import app.caminhada.passoAmigo.util.SingleFlight;
+import jakarta.validation.ConstraintViolation;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
+/**
+ * CRUD de caminhadas sobre o WalkStore configurado (app.storage.type). As respostas
+ * são assíncronas: com o Firestore a thread da requisição é liberada durante a chamada.
+ * Busca espacial e recálculo ficam em WalkGeometryController (só no backend JPA).
+ *
+ * Além de JSON, aceita e responde application/cbor (Accept/Content-Type), com a
+ * polyline como byte string do PolylineCodec (ver CborConfig). Respostas maiores
+ * que server.compression.min-response-size saem com gzip se o cliente aceitar.
+ * WalkDTO é o corpo das requisições; as respostas escrevem Walk direto (WalkSerializer).
+ */
 @RestController
 @RequestMapping("/api/walks")
 public class WalkController {
 
     private static final Logger logger = LoggerFactory.getLogger(WalkController.class);
-    private final DatabaseService databaseService;
+    public static final int MAX_BATCH_SIZE = 500;
 
-    public WalkController(DatabaseService databaseService) {
-        this.databaseService = databaseService;
+    private final WalkStore walkStore;
+    private final Validator validator;
+    // Leituras idênticas simultâneas (ex.: fim de caminhada em grupo) dividem uma consulta
+    private final SingleFlight<ListKey, PageDTO<?>> listFlights = new SingleFlight<>("walks.listByUser");
+    private final SingleFlight<ChangesKey, ChangesDTO<Walk>> changesFlights = new SingleFlight<>("walks.changes");
+
+    public WalkController(WalkStore walkStore, Validator validator) {
+        this.walkStore = walkStore;
+        this.validator = validator;
     }
 
     @PostMapping
-    public ResponseEntity<?> create(@Valid @RequestBody WalkDTO walkDTO) {
-        try {
-            logger.info("Creating walk for user: {}", walkDTO.getUserId());
-            Walk walk = walkDTO.toWalk();
-            String id = databaseService.createWalk(walk);
+    public CompletableFuture<ResponseEntity<?>> create(@Valid @RequestBody WalkDTO walkDTO) {
+        logger.info("Creating walk for user: {}", walkDTO.getUserId());
+        Walk walk = walkDTO.toWalk();
+        return walkStore.createWalk(walk).<ResponseEntity<?>>thenApply(id -> {
             walk.setId(id);
             logger.info("Walk created successfully with id: {}", id);
-            
-            // Converter de volta para DTO para resposta
-            WalkDTO response = new WalkDTO();
-            response.setId(walk.getId());
-            response.setUserId(walk.getUserId());
-            response.setStartTime(walk.getStartTime() != null ? walk.getStartTime().toString() : null);
-            response.setEndTime(walk.getEndTime() != null ? walk.getEndTime().toString() : null);
-            response.setDistanceMeters(walk.getDistanceMeters());
-            response.setPolyline(walk.getPolyline());
-            
-            return ResponseEntity.created(URI.create("/api/walks/" + id)).body(response);
-        } catch (Exception e) {
-            logger.error("Error creating walk", e);
-            throw new RuntimeException("Erro ao criar caminhada", e);
+            return ResponseEntity.created(URI.create("/api/walks/" + id)).body(walk);
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error creating walk", e);
+            }
+        });
+    }
+
+    // Sincronização de caminhadas gravadas offline: valida item a item e grava os válidos em lote
+    @PostMapping("/batch")
+    public CompletableFuture<ResponseEntity<?>> createBatch(@RequestBody List<WalkDTO> walkDTOs) {
+        if (walkDTOs.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Lote excede o máximo de " + MAX_BATCH_SIZE + " caminhadas");
+        }
+        logger.info("Creating batch of {} walks", walkDTOs.size());
+        BatchResultDTO result = new BatchResultDTO();
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Walk> validWalks = new ArrayList<>();
+        for (int i = 0; i < walkDTOs.size(); i++) {
+            WalkDTO dto = walkDTOs.get(i);
+            Map<String, String> errors = new HashMap<>();
+            if (dto == null) {
+                errors.put("walk", "não deve ser nulo");
+            } else {
+                Set<ConstraintViolation<WalkDTO>> violations = validator.validate(dto);
+                violations.forEach(v -> errors.put(v.getPropertyPath().toString(), v.getMessage()));
+            }
+            if (errors.isEmpty()) {
+                validIndexes.add(i);
+                validWalks.add(dto.toWalk());
+            } else {
+                result.addFailed(i, errors);
+            }
         }
+
+        CompletableFuture<List<String>> saved = validWalks.isEmpty()
+            ? CompletableFuture.completedFuture(List.of())
+            : walkStore.createWalks(validWalks);
+        return saved.<ResponseEntity<?>>thenApply(ids -> {
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.get(i) != null) {
+                    result.addCreated(validIndexes.get(i), ids.get(i));
+                } else {
+                    result.addFailed(validIndexes.get(i), 503, Map.of("walk", "não foi possível gravar"));
+                }
+            }
+            result.getResults().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+            logger.info("Batch finished: {} created, {} failed", result.getCreated(), result.getFailed());
+            return ResponseEntity.ok(result);
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error creating walk batch", e);
+            }
+        });
     }
 
+    /**
+     * tolerance (metros) ou zoom (0-22) devolvem a polyline simplificada. Com ETag
+     * (versão) e Last-Modified: If-None-Match ou If-Modified-Since sem alteração
+     * recebem 304 sem corpo.
+     */
     @GetMapping("/{id}")
-    public ResponseEntity<?> get(@PathVariable String id) {
-        try {
-            logger.debug("Getting walk with id: {}", id);
-            Walk walk = databaseService.getWalk(id);
-            if (walk == null) {
+    public CompletableFuture<ResponseEntity<?>> get(@PathVariable String id,
+                                                    @RequestParam(required = false) Double tolerance,
+                                                    @RequestParam(required = false) Integer zoom) {
+        logger.debug("Getting walk with id: {} (tolerance: {}, zoom: {})", id, tolerance, zoom);
+        CompletableFuture<Walk> walk = tolerance == null && zoom == null
+            ? walkStore.getWalk(id)
+            : walkStore.getWalkSimplified(id, tolerance, zoom);
+        return walk.<ResponseEntity<?>>thenApply(found -> {
+            if (found == null) {
                 logger.warn("Walk not found with id: {}", id);
                 return ResponseEntity.notFound().build();
             }
-            
-            // Converter para DTO
-            WalkDTO dto = new WalkDTO();
-            dto.setId(walk.getId());
-            dto.setUserId(walk.getUserId());
-            dto.setStartTime(walk.getStartTime() != null ? walk.getStartTime().toString() : null);
-            dto.setEndTime(walk.getEndTime() != null ? walk.getEndTime().toString() : null);
-            dto.setDistanceMeters(walk.getDistanceMeters());
-            dto.setPolyline(walk.getPolyline());
-            
-            return ResponseEntity.ok(dto);
-        } catch (Exception e) {
-            logger.error("Error getting walk with id: {}", id, e);
-            throw new RuntimeException("Erro ao buscar caminhada", e);
-        }
+            return Versions.ok(found.getVersion()).body(found);
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error getting walk with id: {}", id, e);
+            }
+        });
     }
 
+    // fields=summary devolve apenas distância e horários, sem polyline
     @GetMapping("/user/{userId}")
-    public List<WalkDTO> listByUser(@PathVariable String userId) {
-        try {
-            logger.debug("Listing walks for user: {}", userId);
-            List<Walk> walks = databaseService.listWalksByUser(userId);
-            return walks.stream().map(walk -> {
-                WalkDTO dto = new WalkDTO();
-                dto.setId(walk.getId());
-                dto.setUserId(walk.getUserId());
-                dto.setStartTime(walk.getStartTime() != null ? walk.getStartTime().toString() : null);
-                dto.setEndTime(walk.getEndTime() != null ? walk.getEndTime().toString() : null);
-                dto.setDistanceMeters(walk.getDistanceMeters());
-                dto.setPolyline(walk.getPolyline());
-                return dto;
-            }).collect(Collectors.toList());
-        } catch (Exception e) {
-            logger.error("Error listing walks for user: {}", userId, e);
-            throw new RuntimeException("Erro ao listar caminhadas", e);
+    public CompletableFuture<PageDTO<?>> listByUser(@PathVariable String userId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "" + WalkStore.DEFAULT_PAGE_SIZE) int limit,
+                                                    @RequestParam(required = false) Instant from,
+                                                    @RequestParam(required = false) Instant to,
+                                                    @RequestParam(defaultValue = "full") String fields) {
+        logger.debug("Listing walks for user: {} (cursor: {}, limit: {}, fields: {})", userId, cursor, limit, fields);
+        boolean summary = "summary".equals(fields);
+        if (!summary && !"full".equals(fields)) {
+            throw new IllegalArgumentException("Valor inválido para fields: " + fields);
         }
+        CompletableFuture<PageDTO<?>> page = listFlights.run(new ListKey(userId, cursor, limit, from, to, summary), () -> summary
+            ? walkStore.listWalkSummariesByUser(userId, from, to, cursor, limit).thenApply(p -> p)
+            : walkStore.listWalksByUser(userId, from, to, cursor, limit).thenApply(p -> p));
+        return page.whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error listing walks for user: {}", userId, e);
+            }
+        });
+    }
+
+    /**
+     * Sincronização incremental: caminhadas criadas ou alteradas e ids das excluídas
+     * desde since (watermark da resposta anterior; 0 na primeira vez). A ETag é a nova
+     * marca d'água, então If-None-Match com a marca atual recebe 304 quando nada mudou.
+     */
+    @GetMapping("/user/{userId}/changes")
+    public CompletableFuture<ResponseEntity<?>> listChangesByUser(@PathVariable String userId,
+                                                                  @RequestParam(defaultValue = "0") long since,
+                                                                  @RequestParam(defaultValue = "" + WalkStore.MAX_PAGE_SIZE) int limit) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since deve ser maior ou igual a zero");
+        }
+        logger.debug("Listing walk changes for user: {} (since: {}, limit: {})", userId, since, limit);
+        return changesFlights.run(new ChangesKey(userId, since, limit),
+                () -> walkStore.listWalkChangesByUser(userId, since, limit)).<ResponseEntity<?>>thenApply(changes ->
+            ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(Versions.eTag(changes.getWatermark()))
+                .cacheControl(Versions.REVALIDATE).body(changes)
+        ).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error listing walk changes for user: {}", userId, e);
+            }
+        });
     }
 
     @PutMapping("/{id}")
-    public ResponseEntity<?> update(@PathVariable String id, @Valid @RequestBody WalkDTO walkDTO) {
-        try {
-            logger.info("Updating walk with id: {}", id);
-            Walk walk = walkDTO.toWalk();
-            boolean ok = databaseService.updateWalk(id, walk);
+    public CompletableFuture<ResponseEntity<?>> update(@PathVariable String id, @Valid @RequestBody WalkDTO walkDTO) {
+        logger.info("Updating walk with id: {}", id);
+        Walk walk = walkDTO.toWalk();
+        return walkStore.updateWalk(id, walk).<ResponseEntity<?>>thenApply(ok -> {
             if (!ok) {
                 logger.warn("Walk not found for update with id: {}", id);
                 return ResponseEntity.notFound().build();
             }
             walk.setId(id);
             logger.info("Walk updated successfully with id: {}", id);
-            
-            // Converter de volta para DTO
-            walkDTO.setId(id);
-            return ResponseEntity.ok(walkDTO);
-        } catch (Exception e) {
-            logger.error("Error updating walk with id: {}", id, e);
-            throw new RuntimeException("Erro ao atualizar caminhada", e);
-        }
+            // Com distância e ritmo recalculados
+            return ResponseEntity.ok(walk);
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error updating walk with id: {}", id, e);
+            }
+        });
     }
 
     @DeleteMapping("/{id}")
-    public ResponseEntity<?> delete(@PathVariable String id) {
-        try {
-            logger.info("Deleting walk with id: {}", id);
-            boolean ok = databaseService.deleteWalk(id);
+    public CompletableFuture<ResponseEntity<?>> delete(@PathVariable String id) {
+        logger.info("Deleting walk with id: {}", id);
+        return walkStore.deleteWalk(id).<ResponseEntity<?>>thenApply(ok -> {
             if (!ok) {
                 logger.warn("Walk not found for deletion with id: {}", id);
                 return ResponseEntity.notFound().build();
             }
             logger.info("Walk deleted successfully with id: {}", id);
             return ResponseEntity.noContent().build();
-        } catch (Exception e) {
-            logger.error("Error deleting walk with id: {}", id, e);
-            throw new RuntimeException("Erro ao excluir caminhada", e);
-        }
+        }).whenComplete((response, e) -> {
+            if (e != null) {
+                logger.error("Error deleting walk with id: {}", id, e);
+            }
+        });
     }
-}
 
+    private record ListKey(String userId, String cursor, int limit, Instant from, Instant to, boolean summary) {
+    }
 
+    private record ChangesKey(String userId, long since, int limit) {
+    }
+}
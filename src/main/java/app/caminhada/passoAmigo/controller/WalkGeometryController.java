@@ -0,0 +1,103 @@
+package app.caminhada.passoAmigo.controller;
+
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
+import app.caminhada.passoAmigo.service.DatabaseService;
+import app.caminhada.passoAmigo.service.GeometryService;
+import app.caminhada.passoAmigo.service.SpatialIndexService;
+import app.caminhada.passoAmigo.store.WalkStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Busca espacial e recálculo de geometria. Dependem do índice espacial e das
+ * colunas do banco, então só existem no backend JPA.
+ */
+@RestController
+@RequestMapping("/api/walks")
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class WalkGeometryController {
+
+    private static final Logger logger = LoggerFactory.getLogger(WalkGeometryController.class);
+    public static final double MAX_NEAR_RADIUS_METERS = 50_000;
+
+    private final DatabaseService databaseService;
+    private final GeometryService geometryService;
+    private final SpatialIndexService spatialIndexService;
+
+    public WalkGeometryController(DatabaseService databaseService, GeometryService geometryService,
+                                  SpatialIndexService spatialIndexService) {
+        this.databaseService = databaseService;
+        this.geometryService = geometryService;
+        this.spatialIndexService = spatialIndexService;
+    }
+
+    // Caminhadas que passam perto de um ponto (lat, lon, radius em metros)
+    // ou dentro de um retângulo (bbox=minLat,minLon,maxLat,maxLon), mais recentes primeiro
+    @GetMapping("/near")
+    public List<WalkSummaryDTO> near(@RequestParam(required = false) Double lat,
+                                     @RequestParam(required = false) Double lon,
+                                     @RequestParam(defaultValue = "500") double radius,
+                                     @RequestParam(required = false) String bbox,
+                                     @RequestParam(defaultValue = "" + WalkStore.DEFAULT_PAGE_SIZE) int limit) {
+        int size = Math.max(1, Math.min(limit, WalkStore.MAX_PAGE_SIZE));
+        List<Long> ids;
+        if (bbox != null) {
+            double[] box = parseBbox(bbox);
+            ids = spatialIndexService.searchBox(box[0], box[1], box[2], box[3], size);
+        } else {
+            if (lat == null || lon == null) {
+                throw new IllegalArgumentException("Informe lat e lon ou bbox");
+            }
+            if (Math.abs(lat) > 90 || Math.abs(lon) > 180) {
+                throw new IllegalArgumentException("Coordenadas inválidas");
+            }
+            if (radius <= 0 || radius > MAX_NEAR_RADIUS_METERS) {
+                throw new IllegalArgumentException("Raio deve estar entre 0 e " + (int) MAX_NEAR_RADIUS_METERS + " metros");
+            }
+            ids = spatialIndexService.searchNear(lat, lon, radius, size);
+        }
+        logger.debug("Spatial search matched {} walks", ids.size());
+        return databaseService.listWalkSummariesByIds(ids).stream()
+            .map(WalkSummaryDTO::fromSummary)
+            .toList();
+    }
+
+    private static double[] parseBbox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("bbox deve ser minLat,minLon,maxLat,maxLon");
+        }
+        double[] box = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bbox deve ser minLat,minLon,maxLat,maxLon");
+        }
+        if (box[0] > box[2] || box[1] > box[3] || box[0] < -90 || box[2] > 90 || box[1] < -180 || box[3] > 180) {
+            throw new IllegalArgumentException("bbox inválido");
+        }
+        return box;
+    }
+
+    // Recalcula distância, duração e ritmo de todas as caminhadas a partir das polylines
+    @PostMapping("/geometry/recompute")
+    public ResponseEntity<?> recomputeGeometry() {
+        try {
+            logger.info("Recomputing walk geometry");
+            long start = System.currentTimeMillis();
+            int walks = geometryService.recomputeAll();
+            return ResponseEntity.ok(Map.of("walks", walks, "elapsedMs", System.currentTimeMillis() - start));
+        } catch (Exception e) {
+            logger.error("Error recomputing walk geometry", e);
+            throw new RuntimeException("Erro ao recalcular distâncias", e);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package app.caminhada.passoAmigo.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado de uma importação em lote: um item por entrada, na mesma ordem.
+ */
+public class BatchResultDTO {
+    private int created;
+    private int failed;
+    private List<Item> results = new ArrayList<>();
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public List<Item> getResults() {
+        return results;
+    }
+
+    public void setResults(List<Item> results) {
+        this.results = results;
+    }
+
+    public void addCreated(int index, String id) {
+        results.add(new Item(index, 201, id, null));
+        created++;
+    }
+
+    public void addFailed(int index, Map<String, String> errors) {
+        addFailed(index, 400, errors);
+    }
+
+    // Falhas de gravação (não de validação) usam outro status, ex.: 503
+    public void addFailed(int index, int status, Map<String, String> errors) {
+        results.add(new Item(index, status, null, errors));
+        failed++;
+    }
+
+    public static class Item {
+        private int index;
+        private int status;
+        private String id;
+        private Map<String, String> errors;
+
+        public Item() {
+        }
+
+        public Item(int index, int status, String id, Map<String, String> errors) {
+            this.index = index;
+            this.status = status;
+            this.id = id;
+            this.errors = errors;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public void setIndex(int index) {
+            this.index = index;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public void setStatus(int status) {
+            this.status = status;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public Map<String, String> getErrors() {
+            return errors;
+        }
+
+        public void setErrors(Map<String, String> errors) {
+            this.errors = errors;
+        }
+    }
+}
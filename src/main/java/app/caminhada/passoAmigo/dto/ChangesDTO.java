@@ -0,0 +1,63 @@
+package app.caminhada.passoAmigo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Alterações desde uma marca d'água: itens criados ou alterados, ids excluídos e a
+ * nova marca d'água (since da próxima chamada). more indica que o limite cortou o
+ * resultado e há mais alterações a buscar com a nova marca.
+ */
+public class ChangesDTO<T> {
+    private List<T> items;
+    private List<String> deleted;
+    private long watermark;
+    private boolean more;
+
+    public ChangesDTO() {
+    }
+
+    public ChangesDTO(List<T> items, List<String> deleted, long watermark, boolean more) {
+        this.items = items;
+        this.deleted = deleted;
+        this.watermark = watermark;
+        this.more = more;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public List<String> getDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(List<String> deleted) {
+        this.deleted = deleted;
+    }
+
+    public long getWatermark() {
+        return watermark;
+    }
+
+    public void setWatermark(long watermark) {
+        this.watermark = watermark;
+    }
+
+    public boolean isMore() {
+        return more;
+    }
+
+    public void setMore(boolean more) {
+        this.more = more;
+    }
+
+    public <R> ChangesDTO<R> map(Function<T, R> mapper) {
+        return new ChangesDTO<>(items.stream().map(mapper).collect(Collectors.toList()), deleted, watermark, more);
+    }
+}
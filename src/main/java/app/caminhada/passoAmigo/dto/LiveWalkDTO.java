@@ -0,0 +1,68 @@
+package app.caminhada.passoAmigo.dto;
+
+// Estado de uma caminhada em andamento (POST /api/walks/live)
+public class LiveWalkDTO {
+    private String id;
+    private String userId;
+    private String startTime;
+    private int points;
+    private double distanceMeters;
+    private double[] bbox; // minLat, minLon, maxLat, maxLon; null sem pontos
+    private int nextSeq;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    public int getPoints() {
+        return points;
+    }
+
+    public void setPoints(int points) {
+        this.points = points;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    public double[] getBbox() {
+        return bbox;
+    }
+
+    public void setBbox(double[] bbox) {
+        this.bbox = bbox;
+    }
+
+    public int getNextSeq() {
+        return nextSeq;
+    }
+
+    public void setNextSeq(int nextSeq) {
+        this.nextSeq = nextSeq;
+    }
+}
@@ -0,0 +1,42 @@
+package app.caminhada.passoAmigo.dto;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Página de resultados com cursor opaco para a próxima página
+ * (nextCursor nulo quando não há mais itens).
+ */
+public class PageDTO<T> {
+    private List<T> items;
+    private String nextCursor;
+
+    public PageDTO() {
+    }
+
+    public PageDTO(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public <R> PageDTO<R> map(Function<T, R> mapper) {
+        return new PageDTO<>(items.stream().map(mapper).collect(Collectors.toList()), nextCursor);
+    }
+}
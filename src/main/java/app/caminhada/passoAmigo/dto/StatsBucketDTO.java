@@ -0,0 +1,54 @@
+package app.caminhada.passoAmigo.dto;
+
+public class StatsBucketDTO {
+    private String start; // primeiro dia do período (yyyy-MM-dd); nulo nos totais
+    private double distanceMeters;
+    private long walkCount;
+    private long durationSeconds;
+
+    public StatsBucketDTO() {
+    }
+
+    public StatsBucketDTO(String start) {
+        this.start = start;
+    }
+
+    public String getStart() {
+        return start;
+    }
+
+    public void setStart(String start) {
+        this.start = start;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    public long getWalkCount() {
+        return walkCount;
+    }
+
+    public void setWalkCount(long walkCount) {
+        this.walkCount = walkCount;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+
+    public StatsBucketDTO add(double distanceMeters, long walkCount, long durationSeconds) {
+        this.distanceMeters += distanceMeters;
+        this.walkCount += walkCount;
+        this.durationSeconds += durationSeconds;
+        return this;
+    }
+}
@@ -0,0 +1,78 @@
+package app.caminhada.passoAmigo.dto;
+
+import java.util.List;
+
+public class UserStatsDTO {
+    private String userId;
+    private String zone;
+    private String from;
+    private String to;
+    private StatsBucketDTO totals; // todas as caminhadas, sem filtro de período
+    private List<StatsBucketDTO> daily;
+    private List<StatsBucketDTO> weekly; // semanas começando na segunda-feira
+    private List<StatsBucketDTO> monthly;
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getZone() {
+        return zone;
+    }
+
+    public void setZone(String zone) {
+        this.zone = zone;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public StatsBucketDTO getTotals() {
+        return totals;
+    }
+
+    public void setTotals(StatsBucketDTO totals) {
+        this.totals = totals;
+    }
+
+    public List<StatsBucketDTO> getDaily() {
+        return daily;
+    }
+
+    public void setDaily(List<StatsBucketDTO> daily) {
+        this.daily = daily;
+    }
+
+    public List<StatsBucketDTO> getWeekly() {
+        return weekly;
+    }
+
+    public void setWeekly(List<StatsBucketDTO> weekly) {
+        this.weekly = weekly;
+    }
+
+    public List<StatsBucketDTO> getMonthly() {
+        return monthly;
+    }
+
+    public void setMonthly(List<StatsBucketDTO> monthly) {
+        this.monthly = monthly;
+    }
+}
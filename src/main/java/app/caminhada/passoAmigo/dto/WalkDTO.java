@@ -1,10 +1,11 @@
 package app.caminhada.passoAmigo.dto;
 
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 
 import java.time.Instant;
-import java.util.List;
 
 public class WalkDTO {
     private String id;
@@ -19,10 +20,16 @@ public class WalkDTO {
     @Min(0)
     private Double distanceMeters;
 
-    private List<Double> polyline;
+    private Polyline polyline;
 
     private Integer duration;
 
+    private Double paceSecondsPerKm; // somente leitura: recalculado ao gravar
+
+    private Long version; // somente leitura: ETag e marca d'água da sincronização
+
+    private String updatedAt; // somente leitura
+
     // Getters e Setters
     public String getId() {
         return id;
@@ -64,11 +71,11 @@ public class WalkDTO {
         this.distanceMeters = distanceMeters;
     }
 
-    public List<Double> getPolyline() {
+    public Polyline getPolyline() {
         return polyline;
     }
 
-    public void setPolyline(List<Double> polyline) {
+    public void setPolyline(Polyline polyline) {
         this.polyline = polyline;
     }
 
@@ -80,9 +87,33 @@ public class WalkDTO {
         this.duration = duration;
     }
 
+    public Double getPaceSecondsPerKm() {
+        return paceSecondsPerKm;
+    }
+
+    public void setPaceSecondsPerKm(Double paceSecondsPerKm) {
+        this.paceSecondsPerKm = paceSecondsPerKm;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(String updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+
     // Converter para Walk
-    public app.caminhada.passoAmigo.model.Walk toWalk() {
-        app.caminhada.passoAmigo.model.Walk walk = new app.caminhada.passoAmigo.model.Walk();
+    public Walk toWalk() {
+        Walk walk = new Walk();
         walk.setId(this.id);
         walk.setUserId(this.userId);
         
@@ -109,8 +140,8 @@ public class WalkDTO {
         
         walk.setDistanceMeters(this.distanceMeters != null ? this.distanceMeters : 0.0);
         walk.setPolyline(this.polyline);
+        walk.setDuration(this.duration);
         
         return walk;
     }
 }
-
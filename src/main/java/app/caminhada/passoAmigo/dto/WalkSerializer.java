@@ -0,0 +1,98 @@
+package app.caminhada.passoAmigo.dto;
+
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.util.IsoInstant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * Escreve Walk nas respostas com os mesmos campos e a mesma ordem de WalkDTO, sem a
+ * cópia intermediária: as datas vão de um char[] (IsoInstant) e a polyline direto
+ * do array interno (Polyline.writeTo). WalkDTO fica só para os corpos de entrada.
+ */
+public class WalkSerializer extends StdSerializer<Walk> {
+
+    private static final SerializedString ID = new SerializedString("id");
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString START_TIME = new SerializedString("startTime");
+    private static final SerializedString END_TIME = new SerializedString("endTime");
+    private static final SerializedString DISTANCE_METERS = new SerializedString("distanceMeters");
+    private static final SerializedString POLYLINE = new SerializedString("polyline");
+    private static final SerializedString DURATION = new SerializedString("duration");
+    private static final SerializedString PACE_SECONDS_PER_KM = new SerializedString("paceSecondsPerKm");
+    private static final SerializedString VERSION = new SerializedString("version");
+    private static final SerializedString UPDATED_AT = new SerializedString("updatedAt");
+
+    public WalkSerializer() {
+        super(Walk.class);
+    }
+
+    // Registrado no ObjectMapper do Spring Boot por JacksonConfig
+    public static Module module() {
+        return new SimpleModule("walks").addSerializer(Walk.class, new WalkSerializer());
+    }
+
+    @Override
+    public void serialize(Walk walk, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        char[] buf = new char[IsoInstant.MAX_LENGTH];
+        gen.writeStartObject(walk);
+        gen.writeFieldName(ID);
+        gen.writeString(walk.getId());
+        gen.writeFieldName(USER_ID);
+        gen.writeString(walk.getUserId());
+        gen.writeFieldName(START_TIME);
+        writeInstant(gen, walk.getStartTime(), buf);
+        gen.writeFieldName(END_TIME);
+        writeInstant(gen, walk.getEndTime(), buf);
+        gen.writeFieldName(DISTANCE_METERS);
+        gen.writeNumber(walk.getDistanceMeters());
+        gen.writeFieldName(POLYLINE);
+        if (walk.getPolyline() != null) {
+            walk.getPolyline().writeTo(gen);
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(DURATION);
+        if (walk.getDuration() != null) {
+            gen.writeNumber(walk.getDuration());
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(PACE_SECONDS_PER_KM);
+        if (walk.getPaceSecondsPerKm() != null) {
+            gen.writeNumber(walk.getPaceSecondsPerKm());
+        } else {
+            gen.writeNull();
+        }
+        // Versão 0 (desconhecida) sai como null, como no WalkDTO sem versão
+        gen.writeFieldName(VERSION);
+        if (walk.getVersion() > 0) {
+            gen.writeNumber(walk.getVersion());
+        } else {
+            gen.writeNull();
+        }
+        gen.writeFieldName(UPDATED_AT);
+        writeInstant(gen, walk.getUpdatedAt(), buf);
+        gen.writeEndObject();
+    }
+
+    private static void writeInstant(JsonGenerator gen, Instant instant, char[] buf) throws IOException {
+        if (instant == null) {
+            gen.writeNull();
+            return;
+        }
+        int length = IsoInstant.format(instant, buf);
+        if (length < 0) {
+            gen.writeString(instant.toString());
+        } else {
+            gen.writeString(buf, 0, length);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package app.caminhada.passoAmigo.dto;
+
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.repository.WalkSummary;
+
+public class WalkSummaryDTO {
+    private String id;
+    private String userId;
+    private String startTime;
+    private String endTime;
+    private Double distanceMeters;
+    private Integer duration;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(String startTime) {
+        this.startTime = startTime;
+    }
+
+    public String getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(String endTime) {
+        this.endTime = endTime;
+    }
+
+    public Double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(Double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+
+    // Criar a partir da projeção do repositório
+    public static WalkSummaryDTO fromSummary(WalkSummary summary) {
+        WalkSummaryDTO dto = new WalkSummaryDTO();
+        dto.setId(summary.getId() != null ? summary.getId().toString() : null);
+        dto.setUserId(summary.getUserId());
+        dto.setStartTime(summary.getStartTime() != null ? summary.getStartTime().toString() : null);
+        dto.setEndTime(summary.getEndTime() != null ? summary.getEndTime().toString() : null);
+        dto.setDistanceMeters(summary.getDistanceMeters());
+        dto.setDuration(summary.getDuration());
+        return dto;
+    }
+
+    // Criar a partir de uma caminhada completa (backends sem projeção)
+    public static WalkSummaryDTO fromWalk(Walk walk) {
+        WalkSummaryDTO dto = new WalkSummaryDTO();
+        dto.setId(walk.getId());
+        dto.setUserId(walk.getUserId());
+        dto.setStartTime(walk.getStartTime() != null ? walk.getStartTime().toString() : null);
+        dto.setEndTime(walk.getEndTime() != null ? walk.getEndTime().toString() : null);
+        dto.setDistanceMeters(walk.getDistanceMeters());
+        dto.setDuration(walk.getDuration());
+        return dto;
+    }
+}
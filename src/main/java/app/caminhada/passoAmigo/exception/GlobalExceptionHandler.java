@@ -15,6 +15,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
 
 @ControllerAdvice
@@ -59,6 +60,22 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(body);
     }
 
+    // Falhas de CompletableFuture chegam embrulhadas; a resposta segue a causa original
+    @ExceptionHandler(CompletionException.class)
+    public ResponseEntity<?> handleCompletionException(CompletionException ex) {
+        Throwable cause = ex.getCause();
+        if (cause instanceof IllegalArgumentException illegalArgument) {
+            return handleIllegalArgument(illegalArgument);
+        }
+        if (cause instanceof IllegalStateException illegalState) {
+            return handleIllegalState(illegalState);
+        }
+        if (cause instanceof ExecutionException execution) {
+            return handleExecutionException(execution);
+        }
+        return handleGenericException(cause instanceof Exception exception ? exception : ex);
+    }
+
     @ExceptionHandler(IllegalStateException.class)
     public ResponseEntity<?> handleIllegalState(IllegalStateException ex) {
         logger.error("Illegal state error", ex);
@@ -79,6 +96,17 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
     }
 
+    @ExceptionHandler(TooManyRequestsException.class)
+    public ResponseEntity<?> handleTooManyRequests(TooManyRequestsException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("message", ex.getMessage());
+        body.put("error", "Muitas requisições");
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+            .body(body);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<?> handleGenericException(Exception ex) {
         logger.error("Unexpected error", ex);
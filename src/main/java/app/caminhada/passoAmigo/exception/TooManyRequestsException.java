@@ -0,0 +1,16 @@
+package app.caminhada.passoAmigo.exception;
+
+// Limite de requisições do cliente excedido (RateLimitInterceptor); vira 429 com Retry-After
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(long retryAfterSeconds) {
+        super("Muitas requisições; tente novamente em " + retryAfterSeconds + " s");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,159 @@
+package app.caminhada.passoAmigo.model;
+
+import app.caminhada.passoAmigo.util.CodecMetrics;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Polyline apoiada em um único double[] no formato [lat1, lon1, lat2, lon2, ...].
+ *
+ * No JSON continua sendo um array simples de números; o Jackson lê e escreve
+ * direto no array primitivo, sem um Double por coordenada. Em formatos com
+ * binário nativo (CBOR, ver CborConfig) vai como byte string no formato do
+ * PolylineCodec, e a leitura aceita as duas formas.
+ */
+@JsonSerialize(using = Polyline.Serializer.class)
+@JsonDeserialize(using = Polyline.Deserializer.class)
+public final class Polyline {
+    private final double[] coords;
+
+    public Polyline(double[] coords) {
+        this.coords = coords != null ? coords : new double[0];
+    }
+
+    public static Polyline of(double... coords) {
+        Polyline polyline = new Polyline(coords);
+        CodecMetrics.jsonPointsParsed(polyline.pointCount());
+        return polyline;
+    }
+
+    // Array interno, sem cópia; não deve ser modificado
+    public double[] coordinates() {
+        return coords;
+    }
+
+    public int size() {
+        return coords.length;
+    }
+
+    public int pointCount() {
+        return coords.length / 2;
+    }
+
+    public boolean isEmpty() {
+        return coords.length == 0;
+    }
+
+    public double lat(int point) {
+        return coords[2 * point];
+    }
+
+    public double lon(int point) {
+        return coords[2 * point + 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Polyline other && Arrays.equals(coords, other.coords));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(coords);
+    }
+
+    @Override
+    public String toString() {
+        return "Polyline[" + pointCount() + " pontos]";
+    }
+
+    /**
+     * Escreve a polyline direto do array interno, sem alocar por coordenada: nos
+     * formatos de texto (JSON) cada número sai de um char[] (PolylineCodec.formatQuantized)
+     * por writeNumber(char[], int, int), que respeita WRITE_NUMBERS_AS_STRINGS; nos
+     * formatos com binário nativo (CBOR) vai a byte string do PolylineCodec.
+     */
+    public void writeTo(JsonGenerator gen) throws IOException {
+        if (gen instanceof TokenBuffer) {
+            // convertValue etc.: TokenBuffer aceita binário, mas não é um formato de saída
+            gen.writeArray(coords, 0, coords.length);
+        } else if (gen.canWriteBinaryNatively()) {
+            gen.writeBinary(PolylineCodec.encode(coords));
+        } else {
+            char[] buf = new char[PolylineCodec.MAX_QUANTIZED_LENGTH];
+            gen.writeStartArray(coords, coords.length);
+            for (double value : coords) {
+                int length = PolylineCodec.formatQuantized(value, buf);
+                if (length < 0) {
+                    gen.writeNumber(value);
+                } else {
+                    gen.writeNumber(buf, 0, length);
+                }
+            }
+            gen.writeEndArray();
+        }
+    }
+
+    static final class Serializer extends JsonSerializer<Polyline> {
+        @Override
+        public void serialize(Polyline value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            value.writeTo(gen);
+        }
+    }
+
+    // Lê os números do array direto num double[] que cresce por dobra, sem Double intermediário
+    static final class Deserializer extends JsonDeserializer<Polyline> {
+        private static final int INITIAL_CAPACITY = 256;
+
+        @Override
+        public Polyline deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            if (p.currentToken() == JsonToken.VALUE_EMBEDDED_OBJECT) {
+                try {
+                    return new Polyline(validated(PolylineCodec.decode(p.getBinaryValue())));
+                } catch (IllegalArgumentException e) {
+                    throw InvalidFormatException.from(p, e.getMessage(), null, Polyline.class);
+                }
+            }
+            if (!p.isExpectedStartArrayToken()) {
+                return (Polyline) ctxt.handleUnexpectedToken(Polyline.class, p);
+            }
+            double[] buffer = new double[INITIAL_CAPACITY];
+            int size = 0;
+            JsonToken token;
+            while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+                if (token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_NUMBER_INT) {
+                    return (Polyline) ctxt.handleUnexpectedToken(Polyline.class, p);
+                }
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size * 2);
+                }
+                buffer[size++] = p.getDoubleValue();
+            }
+            double[] coords = size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
+            try {
+                return of(validated(coords));
+            } catch (IllegalArgumentException e) {
+                throw InvalidFormatException.from(p, e.getMessage(), null, Polyline.class);
+            }
+        }
+
+        // Recusa na entrada o que o PolylineCodec não consegue gravar (vira 400)
+        private static double[] validated(double[] coords) {
+            PolylineCodec.validate(coords);
+            return coords;
+        }
+    }
+}
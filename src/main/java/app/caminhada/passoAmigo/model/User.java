@@ -1,9 +1,13 @@
 package app.caminhada.passoAmigo.model;
 
+import app.caminhada.passoAmigo.util.ChangeClock;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.time.Instant;
+
 public class User {
     private String id;
 
@@ -15,6 +19,10 @@ public class User {
     @Email
     private String email;
 
+    // Somente leitura na API: definida a cada gravação (ChangeClock); 0 = desconhecida
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version;
+
     public String getId() {
         return id;
     }
@@ -38,6 +46,18 @@ public class User {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return version > 0 ? ChangeClock.toInstant(version) : null;
+    }
 }
 
 
@@ -0,0 +1,82 @@
+package app.caminhada.passoAmigo.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * Totais de caminhadas de um usuário em um dia (fuso app.stats.zone),
+ * mantidos incrementalmente a cada gravação de caminhada.
+ */
+@Entity
+@Table(name = "user_daily_stats", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_user_daily_stats_user_day", columnNames = {"userId", "stats_day"})
+})
+public class UserDailyStatsEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(name = "stats_day", nullable = false)
+    private LocalDate day;
+
+    @Column(nullable = false)
+    private double distanceMeters;
+
+    @Column(nullable = false)
+    private long walkCount;
+
+    @Column(nullable = false)
+    private long durationSeconds;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public LocalDate getDay() {
+        return day;
+    }
+
+    public void setDay(LocalDate day) {
+        this.day = day;
+    }
+
+    public double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    public long getWalkCount() {
+        return walkCount;
+    }
+
+    public void setWalkCount(long walkCount) {
+        this.walkCount = walkCount;
+    }
+
+    public long getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    public void setDurationSeconds(long durationSeconds) {
+        this.durationSeconds = durationSeconds;
+    }
+}
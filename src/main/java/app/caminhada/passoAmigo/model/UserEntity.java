@@ -1,10 +1,13 @@
 package app.caminhada.passoAmigo.model;
 
+import app.caminhada.passoAmigo.util.ChangeClock;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "users")
 public class UserEntity {
@@ -25,6 +28,10 @@ public class UserEntity {
     private String role;
     private String cargo;
 
+    // Versão (ChangeClock) e horário da última gravação: ETag e Last-Modified
+    private Long version;
+    private Instant updatedAt;
+
     public Long getId() {
         return id;
     }
@@ -65,12 +72,28 @@ public class UserEntity {
         this.cargo = cargo;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.version = ChangeClock.next();
+        this.updatedAt = ChangeClock.toInstant(this.version);
+    }
+
     // Converter para User (modelo antigo)
     public User toUser() {
         User user = new User();
         user.setId(this.id != null ? this.id.toString() : null);
         user.setName(this.name);
         user.setEmail(this.email);
+        user.setVersion(this.version != null ? this.version : 0);
         return user;
     }
 
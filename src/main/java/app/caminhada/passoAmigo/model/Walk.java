@@ -1,11 +1,11 @@
 package app.caminhada.passoAmigo.model;
 
+import app.caminhada.passoAmigo.util.ChangeClock;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.Instant;
-import java.util.List;
 
 public class Walk {
     private String id;
@@ -21,7 +21,13 @@ public class Walk {
     @Min(0)
     private double distanceMeters;
 
-    private List<Double> polyline; // [lat1, lon1, lat2, lon2, ...]
+    private Polyline polyline; // [lat1, lon1, lat2, lon2, ...]
+
+    private Integer duration; // em segundos
+
+    private Double paceSecondsPerKm; // calculado no servidor (GeometryService)
+
+    private long version; // ChangeClock da última gravação; 0 = desconhecida
 
     public String getId() {
         return id;
@@ -63,13 +69,56 @@ public class Walk {
         this.distanceMeters = distanceMeters;
     }
 
-    public List<Double> getPolyline() {
+    public Polyline getPolyline() {
         return polyline;
     }
 
-    public void setPolyline(List<Double> polyline) {
+    public void setPolyline(Polyline polyline) {
         this.polyline = polyline;
     }
+
+    public Integer getDuration() {
+        return duration;
+    }
+
+    public void setDuration(Integer duration) {
+        this.duration = duration;
+    }
+
+    public Double getPaceSecondsPerKm() {
+        return paceSecondsPerKm;
+    }
+
+    public void setPaceSecondsPerKm(Double paceSecondsPerKm) {
+        this.paceSecondsPerKm = paceSecondsPerKm;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public Instant getUpdatedAt() {
+        return version > 0 ? ChangeClock.toInstant(version) : null;
+    }
+
+    // Cópia rasa: Polyline é imutável e pode ser compartilhada
+    public Walk copy() {
+        Walk copy = new Walk();
+        copy.id = id;
+        copy.userId = userId;
+        copy.startTime = startTime;
+        copy.endTime = endTime;
+        copy.distanceMeters = distanceMeters;
+        copy.polyline = polyline;
+        copy.duration = duration;
+        copy.paceSecondsPerKm = paceSecondsPerKm;
+        copy.version = version;
+        return copy;
+    }
 }
 
 
@@ -1,19 +1,32 @@
 package app.caminhada.passoAmigo.model;
 
+import app.caminhada.passoAmigo.util.ChangeClock;
+import app.caminhada.passoAmigo.util.Geohash;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import app.caminhada.passoAmigo.util.PolylineLevels;
+import app.caminhada.passoAmigo.util.PolylineSimplifier;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.Set;
 
 @Entity
-@Table(name = "walks")
+@Table(name = "walks", indexes = {
+    @Index(name = "idx_walks_user_start", columnList = "userId, startTime"),
+    @Index(name = "idx_walks_user_day", columnList = "userId, startDay"),
+    @Index(name = "idx_walks_bbox", columnList = "minLat, maxLat, minLon, maxLon"),
+    @Index(name = "idx_walks_user_version", columnList = "userId, version")
+})
 public class WalkEntity {
+    // Sequência com pool (allocationSize) para permitir inserts em lote no JDBC
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "walks_seq")
+    @SequenceGenerator(name = "walks_seq", sequenceName = "walks_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank
@@ -26,15 +39,45 @@ public class WalkEntity {
 
     private Instant endTime;
 
+    private LocalDate startDay; // dia de startTime no fuso das estatísticas (app.stats.zone)
+
     @Min(0)
     @Column(nullable = false)
     private Double distanceMeters;
 
     @Column(columnDefinition = "TEXT")
-    private String polylineJson; // JSON string para armazenar polyline
+    private String polylineJson; // Formato legado; novas gravações usam polylineData
+
+    @Lob
+    @Column(name = "polyline_data")
+    private byte[] polylineData; // Polyline compactada (ver PolylineCodec)
+
+    @Lob
+    @Column(name = "polyline_levels")
+    private byte[] polylineLevels; // Versões simplificadas pré-calculadas (ver PolylineLevels)
 
     private Integer duration; // em segundos
 
+    private Double paceSecondsPerKm;
+
+    // Retângulo envolvente da polyline (nulo sem polyline)
+    private Double minLat;
+    private Double maxLat;
+    private Double minLon;
+    private Double maxLon;
+
+    // Versão (ChangeClock) e horário da última gravação, definidos ao inserir e a cada
+    // alteração: ETag, Last-Modified e marca d'água da sincronização incremental
+    private Long version;
+    private Instant updatedAt;
+
+    // Células geohash (ver Geohash.CELL_PRECISION) por onde a caminhada passa
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "walk_cells", joinColumns = @JoinColumn(name = "walk_id"),
+        indexes = @Index(name = "idx_walk_cells_cell", columnList = "cell"))
+    @Column(name = "cell", length = 12)
+    private Set<String> cells = new HashSet<>();
+
     public Long getId() {
         return id;
     }
@@ -67,6 +110,14 @@ public class WalkEntity {
         this.endTime = endTime;
     }
 
+    public LocalDate getStartDay() {
+        return startDay;
+    }
+
+    public void setStartDay(LocalDate startDay) {
+        this.startDay = startDay;
+    }
+
     public Double getDistanceMeters() {
         return distanceMeters;
     }
@@ -83,6 +134,22 @@ public class WalkEntity {
         this.polylineJson = polylineJson;
     }
 
+    public byte[] getPolylineData() {
+        return polylineData;
+    }
+
+    public void setPolylineData(byte[] polylineData) {
+        this.polylineData = polylineData;
+    }
+
+    public byte[] getPolylineLevels() {
+        return polylineLevels;
+    }
+
+    public void setPolylineLevels(byte[] polylineLevels) {
+        this.polylineLevels = polylineLevels;
+    }
+
     public Integer getDuration() {
         return duration;
     }
@@ -91,41 +158,166 @@ public class WalkEntity {
         this.duration = duration;
     }
 
+    public Double getPaceSecondsPerKm() {
+        return paceSecondsPerKm;
+    }
+
+    public void setPaceSecondsPerKm(Double paceSecondsPerKm) {
+        this.paceSecondsPerKm = paceSecondsPerKm;
+    }
+
+    public Double getMinLat() {
+        return minLat;
+    }
+
+    public void setMinLat(Double minLat) {
+        this.minLat = minLat;
+    }
+
+    public Double getMaxLat() {
+        return maxLat;
+    }
+
+    public void setMaxLat(Double maxLat) {
+        this.maxLat = maxLat;
+    }
+
+    public Double getMinLon() {
+        return minLon;
+    }
+
+    public void setMinLon(Double minLon) {
+        this.minLon = minLon;
+    }
+
+    public Double getMaxLon() {
+        return maxLon;
+    }
+
+    public void setMaxLon(Double maxLon) {
+        this.maxLon = maxLon;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    // Pendente até o commit: a sincronização não marca como vista uma versão ainda invisível
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.version = ChangeClock.nextInTransaction();
+        this.updatedAt = ChangeClock.toInstant(this.version);
+    }
+
+    public Set<String> getCells() {
+        return cells;
+    }
+
+    public void setCells(Set<String> cells) {
+        this.cells = cells;
+    }
+
     // Converter para Walk (modelo antigo)
     public Walk toWalk() {
+        return toWalk(decodePolyline());
+    }
+
+    // Walk com a polyline simplificada (ver decodePolyline(Double, Integer))
+    public Walk toWalk(Double toleranceMeters, Integer zoom) {
+        return toWalk(decodePolyline(toleranceMeters, zoom));
+    }
+
+    private Walk toWalk(double[] coords) {
         Walk walk = new Walk();
         walk.setId(this.id != null ? this.id.toString() : null);
         walk.setUserId(this.userId);
         walk.setStartTime(this.startTime);
         walk.setEndTime(this.endTime);
         walk.setDistanceMeters(this.distanceMeters != null ? this.distanceMeters : 0.0);
+        walk.setDuration(this.duration);
+        walk.setPaceSecondsPerKm(this.paceSecondsPerKm);
+        walk.setVersion(this.version != null ? this.version : 0);
         
-        // Converter polyline JSON para List<Double>
-        if (this.polylineJson != null && !this.polylineJson.isEmpty()) {
-            try {
-                // Parse simples do JSON (formato: [lat1, lon1, lat2, lon2, ...])
-                String json = this.polylineJson.trim();
-                if (json.startsWith("[") && json.endsWith("]")) {
-                    json = json.substring(1, json.length() - 1);
-                    String[] parts = json.split(",");
-                    List<Double> polyline = new ArrayList<>();
-                    for (String part : parts) {
-                        try {
-                            polyline.add(Double.parseDouble(part.trim()));
-                        } catch (NumberFormatException e) {
-                            // Ignora valores inválidos
-                        }
-                    }
-                    walk.setPolyline(polyline);
-                }
-            } catch (Exception e) {
-                // Se falhar, deixa polyline null
-            }
+        if (coords != null) {
+            walk.setPolyline(new Polyline(coords));
         }
         
         return walk;
     }
 
+    // Lê a coluna binária e, para linhas antigas, o texto legado
+    public double[] decodePolyline() {
+        if (this.polylineData != null) {
+            return PolylineCodec.decode(this.polylineData);
+        }
+        if (this.polylineJson != null && !this.polylineJson.isEmpty()) {
+            return PolylineCodec.parseLegacy(this.polylineJson);
+        }
+        return null;
+    }
+
+    /**
+     * Polyline com erro de até toleranceMeters ou, sem tolerância, de um pixel no zoom informado.
+     * Usa o nível pré-calculado mais simples que atende; linhas sem níveis são simplificadas na hora.
+     */
+    public double[] decodePolyline(Double toleranceMeters, Integer zoom) {
+        double[] full = null;
+        double tolerance;
+        if (toleranceMeters != null) {
+            tolerance = toleranceMeters;
+        } else {
+            double latitude;
+            if (this.polylineLevels != null) {
+                latitude = PolylineLevels.referenceLatitude(this.polylineLevels);
+            } else {
+                full = decodePolyline();
+                latitude = full != null && full.length > 0 ? full[0] : 0.0;
+            }
+            tolerance = PolylineSimplifier.toleranceForZoom(zoom, latitude);
+        }
+
+        if (this.polylineLevels != null) {
+            double[] level = PolylineLevels.select(this.polylineLevels, tolerance);
+            if (level != null) {
+                return level;
+            }
+            // Tolerância abaixo do nível mais detalhado: devolve a polyline completa
+            return decodePolyline();
+        }
+        if (full == null) {
+            full = decodePolyline();
+        }
+        return full != null ? PolylineSimplifier.simplify(full, tolerance) : null;
+    }
+
+    // Preenche o retângulo envolvente e as células a partir das coordenadas
+    public void applySpatial(double[] coords) {
+        if (coords == null || coords.length < 2) {
+            this.minLat = this.maxLat = this.minLon = this.maxLon = null;
+            this.cells.clear();
+            return;
+        }
+        double south = coords[0], north = coords[0];
+        double west = coords[1], east = coords[1];
+        for (int i = 2; i + 1 < coords.length; i += 2) {
+            south = Math.min(south, coords[i]);
+            north = Math.max(north, coords[i]);
+            west = Math.min(west, coords[i + 1]);
+            east = Math.max(east, coords[i + 1]);
+        }
+        this.minLat = south;
+        this.maxLat = north;
+        this.minLon = west;
+        this.maxLon = east;
+        this.cells.clear();
+        this.cells.addAll(Geohash.cellsOf(coords, Geohash.CELL_PRECISION));
+    }
+
     // Criar a partir de Walk
     public static WalkEntity fromWalk(Walk walk) {
         WalkEntity entity = new WalkEntity();
@@ -140,10 +332,14 @@ public class WalkEntity {
         entity.setStartTime(walk.getStartTime() != null ? walk.getStartTime() : Instant.now());
         entity.setEndTime(walk.getEndTime());
         entity.setDistanceMeters(walk.getDistanceMeters());
+        entity.setDuration(walk.getDuration());
+        entity.setPaceSecondsPerKm(walk.getPaceSecondsPerKm());
         
-        // Converter polyline para JSON string
+        // Converter polyline para o formato binário
         if (walk.getPolyline() != null && !walk.getPolyline().isEmpty()) {
-            entity.setPolylineJson(walk.getPolyline().toString());
+            entity.setPolylineData(PolylineCodec.encode(walk.getPolyline().coordinates()));
+            entity.setPolylineLevels(PolylineLevels.build(walk.getPolyline().coordinates()));
+            entity.applySpatial(walk.getPolyline().coordinates());
         }
         
         return entity;
@@ -0,0 +1,63 @@
+package app.caminhada.passoAmigo.model;
+
+import app.caminhada.passoAmigo.util.ChangeClock;
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Registro de caminhada excluída (ou movida para outro usuário), para que a
+ * sincronização incremental (GET /api/walks/user/{userId}/changes) avise o app.
+ * version vem do mesmo ChangeClock das caminhadas.
+ */
+@Entity
+@Table(name = "walk_tombstones", indexes = {
+    @Index(name = "idx_walk_tombstones_user_version", columnList = "userId, version")
+})
+public class WalkTombstoneEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long walkId;
+
+    @Column(nullable = false)
+    private String userId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Column(nullable = false)
+    private Instant deletedAt;
+
+    protected WalkTombstoneEntity() {
+    }
+
+    public WalkTombstoneEntity(Long walkId, String userId, long version) {
+        this.walkId = walkId;
+        this.userId = userId;
+        this.version = version;
+        this.deletedAt = ChangeClock.toInstant(version);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getWalkId() {
+        return walkId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
+}
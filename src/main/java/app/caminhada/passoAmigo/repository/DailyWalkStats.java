@@ -0,0 +1,16 @@
+package app.caminhada.passoAmigo.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Linha agregada por dia (GROUP BY startDay) das caminhadas de um usuário.
+ */
+public interface DailyWalkStats {
+    LocalDate getDay();
+
+    Double getDistanceMeters();
+
+    Long getWalkCount();
+
+    Long getDurationSeconds();
+}
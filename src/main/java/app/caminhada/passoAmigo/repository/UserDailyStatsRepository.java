@@ -0,0 +1,48 @@
+package app.caminhada.passoAmigo.repository;
+
+import app.caminhada.passoAmigo.model.UserDailyStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface UserDailyStatsRepository extends JpaRepository<UserDailyStatsEntity, Long> {
+
+    @Query("select s.day as day, s.distanceMeters as distanceMeters, s.walkCount as walkCount,"
+            + " s.durationSeconds as durationSeconds"
+            + " from UserDailyStatsEntity s where s.userId = :userId and s.day between :from and :to"
+            + " and s.walkCount > 0 order by s.day")
+    List<DailyWalkStats> findDaily(@Param("userId") String userId,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query("select coalesce(sum(s.distanceMeters), 0) as distanceMeters, coalesce(sum(s.walkCount), 0) as walkCount,"
+            + " coalesce(sum(s.durationSeconds), 0) as durationSeconds"
+            + " from UserDailyStatsEntity s where s.userId = :userId")
+    WalkTotals findTotals(@Param("userId") String userId);
+
+    // Incremento atômico no banco; retorna 0 se a linha do dia ainda não existe
+    @Transactional
+    @Modifying
+    @Query("update UserDailyStatsEntity s set s.distanceMeters = s.distanceMeters + :distance,"
+            + " s.walkCount = s.walkCount + :count, s.durationSeconds = s.durationSeconds + :duration"
+            + " where s.userId = :userId and s.day = :day")
+    int addDelta(@Param("userId") String userId,
+                 @Param("day") LocalDate day,
+                 @Param("distance") double distance,
+                 @Param("count") long count,
+                 @Param("duration") long duration);
+
+    boolean existsByUserIdAndDay(String userId, LocalDate day);
+
+    @Transactional
+    @Modifying
+    @Query("delete from UserDailyStatsEntity s where s.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+}
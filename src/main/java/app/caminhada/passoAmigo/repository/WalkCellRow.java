@@ -0,0 +1,7 @@
+package app.caminhada.passoAmigo.repository;
+
+public interface WalkCellRow {
+    Long getWalkId();
+
+    String getCell();
+}
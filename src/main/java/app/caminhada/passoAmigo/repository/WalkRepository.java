@@ -1,13 +1,118 @@
 package app.caminhada.passoAmigo.repository;
 
 import app.caminhada.passoAmigo.model.WalkEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface WalkRepository extends JpaRepository<WalkEntity, Long> {
     List<WalkEntity> findByUserId(String userId);
-}
 
+    // Paginação por keyset: mais recentes primeiro, continuando após (afterStart, afterId)
+    @Query("select w from WalkEntity w where w.userId = :userId"
+            + " and w.startTime >= :from and w.startTime < :to"
+            + " and (w.startTime < :afterStart or (w.startTime = :afterStart and w.id < :afterId))"
+            + " order by w.startTime desc, w.id desc")
+    List<WalkEntity> findPageByUserId(@Param("userId") String userId,
+                                      @Param("from") Instant from,
+                                      @Param("to") Instant to,
+                                      @Param("afterStart") Instant afterStart,
+                                      @Param("afterId") Long afterId,
+                                      Limit limit);
+
+    // Mesma paginação, sem carregar a coluna de polyline
+    @Query("select w.id as id, w.userId as userId, w.startTime as startTime, w.endTime as endTime,"
+            + " w.distanceMeters as distanceMeters, w.duration as duration"
+            + " from WalkEntity w where w.userId = :userId"
+            + " and w.startTime >= :from and w.startTime < :to"
+            + " and (w.startTime < :afterStart or (w.startTime = :afterStart and w.id < :afterId))"
+            + " order by w.startTime desc, w.id desc")
+    List<WalkSummary> findSummaryPageByUserId(@Param("userId") String userId,
+                                              @Param("from") Instant from,
+                                              @Param("to") Instant to,
+                                              @Param("afterStart") Instant afterStart,
+                                              @Param("afterId") Long afterId,
+                                              Limit limit);
+
+    // Sincronização incremental: gravadas depois da marca d'água, em ordem de versão
+    @Query("select w from WalkEntity w where w.userId = :userId and w.version > :since order by w.version")
+    List<WalkEntity> findChanges(@Param("userId") String userId,
+                                 @Param("since") long since,
+                                 Limit limit);
+
+    // Leitura em fluxo para exportação: cursor do JDBC com fetch size e entidades somente leitura.
+    // Deve ser consumido dentro de uma transação e fechado ao final.
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "100"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select w from WalkEntity w where w.userId = :userId order by w.startTime, w.id")
+    Stream<WalkEntity> streamByUserId(@Param("userId") String userId);
+
+    @Query("select w.startDay as day, sum(w.distanceMeters) as distanceMeters, count(w) as walkCount,"
+            + " sum(coalesce(w.duration, 0)) as durationSeconds"
+            + " from WalkEntity w where w.userId = :userId and w.startDay between :from and :to"
+            + " group by w.startDay order by w.startDay")
+    List<DailyWalkStats> aggregateDailyByUser(@Param("userId") String userId,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to);
+
+    @Query("select coalesce(sum(w.distanceMeters), 0) as distanceMeters, count(w) as walkCount,"
+            + " coalesce(sum(w.duration), 0) as durationSeconds"
+            + " from WalkEntity w where w.userId = :userId")
+    WalkTotals aggregateTotalsByUser(@Param("userId") String userId);
+
+    @Query("select distinct w.userId from WalkEntity w")
+    List<String> findDistinctUserIds();
+
+    @Query("select w.id from WalkEntity w order by w.id")
+    List<Long> findAllIds();
+
+    @Query("select w.id from WalkEntity w where w.userId = :userId")
+    List<Long> findIdsByUserId(@Param("userId") String userId);
+
+    // Exclusão em massa, sem carregar as polylines; o Hibernate apaga antes as linhas de walk_cells
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from WalkEntity w where w.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+
+    // Leituras em fluxo para reconstruir o índice espacial (SpatialIndexService)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select w.id as id, w.startTime as startTime, w.minLat as minLat, w.maxLat as maxLat,"
+            + " w.minLon as minLon, w.maxLon as maxLon from WalkEntity w where w.minLat is not null")
+    Stream<WalkSpatialRow> streamAllBoxes();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select w.id as walkId, c as cell from WalkEntity w join w.cells c")
+    Stream<WalkCellRow> streamAllCells();
+
+    @Query("select w.id as id, w.userId as userId, w.startTime as startTime, w.endTime as endTime,"
+            + " w.distanceMeters as distanceMeters, w.duration as duration"
+            + " from WalkEntity w where w.id in :ids")
+    List<WalkSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Linhas anteriores à coluna startDay
+    List<WalkEntity> findTop200ByStartDayIsNull();
+
+    // Linhas gravadas antes da coluna binária de polyline, percorridas por id
+    List<WalkEntity> findTop200ByPolylineDataIsNullAndPolylineJsonIsNotNullAndIdGreaterThanOrderById(Long id);
+
+    // Caminhadas ainda sem níveis de detalhe, percorridas por id
+    List<WalkEntity> findTop200ByPolylineLevelsIsNullAndPolylineDataIsNotNullAndIdGreaterThanOrderById(Long id);
+
+    // Caminhadas ainda sem retângulo envolvente, percorridas por id
+    List<WalkEntity> findTop200ByMinLatIsNullAndPolylineDataIsNotNullAndIdGreaterThanOrderById(Long id);
+}
@@ -0,0 +1,18 @@
+package app.caminhada.passoAmigo.repository;
+
+import java.time.Instant;
+
+// Projeção usada para reconstruir o índice espacial em memória
+public interface WalkSpatialRow {
+    Long getId();
+
+    Instant getStartTime();
+
+    Double getMinLat();
+
+    Double getMaxLat();
+
+    Double getMinLon();
+
+    Double getMaxLon();
+}
@@ -0,0 +1,20 @@
+package app.caminhada.passoAmigo.repository;
+
+import java.time.Instant;
+
+/**
+ * Projeção de caminhada sem a polyline, para listagens e dashboards.
+ */
+public interface WalkSummary {
+    Long getId();
+
+    String getUserId();
+
+    Instant getStartTime();
+
+    Instant getEndTime();
+
+    Double getDistanceMeters();
+
+    Integer getDuration();
+}
@@ -0,0 +1,26 @@
+package app.caminhada.passoAmigo.repository;
+
+import app.caminhada.passoAmigo.model.WalkTombstoneEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface WalkTombstoneRepository extends JpaRepository<WalkTombstoneEntity, Long> {
+
+    @Query("select t from WalkTombstoneEntity t where t.userId = :userId and t.version > :since order by t.version")
+    List<WalkTombstoneEntity> findChanges(@Param("userId") String userId,
+                                          @Param("since") long since,
+                                          Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("delete from WalkTombstoneEntity t where t.userId = :userId")
+    int deleteByUserId(@Param("userId") String userId);
+}
@@ -0,0 +1,12 @@
+package app.caminhada.passoAmigo.repository;
+
+/**
+ * Totais agregados de todas as caminhadas de um usuário.
+ */
+public interface WalkTotals {
+    Double getDistanceMeters();
+
+    Long getWalkCount();
+
+    Long getDurationSeconds();
+}
@@ -1,28 +1,65 @@
 package app.caminhada.passoAmigo.service;
 
+import app.caminhada.passoAmigo.config.CacheConfig;
+import app.caminhada.passoAmigo.config.MetricsConfig;
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.StatsBucketDTO;
 import app.caminhada.passoAmigo.model.User;
 import app.caminhada.passoAmigo.model.Walk;
 import app.caminhada.passoAmigo.repository.UserRepository;
 import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.repository.WalkSummary;
+import app.caminhada.passoAmigo.repository.WalkTombstoneRepository;
+import app.caminhada.passoAmigo.store.WalkChanges;
+import app.caminhada.passoAmigo.store.WalkStore;
 import app.caminhada.passoAmigo.model.UserEntity;
 import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.model.WalkTombstoneEntity;
+import app.caminhada.passoAmigo.util.ChangeClock;
+import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
+@Timed(value = MetricsConfig.STORAGE_TIMER, histogram = true)
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
 public class DatabaseService {
     private static final Logger logger = LoggerFactory.getLogger(DatabaseService.class);
+
+    private static final Instant MIN_TIME = Instant.parse("1900-01-01T00:00:00Z");
     
     private final UserRepository userRepository;
     private final WalkRepository walkRepository;
+    private final WalkTombstoneRepository tombstoneRepository;
+    private final StatsService statsService;
+    private final SpatialIndexService spatialIndexService;
 
-    public DatabaseService(UserRepository userRepository, WalkRepository walkRepository) {
+    public DatabaseService(UserRepository userRepository, WalkRepository walkRepository,
+                           WalkTombstoneRepository tombstoneRepository,
+                           StatsService statsService, SpatialIndexService spatialIndexService) {
         this.userRepository = userRepository;
         this.walkRepository = walkRepository;
+        this.tombstoneRepository = tombstoneRepository;
+        this.statsService = statsService;
+        this.spatialIndexService = spatialIndexService;
     }
 
     // Users
@@ -34,6 +71,8 @@ public class DatabaseService {
         return saved.getId().toString();
     }
 
+    // Objetos em cache são compartilhados entre requisições: não modificar
+    @Cacheable(cacheNames = CacheConfig.USERS, unless = "#result == null")
     public User getUser(String id) {
         try {
             Long longId = Long.parseLong(id);
@@ -52,6 +91,7 @@ public class DatabaseService {
             .collect(Collectors.toList());
     }
 
+    @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id")
     public boolean updateUser(String id, User user) {
         try {
             Long longId = Long.parseLong(id);
@@ -69,11 +109,24 @@ public class DatabaseService {
         }
     }
 
+    // Exclui também as caminhadas e os totais do usuário
+    @Transactional
+    @Caching(evict = {
+        @CacheEvict(cacheNames = CacheConfig.USERS, key = "#id"),
+        @CacheEvict(cacheNames = CacheConfig.WALKS, allEntries = true)
+    })
     public boolean deleteUser(String id) {
         try {
             Long longId = Long.parseLong(id);
             if (userRepository.existsById(longId)) {
                 userRepository.deleteById(longId);
+                // Só os ids (índice espacial); as caminhadas saem em massa, sem carregar as polylines
+                List<Long> walkIds = walkRepository.findIdsByUserId(id);
+                walkRepository.deleteByUserId(id);
+                walkIds.forEach(spatialIndexService::remove);
+                tombstoneRepository.deleteByUserId(id);
+                statsService.onUserDeleted(id);
+                logger.info("User {} deleted with {} walks", id, walkIds.size());
                 return true;
             }
             return false;
@@ -84,14 +137,47 @@ public class DatabaseService {
     }
 
     // Walks
+    @Transactional
     public String createWalk(Walk walk) {
         logger.info("Creating walk for user: {}", walk.getUserId());
+        GeometryService.enrich(walk);
         WalkEntity entity = WalkEntity.fromWalk(walk);
+        entity.setStartDay(statsService.dayOf(entity.getStartTime()));
         WalkEntity saved = walkRepository.save(entity);
+        statsService.onWalkSaved(saved);
+        spatialIndexService.index(saved);
         logger.info("Walk created with id: {}", saved.getId());
         return saved.getId().toString();
     }
 
+    // Inserção em lote (batch JDBC); os totais diários recebem um incremento por (usuário, dia)
+    @Transactional
+    public List<String> createWalks(List<Walk> walks) {
+        logger.info("Creating {} walks in batch", walks.size());
+        List<WalkEntity> entities = new ArrayList<>(walks.size());
+        for (Walk walk : walks) {
+            GeometryService.enrich(walk);
+            WalkEntity entity = WalkEntity.fromWalk(walk);
+            entity.setStartDay(statsService.dayOf(entity.getStartTime()));
+            entities.add(entity);
+        }
+        List<WalkEntity> saved = walkRepository.saveAll(entities);
+
+        Map<String, Map<LocalDate, StatsBucketDTO>> deltas = new HashMap<>();
+        List<String> ids = new ArrayList<>(saved.size());
+        for (WalkEntity entity : saved) {
+            ids.add(entity.getId().toString());
+            spatialIndexService.index(entity);
+            deltas.computeIfAbsent(entity.getUserId(), u -> new HashMap<>())
+                .computeIfAbsent(entity.getStartDay(), d -> new StatsBucketDTO())
+                .add(entity.getDistanceMeters(), 1, entity.getDuration() != null ? entity.getDuration() : 0);
+        }
+        deltas.forEach((userId, days) -> days.forEach((day, delta) ->
+            statsService.applyDelta(userId, day, delta.getDistanceMeters(), delta.getWalkCount(), delta.getDurationSeconds())));
+        return ids;
+    }
+
+    @Cacheable(cacheNames = CacheConfig.WALKS, unless = "#result == null")
     public Walk getWalk(String id) {
         try {
             Long longId = Long.parseLong(id);
@@ -104,20 +190,108 @@ public class DatabaseService {
         }
     }
 
+    // Fora do cache: a versão simplificada vem dos níveis gravados na entidade
+    public Walk getWalkSimplified(String id, Double toleranceMeters, Integer zoom) {
+        if (toleranceMeters != null && toleranceMeters < 0) {
+            throw new IllegalArgumentException("Tolerância deve ser maior ou igual a zero");
+        }
+        try {
+            Long longId = Long.parseLong(id);
+            return walkRepository.findById(longId)
+                .map(entity -> entity.toWalk(toleranceMeters, zoom))
+                .orElse(null);
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid walk id format: {}", id);
+            return null;
+        }
+    }
+
     public List<Walk> listWalksByUser(String userId) {
         return walkRepository.findByUserId(userId).stream()
             .map(WalkEntity::toWalk)
             .collect(Collectors.toList());
     }
 
+    // Página de caminhadas do usuário, mais recentes primeiro, com filtro opcional [from, to)
+    public PageDTO<Walk> listWalksByUser(String userId, Instant from, Instant to, String cursor, int limit) {
+        int size = pageSize(limit);
+        WalkCursor after = WalkCursor.decode(cursor);
+        List<WalkEntity> rows = walkRepository.findPageByUserId(userId,
+            from != null ? from : MIN_TIME,
+            to != null ? to : WalkCursor.START.getStartTime(),
+            after.getStartTime(), after.getId(), Limit.of(size + 1));
+        return toPage(rows, size, e -> new WalkCursor(e.getStartTime(), e.getId()))
+            .map(WalkEntity::toWalk);
+    }
+
+    // Igual a listWalksByUser, mas sem polyline (nunca lê a coluna)
+    public PageDTO<WalkSummary> listWalkSummariesByUser(String userId, Instant from, Instant to, String cursor, int limit) {
+        int size = pageSize(limit);
+        WalkCursor after = WalkCursor.decode(cursor);
+        List<WalkSummary> rows = walkRepository.findSummaryPageByUserId(userId,
+            from != null ? from : MIN_TIME,
+            to != null ? to : WalkCursor.START.getStartTime(),
+            after.getStartTime(), after.getId(), Limit.of(size + 1));
+        return toPage(rows, size, s -> new WalkCursor(s.getStartTime(), s.getId()));
+    }
+
+    // Resumos na mesma ordem dos ids (vindos do índice espacial)
+    public List<WalkSummary> listWalkSummariesByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, WalkSummary> byId = walkRepository.findSummariesByIdIn(ids).stream()
+            .collect(Collectors.toMap(WalkSummary::getId, Function.identity()));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    // Alterações desde since: caminhadas gravadas e exclusões (walk_tombstones), size + 1 de cada
+    public ChangesDTO<Walk> listWalkChangesByUser(String userId, long since, int limit) {
+        int size = pageSize(limit);
+        long stable = ChangeClock.stable();
+        List<Walk> walks = walkRepository.findChanges(userId, since, Limit.of(size + 1)).stream()
+            .map(WalkEntity::toWalk)
+            .toList();
+        List<WalkChanges.Deletion> deletions = tombstoneRepository.findChanges(userId, since, Limit.of(size + 1)).stream()
+            .map(t -> new WalkChanges.Deletion(t.getWalkId().toString(), t.getVersion()))
+            .toList();
+        return WalkChanges.merge(walks, deletions, since, size, stable);
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, WalkStore.MAX_PAGE_SIZE));
+    }
+
+    // As consultas buscam size + 1 linhas; a sobra indica que há próxima página
+    private static <T> PageDTO<T> toPage(List<T> rows, int size, Function<T, WalkCursor> cursorOf) {
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = cursorOf.apply(rows.get(size - 1)).encode();
+        }
+        return new PageDTO<>(rows, nextCursor);
+    }
+
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WALKS, key = "#id")
     public boolean updateWalk(String id, Walk walk) {
         try {
             Long longId = Long.parseLong(id);
             return walkRepository.findById(longId)
                 .map(existing -> {
+                    // Movida para outro usuário: o antigo recebe a exclusão na sincronização
+                    if (!Objects.equals(existing.getUserId(), walk.getUserId())) {
+                        tombstoneRepository.save(new WalkTombstoneEntity(longId, existing.getUserId(), ChangeClock.nextInTransaction()));
+                    }
+                    // Remove os valores antigos dos totais antes do merge sobrescrever existing
+                    statsService.onWalkDeleted(existing);
+                    GeometryService.enrich(walk);
                     WalkEntity entity = WalkEntity.fromWalk(walk);
                     entity.setId(longId);
-                    walkRepository.save(entity);
+                    entity.setStartDay(statsService.dayOf(entity.getStartTime()));
+                    WalkEntity saved = walkRepository.save(entity);
+                    statsService.onWalkSaved(saved);
+                    spatialIndexService.index(saved);
                     return true;
                 })
                 .orElse(false);
@@ -127,14 +301,20 @@ public class DatabaseService {
         }
     }
 
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.WALKS, key = "#id")
     public boolean deleteWalk(String id) {
         try {
             Long longId = Long.parseLong(id);
-            if (walkRepository.existsById(longId)) {
-                walkRepository.deleteById(longId);
-                return true;
-            }
-            return false;
+            return walkRepository.findById(longId)
+                .map(existing -> {
+                    walkRepository.delete(existing);
+                    tombstoneRepository.save(new WalkTombstoneEntity(longId, existing.getUserId(), ChangeClock.nextInTransaction()));
+                    statsService.onWalkDeleted(existing);
+                    spatialIndexService.remove(longId);
+                    return true;
+                })
+                .orElse(false);
         } catch (NumberFormatException e) {
             logger.warn("Invalid walk id format: {}", id);
             return false;
@@ -1,19 +1,77 @@
 package app.caminhada.passoAmigo.service;
 
+import app.caminhada.passoAmigo.config.MetricsConfig;
+import app.caminhada.passoAmigo.dto.BatchResultDTO;
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.model.Polyline;
 import app.caminhada.passoAmigo.model.User;
 import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.store.WalkChanges;
+import app.caminhada.passoAmigo.util.ChangeClock;
+import app.caminhada.passoAmigo.util.PolylineCodec;
 import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
 import com.google.cloud.firestore.*;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.firebase.cloud.FirestoreClient;
+import io.micrometer.core.annotation.Timed;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
 
+/**
+ * Acesso ao Firestore. Os métodos *Async não bloqueiam: encadeiam callbacks nos
+ * ApiFuture do cliente e devolvem CompletableFuture. Os métodos síncronos apenas
+ * aguardam a versão assíncrona.
+ *
+ * Atualizações de usuários são uma única escrita (update exige que o documento
+ * exista; NOT_FOUND vira false). Exclusões encadeiam a leitura de existência e o
+ * delete sem bloquear, já que o cliente não expõe pré-condição de existência para
+ * delete.
+ *
+ * Sincronização incremental: cada gravação leva "version" (ChangeClock) e
+ * "updatedAt"; exclusões de caminhadas, e mudanças de dono, deixam um documento em
+ * walk_tombstones. As consultas por (userId, version) precisam de índice composto
+ * nas duas coleções. Atualizar uma caminhada é uma transação, para ler o dono
+ * anterior.
+ *
+ * Operações em lote usam WriteBatch (até 500 escritas atômicas por commit, com
+ * app.firestore.bulk.concurrency commits simultâneos) ou BulkWriter (importação,
+ * limitada a app.firestore.bulk.max-ops-per-second) e informam o progresso.
+ */
 @Service
+@Timed(value = MetricsConfig.STORAGE_TIMER, histogram = true)
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "firestore")
 public class FirestoreService {
+    private static final Logger logger = LoggerFactory.getLogger(FirestoreService.class);
+
+    public static final int MAX_BATCH_WRITES = 500; // limite do Firestore por WriteBatch
+
+    // Progresso de uma operação em lote: itens concluídos de um total
+    @FunctionalInterface
+    public interface BulkProgress {
+        void update(int done, int total);
+    }
+
+    @Value("${app.firestore.bulk.concurrency:4}")
+    private int bulkConcurrency;
+
+    @Value("${app.firestore.bulk.max-ops-per-second:500}")
+    private int bulkMaxOpsPerSecond;
 
     private Firestore getDb() {
         return FirestoreClient.getFirestore();
@@ -21,50 +79,81 @@ public class FirestoreService {
 
     // Users
     public String createUser(User user) throws ExecutionException, InterruptedException {
-        CollectionReference users = getDb().collection("users");
-        DocumentReference ref = users.document();
-        user.setId(ref.getId());
-        ApiFuture<WriteResult> result = ref.set(userToMap(user));
-        result.get();
-        return ref.getId();
+        return createUserAsync(user).get();
     }
 
     public User getUser(String id) throws ExecutionException, InterruptedException {
-        DocumentSnapshot snapshot = getDb().collection("users").document(id).get().get();
-        if (!snapshot.exists()) return null;
-        return mapToUser(snapshot);
+        return getUserAsync(id).get();
     }
 
     public List<User> listUsers() throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = getDb().collection("users").get();
-        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-        List<User> users = new ArrayList<>();
-        for (QueryDocumentSnapshot doc : docs) {
-            users.add(mapToUser(doc));
-        }
-        return users;
+        return listUsersAsync().get();
     }
 
     public boolean updateUser(String id, User user) throws ExecutionException, InterruptedException {
-        DocumentReference ref = getDb().collection("users").document(id);
-        if (!ref.get().get().exists()) return false;
-        user.setId(id);
-        ref.set(userToMap(user)).get();
-        return true;
+        return updateUserAsync(id, user).get();
     }
 
     public boolean deleteUser(String id) throws ExecutionException, InterruptedException {
+        return deleteUserAsync(id).get();
+    }
+
+    public CompletableFuture<String> createUserAsync(User user) {
+        DocumentReference ref = getDb().collection("users").document();
+        user.setId(ref.getId());
+        user.setVersion(ChangeClock.next());
+        return toCompletable(ref.set(userToMap(user))).thenApply(result -> ref.getId());
+    }
+
+    public CompletableFuture<User> getUserAsync(String id) {
+        return toCompletable(getDb().collection("users").document(id).get())
+                .thenApply(snapshot -> snapshot.exists() ? mapToUser(snapshot) : null);
+    }
+
+    public CompletableFuture<List<User>> listUsersAsync() {
+        return toCompletable(getDb().collection("users").get()).thenApply(query -> {
+            List<User> users = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : query.getDocuments()) {
+                users.add(mapToUser(doc));
+            }
+            return users;
+        });
+    }
+
+    // set() em vez de update(): o documento é substituído inteiro, sem sobrar campo antigo
+    public CompletableFuture<Boolean> updateUserAsync(String id, User user) {
+        user.setId(id);
+        user.setVersion(ChangeClock.next());
+        DocumentReference ref = getDb().collection("users").document(id);
+        return toCompletable(getDb().runTransaction(tx -> {
+            if (!tx.get(ref).get().exists()) {
+                return false;
+            }
+            tx.set(ref, userToMap(user));
+            return true;
+        }));
+    }
+
+    // Se o usuário existe, remove suas caminhadas e exclusões registradas e só então o documento
+    // dele: se a cascata falhar no meio, o usuário continua lá e a exclusão pode ser repetida
+    public CompletableFuture<Boolean> deleteUserAsync(String id) {
         DocumentReference ref = getDb().collection("users").document(id);
-        if (!ref.get().get().exists()) return false;
-        ref.delete().get();
-        return true;
+        return toCompletable(ref.get()).thenCompose(snapshot -> snapshot.exists()
+                ? deleteWalksByUserAsync(id, null)
+                        .thenCompose(walks -> deleteAllAsync(getDb().collection("walk_tombstones").whereEqualTo("userId", id),
+                                "delete walk tombstones of user " + id, null))
+                        .thenCompose(tombstones -> toCompletable(ref.delete()))
+                        .thenApply(result -> true)
+                : CompletableFuture.completedFuture(false));
     }
 
     private Map<String, Object> userToMap(User user) {
         return Map.of(
                 "id", user.getId(),
                 "name", user.getName(),
-                "email", user.getEmail()
+                "email", user.getEmail(),
+                "version", user.getVersion(),
+                "updatedAt", ChangeClock.toInstant(user.getVersion()).toString()
         );
     }
 
@@ -73,60 +162,322 @@ public class FirestoreService {
         u.setId(doc.getString("id"));
         u.setName(doc.getString("name"));
         u.setEmail(doc.getString("email"));
+        Long version = doc.getLong("version");
+        u.setVersion(version == null ? 0 : version);
         return u;
     }
 
     // Walks
     public String createWalk(Walk walk) throws ExecutionException, InterruptedException {
-        CollectionReference col = getDb().collection("walks");
-        DocumentReference ref = col.document();
-        walk.setId(ref.getId());
-        ref.set(walkToMap(walk)).get();
-        return ref.getId();
+        return createWalkAsync(walk).get();
     }
 
     public Walk getWalk(String id) throws ExecutionException, InterruptedException {
-        DocumentSnapshot snapshot = getDb().collection("walks").document(id).get().get();
-        if (!snapshot.exists()) return null;
-        return mapToWalk(snapshot);
+        return getWalkAsync(id).get();
     }
 
     public List<Walk> listWalksByUser(String userId) throws ExecutionException, InterruptedException {
-        ApiFuture<QuerySnapshot> future = getDb().collection("walks")
-                .whereEqualTo("userId", userId)
-                .get();
-        List<QueryDocumentSnapshot> docs = future.get().getDocuments();
-        List<Walk> walks = new ArrayList<>();
-        for (QueryDocumentSnapshot doc : docs) {
-            walks.add(mapToWalk(doc));
-        }
-        return walks;
+        return listWalksByUserAsync(userId).get();
     }
 
     public boolean updateWalk(String id, Walk walk) throws ExecutionException, InterruptedException {
-        DocumentReference ref = getDb().collection("walks").document(id);
-        if (!ref.get().get().exists()) return false;
-        walk.setId(id);
-        ref.set(walkToMap(walk)).get();
-        return true;
+        return updateWalkAsync(id, walk).get();
     }
 
     public boolean deleteWalk(String id) throws ExecutionException, InterruptedException {
+        return deleteWalkAsync(id).get();
+    }
+
+    public CompletableFuture<String> createWalkAsync(Walk walk) {
+        DocumentReference ref = getDb().collection("walks").document();
+        walk.setId(ref.getId());
+        return withPendingVersion(version -> {
+            walk.setVersion(version);
+            return toCompletable(ref.set(walkToMap(walk)));
+        }).thenApply(result -> ref.getId());
+    }
+
+    public CompletableFuture<Walk> getWalkAsync(String id) {
+        return toCompletable(getDb().collection("walks").document(id).get())
+                .thenApply(snapshot -> snapshot.exists() ? mapToWalk(snapshot) : null);
+    }
+
+    public CompletableFuture<List<Walk>> listWalksByUserAsync(String userId) {
+        return toCompletable(getDb().collection("walks").whereEqualTo("userId", userId).get()).thenApply(query -> {
+            List<Walk> walks = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : query.getDocuments()) {
+                walks.add(mapToWalk(doc));
+            }
+            return walks;
+        });
+    }
+
+    // Em transação: lê o dono anterior e, se ele mudou, registra a saída da caminhada para ele.
+    // O set() substitui o documento inteiro, descartando campos legados como o array "polyline"
+    public CompletableFuture<Boolean> updateWalkAsync(String id, Walk walk) {
+        walk.setId(id);
         DocumentReference ref = getDb().collection("walks").document(id);
-        if (!ref.get().get().exists()) return false;
-        ref.delete().get();
-        return true;
+        return withPendingVersion(version -> toCompletable(getDb().runTransaction(tx -> {
+            walk.setVersion(version);
+            DocumentSnapshot current = tx.get(ref).get();
+            if (!current.exists()) {
+                return false;
+            }
+            String previousUser = current.getString("userId");
+            if (!Objects.equals(previousUser, walk.getUserId())) {
+                tx.set(getDb().collection("walk_tombstones").document(), tombstoneToMap(id, previousUser, walk.getVersion()));
+            }
+            tx.set(ref, walkToMap(walk));
+            return true;
+        })));
     }
 
-    private Map<String, Object> walkToMap(Walk walk) {
-        return Map.of(
-                "id", walk.getId(),
-                "userId", walk.getUserId(),
-                "startTime", walk.getStartTime() == null ? null : walk.getStartTime().toString(),
-                "endTime", walk.getEndTime() == null ? null : walk.getEndTime().toString(),
-                "distanceMeters", walk.getDistanceMeters(),
-                "polyline", walk.getPolyline()
-        );
+    // A exclusão e o registro em walk_tombstones vão no mesmo commit
+    public CompletableFuture<Boolean> deleteWalkAsync(String id) {
+        DocumentReference ref = getDb().collection("walks").document(id);
+        return toCompletable(ref.get()).thenCompose(snapshot -> {
+            if (!snapshot.exists()) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return withPendingVersion(version -> {
+                WriteBatch batch = getDb().batch();
+                batch.delete(ref);
+                batch.set(getDb().collection("walk_tombstones").document(),
+                        tombstoneToMap(id, snapshot.getString("userId"), version));
+                return toCompletable(batch.commit());
+            }).thenApply(result -> true);
+        });
+    }
+
+    // Caminhadas gravadas e exclusões depois de since, size + 1 de cada (ver WalkChanges)
+    public CompletableFuture<ChangesDTO<Walk>> listWalkChangesByUserAsync(String userId, long since, int size) {
+        long stable = ChangeClock.stable();
+        CompletableFuture<List<Walk>> walks = toCompletable(changesQuery("walks", userId, since, size).get())
+                .thenApply(query -> query.getDocuments().stream().map(this::mapToWalk).toList());
+        CompletableFuture<List<WalkChanges.Deletion>> deletions =
+                toCompletable(changesQuery("walk_tombstones", userId, since, size).get())
+                        .thenApply(query -> query.getDocuments().stream()
+                                .map(doc -> new WalkChanges.Deletion(doc.getString("walkId"), doc.getLong("version")))
+                                .toList());
+        return walks.thenCombine(deletions, (w, d) -> WalkChanges.merge(w, d, since, size, stable));
+    }
+
+    private Query changesQuery(String collection, String userId, long since, int size) {
+        return getDb().collection(collection)
+                .whereEqualTo("userId", userId)
+                .whereGreaterThan("version", since)
+                .orderBy("version")
+                .limit(size + 1);
+    }
+
+    private static Map<String, Object> tombstoneToMap(String walkId, String userId, long version) {
+        Map<String, Object> map = new HashMap<>();
+        map.put("walkId", walkId);
+        map.put("userId", userId);
+        map.put("version", version);
+        map.put("deletedAt", ChangeClock.toInstant(version).toString());
+        return map;
+    }
+
+    // Cria caminhadas com ids novos em WriteBatch de até 500; um commit que falha marca seu bloco inteiro
+    public CompletableFuture<BatchResultDTO> createWalksAsync(List<Walk> walks, BulkProgress progress) {
+        CollectionReference col = getDb().collection("walks");
+        BatchResultDTO result = new BatchResultDTO();
+        AtomicInteger done = new AtomicInteger();
+        List<Supplier<CompletableFuture<?>>> chunks = new ArrayList<>();
+        for (int start = 0; start < walks.size(); start += MAX_BATCH_WRITES) {
+            int from = start;
+            int to = Math.min(start + MAX_BATCH_WRITES, walks.size());
+            chunks.add(() -> {
+                WriteBatch batch = getDb().batch();
+                // Uma versão pendente por caminhada, todas liberadas quando o bloco termina
+                int next = from;
+                try {
+                    for (; next < to; next++) {
+                        DocumentReference ref = col.document();
+                        walks.get(next).setId(ref.getId());
+                        walks.get(next).setVersion(ChangeClock.nextPending());
+                        batch.set(ref, walkToMap(walks.get(next)));
+                    }
+                } catch (RuntimeException e) {
+                    for (int i = from; i <= next; i++) {
+                        ChangeClock.release(walks.get(i).getVersion());
+                    }
+                    throw e;
+                }
+                return toCompletable(batch.commit()).handle((writes, error) -> {
+                    synchronized (result) {
+                        for (int i = from; i < to; i++) {
+                            ChangeClock.release(walks.get(i).getVersion());
+                            if (error == null) {
+                                result.addCreated(i, walks.get(i).getId());
+                            } else {
+                                result.addFailed(i, 503, Map.of("firestore", String.valueOf(error.getMessage())));
+                            }
+                        }
+                    }
+                    report("create walks", progress, done.addAndGet(to - from), walks.size());
+                    return null;
+                });
+            });
+        }
+        return runWindowed(chunks, bulkConcurrency).thenApply(v -> sorted(result));
+    }
+
+    // Exclui todas as caminhadas do usuário em WriteBatch de até 500; retorna quantas foram excluídas
+    public CompletableFuture<Integer> deleteWalksByUserAsync(String userId, BulkProgress progress) {
+        return deleteAllAsync(getDb().collection("walks").whereEqualTo("userId", userId),
+                "delete walks of user " + userId, progress);
+    }
+
+    private CompletableFuture<Integer> deleteAllAsync(Query target, String operation, BulkProgress progress) {
+        Query ids = target.select(FieldPath.documentId());
+        return toCompletable(ids.get()).thenCompose(query -> {
+            List<QueryDocumentSnapshot> docs = query.getDocuments();
+            AtomicInteger done = new AtomicInteger();
+            List<Supplier<CompletableFuture<?>>> chunks = new ArrayList<>();
+            for (int start = 0; start < docs.size(); start += MAX_BATCH_WRITES) {
+                List<QueryDocumentSnapshot> chunk = docs.subList(start, Math.min(start + MAX_BATCH_WRITES, docs.size()));
+                chunks.add(() -> {
+                    WriteBatch batch = getDb().batch();
+                    chunk.forEach(doc -> batch.delete(doc.getReference()));
+                    return toCompletable(batch.commit()).thenRun(() ->
+                            report(operation, progress, done.addAndGet(chunk.size()), docs.size()));
+                });
+            }
+            return runWindowed(chunks, bulkConcurrency).thenApply(v -> docs.size());
+        });
+    }
+
+    /**
+     * Importação (upsert) com BulkWriter: mantém os ids informados, limita a taxa de escrita
+     * e repete falhas transitórias. Cada documento é independente, sem atomicidade por bloco.
+     */
+    public CompletableFuture<BatchResultDTO> importWalksAsync(List<Walk> walks, BulkProgress progress) {
+        CollectionReference col = getDb().collection("walks");
+        BulkWriter writer = getDb().bulkWriter(BulkWriterOptions.builder()
+                .setInitialOpsPerSecond(Math.min(bulkMaxOpsPerSecond, 500))
+                .setMaxOpsPerSecond(bulkMaxOpsPerSecond)
+                .build());
+        BatchResultDTO result = new BatchResultDTO();
+        AtomicInteger done = new AtomicInteger();
+        List<CompletableFuture<?>> writes = new ArrayList<>(walks.size());
+        for (int i = 0; i < walks.size(); i++) {
+            int index = i;
+            Walk walk = walks.get(i);
+            DocumentReference ref = walk.getId() != null && !walk.getId().isBlank()
+                    ? col.document(walk.getId()) : col.document();
+            walk.setId(ref.getId());
+            writes.add(withPendingVersion(version -> {
+                walk.setVersion(version);
+                return toCompletable(writer.set(ref, walkToMap(walk)));
+            }).handle((write, error) -> {
+                synchronized (result) {
+                    if (error == null) {
+                        result.addCreated(index, ref.getId());
+                    } else {
+                        result.addFailed(index, 503, Map.of("firestore", String.valueOf(error.getMessage())));
+                    }
+                }
+                int count = done.incrementAndGet();
+                if (count % MAX_BATCH_WRITES == 0 || count == walks.size()) {
+                    report("import walks", progress, count, walks.size());
+                }
+                return null;
+            }));
+        }
+        return toCompletable(writer.flush())
+                .thenCompose(v -> CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])))
+                .whenComplete((v, error) -> close(writer))
+                .thenApply(v -> sorted(result));
+    }
+
+    // Executa as tarefas com no máximo `concurrency` em andamento, sem bloquear
+    private static CompletableFuture<Void> runWindowed(List<Supplier<CompletableFuture<?>>> tasks, int concurrency) {
+        AtomicInteger next = new AtomicInteger();
+        int lanes = Math.max(1, Math.min(concurrency, tasks.size()));
+        CompletableFuture<?>[] running = new CompletableFuture<?>[lanes];
+        for (int i = 0; i < lanes; i++) {
+            running[i] = lane(tasks, next);
+        }
+        return CompletableFuture.allOf(running);
+    }
+
+    private static CompletableFuture<Void> lane(List<Supplier<CompletableFuture<?>>> tasks, AtomicInteger next) {
+        int index = next.getAndIncrement();
+        if (index >= tasks.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return tasks.get(index).get().thenCompose(v -> lane(tasks, next));
+    }
+
+    private static void report(String operation, BulkProgress progress, int done, int total) {
+        logger.debug("Firestore bulk {}: {}/{}", operation, done, total);
+        if (progress != null) {
+            progress.update(done, total);
+        }
+    }
+
+    private static BatchResultDTO sorted(BatchResultDTO result) {
+        result.getResults().sort((a, b) -> Integer.compare(a.getIndex(), b.getIndex()));
+        return result;
+    }
+
+    private static void close(BulkWriter writer) {
+        try {
+            writer.close(); // Já sem escritas pendentes após o flush
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.warn("Error closing Firestore bulk writer", e);
+        }
+    }
+
+    // A versão da escrita fica pendente (ChangeClock.stable) até ela terminar, com ou sem erro
+    private static <T> CompletableFuture<T> withPendingVersion(LongFunction<CompletableFuture<T>> write) {
+        long version = ChangeClock.nextPending();
+        try {
+            return write.apply(version).whenComplete((result, error) -> ChangeClock.release(version));
+        } catch (RuntimeException e) {
+            ChangeClock.release(version);
+            throw e;
+        }
+    }
+
+    // Callback no próprio thread do cliente gRPC, sem ocupar outro thread esperando
+    static <T> CompletableFuture<T> toCompletable(ApiFuture<T> future) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        ApiFutures.addCallback(future, new ApiFutureCallback<T>() {
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(T value) {
+                result.complete(value);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    // Visível no pacote para o FirestoreConversionBenchmark
+    static Map<String, Object> walkToMap(Walk walk) {
+        // HashMap pois startTime/endTime/polyline podem ser nulos
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", walk.getId());
+        map.put("userId", walk.getUserId());
+        map.put("startTime", walk.getStartTime() == null ? null : walk.getStartTime().toString());
+        map.put("endTime", walk.getEndTime() == null ? null : walk.getEndTime().toString());
+        map.put("distanceMeters", walk.getDistanceMeters());
+        map.put("duration", walk.getDuration());
+        map.put("paceSecondsPerKm", walk.getPaceSecondsPerKm());
+        map.put("version", walk.getVersion());
+        map.put("updatedAt", walk.getUpdatedAt() == null ? null : walk.getUpdatedAt().toString());
+        // Polyline compactada em um único Blob em vez de um array de números
+        map.put("polylinePacked", walk.getPolyline() == null ? null
+                : Blob.fromBytes(PolylineCodec.encode(walk.getPolyline().coordinates())));
+        return map;
     }
 
     private Walk mapToWalk(DocumentSnapshot doc) {
@@ -139,9 +490,23 @@ public class FirestoreService {
         if (end != null) w.setEndTime(java.time.Instant.parse(end));
         Double distance = doc.getDouble("distanceMeters");
         w.setDistanceMeters(distance == null ? 0 : distance);
-        @SuppressWarnings("unchecked")
-        List<Double> poly = (List<Double>) doc.get("polyline");
-        w.setPolyline(poly);
+        Long duration = doc.getLong("duration");
+        w.setDuration(duration == null ? null : duration.intValue());
+        w.setPaceSecondsPerKm(doc.getDouble("paceSecondsPerKm"));
+        Long version = doc.getLong("version");
+        w.setVersion(version == null ? 0 : version);
+        Blob packed = doc.getBlob("polylinePacked");
+        if (packed != null) {
+            w.setPolyline(new Polyline(PolylineCodec.decode(packed.toBytes())));
+        } else if (doc.get("polyline") instanceof List<?> legacy) {
+            // Documentos antigos gravados como array de números
+            double[] coords = new double[legacy.size()];
+            for (int i = 0; i < coords.length; i++) {
+                Object value = legacy.get(i);
+                coords[i] = value instanceof Number n ? n.doubleValue() : 0.0;
+            }
+            w.setPolyline(new Polyline(coords));
+        }
         return w;
     }
 }
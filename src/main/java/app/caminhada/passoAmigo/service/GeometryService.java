@@ -0,0 +1,186 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.config.CacheConfig;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Distância, duração e ritmo calculados no servidor a partir da polyline.
+ *
+ * A polyline gravada pelo app já vem sem os saltos de GPS (ActivityScreen descarta
+ * trechos de 50 m ou mais), então a distância é a soma simples dos trechos. Sem
+ * horário por ponto, tempo em movimento e velocidade máxima não são calculáveis;
+ * a duração é o tempo entre início e fim quando o cliente não informa.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class GeometryService {
+    private static final Logger logger = LoggerFactory.getLogger(GeometryService.class);
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+    private static final int RECOMPUTE_CHUNK_SIZE = 200;
+
+    private final WalkRepository walkRepository;
+    private final StatsService statsService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.geometry.recompute.parallelism:0}")
+    private int recomputeParallelism;
+
+    public GeometryService(WalkRepository walkRepository, StatsService statsService,
+                           PlatformTransactionManager transactionManager) {
+        this.walkRepository = walkRepository;
+        this.statsService = statsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Soma das distâncias de haversine entre pontos consecutivos de [lat1, lon1, lat2, lon2, ...].
+     * Laço sem alocação nem desvios sobre o array primitivo; cos(lat) é calculado uma vez por ponto.
+     */
+    public static double distanceMeters(double[] coords) {
+        return distanceMeters(coords, 0, coords.length / 2);
+    }
+
+    // Mesma soma restrita aos pontos [fromPoint, toPoint), sem copiar o trecho
+    public static double distanceMeters(double[] coords, int fromPoint, int toPoint) {
+        if (toPoint - fromPoint < 2) {
+            return 0.0;
+        }
+        double sum = 0.0;
+        double prevLat = coords[2 * fromPoint] * DEG_TO_RAD;
+        double prevLon = coords[2 * fromPoint + 1] * DEG_TO_RAD;
+        double prevCos = Math.cos(prevLat);
+        for (int i = 2 * fromPoint + 2; i + 1 < 2 * toPoint; i += 2) {
+            double lat = coords[i] * DEG_TO_RAD;
+            double lon = coords[i + 1] * DEG_TO_RAD;
+            double cos = Math.cos(lat);
+            double sinLat = Math.sin((lat - prevLat) * 0.5);
+            double sinLon = Math.sin((lon - prevLon) * 0.5);
+            double a = sinLat * sinLat + prevCos * cos * sinLon * sinLon;
+            sum += Math.asin(Math.sqrt(Math.min(1.0, a)));
+            prevLat = lat;
+            prevLon = lon;
+            prevCos = cos;
+        }
+        return 2.0 * EARTH_RADIUS_METERS * sum;
+    }
+
+    // Segundos por quilômetro, ou null sem distância ou duração
+    public static Double paceSecondsPerKm(double distanceMeters, Integer durationSeconds) {
+        if (durationSeconds == null || durationSeconds <= 0 || distanceMeters < 1.0) {
+            return null;
+        }
+        return durationSeconds / (distanceMeters / 1000.0);
+    }
+
+    /**
+     * Chamado antes de gravar: a distância da polyline substitui a enviada pelo cliente.
+     * A polyline passa a ter a precisão gravada, para que a resposta e o recomputeAll
+     * vejam as mesmas coordenadas. Estático para ser usado por todos os backends de armazenamento.
+     */
+    public static void enrich(Walk walk) {
+        if (walk.getPolyline() != null && walk.getPolyline().pointCount() >= 2) {
+            double[] coords = PolylineCodec.quantize(walk.getPolyline().coordinates());
+            walk.setPolyline(new Polyline(coords));
+            walk.setDistanceMeters(distanceMeters(coords));
+        }
+        if (walk.getDuration() == null) {
+            walk.setDuration(elapsedSeconds(walk.getStartTime(), walk.getEndTime()));
+        }
+        walk.setPaceSecondsPerKm(paceSecondsPerKm(walk.getDistanceMeters(), walk.getDuration()));
+    }
+
+    /**
+     * Recalcula distância, duração e ritmo de todas as caminhadas, em lotes de ids
+     * processados em paralelo, e depois refaz os totais diários. Retorna o número de caminhadas.
+     */
+    @CacheEvict(cacheNames = CacheConfig.WALKS, allEntries = true)
+    public int recomputeAll() throws InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        List<Long> ids = walkRepository.findAllIds();
+        int threads = recomputeParallelism > 0 ? recomputeParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger changed = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += RECOMPUTE_CHUNK_SIZE) {
+                List<Long> chunk = ids.subList(i, Math.min(i + RECOMPUTE_CHUNK_SIZE, ids.size()));
+                tasks.add(executor.submit(() -> changed.addAndGet(recomputeChunk(chunk))));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (changed.get() > 0) {
+            statsService.rebuildAll();
+        }
+        logger.info("Recomputed geometry for {} walks ({} changed) in {} ms",
+            ids.size(), changed.get(), System.currentTimeMillis() - start);
+        return ids.size();
+    }
+
+    private int recomputeChunk(List<Long> ids) {
+        Integer changed = transactionTemplate.execute(status -> {
+            int count = 0;
+            for (WalkEntity entity : walkRepository.findAllById(ids)) {
+                if (recompute(entity)) {
+                    count++;
+                }
+            }
+            return count;
+        });
+        return changed != null ? changed : 0;
+    }
+
+    // Aplica os valores calculados na entidade gerenciada; retorna true se algo mudou
+    private boolean recompute(WalkEntity entity) {
+        double[] coords = entity.decodePolyline();
+        double distance = coords != null && coords.length >= 4 ? distanceMeters(coords) : entity.getDistanceMeters();
+        Integer duration = entity.getDuration() != null
+            ? entity.getDuration() : elapsedSeconds(entity.getStartTime(), entity.getEndTime());
+        Double pace = paceSecondsPerKm(distance, duration);
+        boolean changed = distance != entity.getDistanceMeters()
+            || !Objects.equals(duration, entity.getDuration())
+            || !Objects.equals(pace, entity.getPaceSecondsPerKm());
+        if (changed) {
+            entity.setDistanceMeters(distance);
+            entity.setDuration(duration);
+            entity.setPaceSecondsPerKm(pace);
+        }
+        return changed;
+    }
+
+    private static Integer elapsedSeconds(Instant start, Instant end) {
+        if (start == null || end == null || !end.isAfter(start)) {
+            return null;
+        }
+        return (int) Duration.between(start, end).getSeconds();
+    }
+}
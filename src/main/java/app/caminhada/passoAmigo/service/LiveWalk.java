@@ -0,0 +1,134 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.dto.LiveWalkDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Caminhada em andamento: buffer de coordenadas que cresce por duplicação, com
+ * distância e retângulo envolvente atualizados a cada lote. Acrescentar um lote
+ * custa O(tamanho do lote); a polyline só é montada ao finalizar.
+ */
+final class LiveWalk {
+    private static final int INITIAL_CAPACITY = 512; // coordenadas
+
+    private final String id;
+    private final String userId;
+    private final Instant startTime;
+    private double[] coords = new double[INITIAL_CAPACITY];
+    private int size;
+    private double distanceMeters;
+    private double minLat = Double.POSITIVE_INFINITY;
+    private double minLon = Double.POSITIVE_INFINITY;
+    private double maxLat = Double.NEGATIVE_INFINITY;
+    private double maxLon = Double.NEGATIVE_INFINITY;
+    private int nextSeq;
+    private boolean closed;
+    private volatile long touchedAt = System.currentTimeMillis();
+
+    LiveWalk(String id, String userId, Instant startTime) {
+        this.id = id;
+        this.userId = userId;
+        this.startTime = startTime;
+    }
+
+    String id() {
+        return id;
+    }
+
+    long touchedAt() {
+        return touchedAt;
+    }
+
+    /**
+     * Acrescenta um lote [lat1, lon1, ...]. Com seq, lotes repetidos (seq já recebido,
+     * como num reenvio após timeout) são ignorados e lotes fora de ordem recusados;
+     * lotes sem seq (os pontos enviados na abertura) não contam. Retorna false
+     * quando o lote foi ignorado, inclusive com a sessão já encerrada.
+     */
+    synchronized boolean append(double[] batch, Integer seq, int maxPoints) {
+        if (closed) {
+            return false;
+        }
+        touchedAt = System.currentTimeMillis();
+        if (seq != null) {
+            if (seq < nextSeq) {
+                return false;
+            }
+            if (seq > nextSeq) {
+                throw new IllegalArgumentException("Lote fora de ordem: esperado seq " + nextSeq);
+            }
+        }
+        if ((size + batch.length) / 2 > maxPoints) {
+            throw new IllegalArgumentException("Caminhada excede o máximo de " + maxPoints + " pontos");
+        }
+        double[] points = PolylineCodec.quantize(batch);
+        if (size + points.length > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(coords.length * 2, size + points.length));
+        }
+        System.arraycopy(points, 0, coords, size, points.length);
+        int from = size / 2;
+        size += points.length;
+        // O trecho começa no último ponto do lote anterior
+        distanceMeters += GeometryService.distanceMeters(coords, Math.max(0, from - 1), size / 2);
+        for (int i = 0; i < points.length; i += 2) {
+            minLat = Math.min(minLat, points[i]);
+            maxLat = Math.max(maxLat, points[i]);
+            minLon = Math.min(minLon, points[i + 1]);
+            maxLon = Math.max(maxLon, points[i + 1]);
+        }
+        if (seq != null) {
+            nextSeq++;
+        }
+        return true;
+    }
+
+    synchronized LiveWalkDTO toDTO() {
+        LiveWalkDTO dto = new LiveWalkDTO();
+        dto.setId(id);
+        dto.setUserId(userId);
+        dto.setStartTime(startTime.toString());
+        dto.setPoints(size / 2);
+        dto.setDistanceMeters(distanceMeters);
+        dto.setBbox(size > 0 ? new double[] {minLat, minLon, maxLat, maxLon} : null);
+        dto.setNextSeq(nextSeq);
+        return dto;
+    }
+
+    /**
+     * Encerra a sessão antes de montar a caminhada a gravar: um lote que chegue
+     * depois não entraria na polyline e seria confirmado à toa. reopen desfaz
+     * quando a gravação falha e a sessão volta a aceitar lotes.
+     */
+    synchronized void close() {
+        closed = true;
+    }
+
+    synchronized void reopen() {
+        closed = false;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    synchronized int pointCount() {
+        return size / 2;
+    }
+
+    // Caminhada a gravar; a distância é recalculada pelo backend a partir da polyline
+    synchronized Walk toWalk(Instant endTime, Integer duration) {
+        Walk walk = new Walk();
+        walk.setUserId(userId);
+        walk.setStartTime(startTime);
+        walk.setEndTime(endTime);
+        walk.setDuration(duration);
+        walk.setDistanceMeters(distanceMeters);
+        walk.setPolyline(new Polyline(Arrays.copyOf(coords, size)));
+        return walk;
+    }
+}
@@ -0,0 +1,213 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.dto.LiveWalkDTO;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.store.WalkStore;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Rastreamento ao vivo: o app abre uma sessão, envia os pontos em lotes durante a
+ * caminhada e finaliza, em vez de mandar a polyline inteira só no fim. Se o app
+ * fechar no meio do caminho, o que já foi enviado não se perde: sessões paradas
+ * por mais de app.tracking.idle-timeout são gravadas como caminhadas (ou
+ * descartadas, com menos de 2 pontos).
+ *
+ * As sessões ficam na memória do processo e valem para qualquer WalkStore; a
+ * caminhada só vai para o armazenamento ao finalizar (ou ao desligar o servidor).
+ * Sessões gravadas ficam lembradas por idle-timeout: repetir o finish (resposta
+ * perdida no caminho) devolve a mesma caminhada em vez de 404.
+ */
+@Service
+public class LiveWalkService {
+    private static final Logger logger = LoggerFactory.getLogger(LiveWalkService.class);
+
+    public static final int MAX_BATCH_POINTS = 10_000;
+    private static final int SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final int MAX_FINISHED = 10_000;
+
+    private final WalkStore walkStore;
+    private final Duration idleTimeout;
+    private final int maxPoints;
+    private final Map<String, LiveWalk> sessions = new ConcurrentHashMap<>();
+    // Id da sessão -> id da caminhada gravada (ou em gravação)
+    private final Cache<String, CompletableFuture<String>> finished;
+    private ScheduledExecutorService reaper;
+
+    public LiveWalkService(WalkStore walkStore,
+                           @Value("${app.tracking.idle-timeout:30m}") Duration idleTimeout,
+                           @Value("${app.tracking.max-points:100000}") int maxPoints) {
+        this.walkStore = walkStore;
+        this.idleTimeout = idleTimeout;
+        this.maxPoints = maxPoints;
+        this.finished = Caffeine.newBuilder()
+            .maximumSize(MAX_FINISHED)
+            .expireAfterWrite(idleTimeout)
+            .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "live-walk-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1000, idleTimeout.toMillis() / 4);
+        reaper.scheduleWithFixedDelay(this::expireIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        reaper.shutdownNow();
+        // Como na expiração: o que já chegou é gravado (o WalkStore é destruído depois)
+        List<CompletableFuture<Walk>> pending = new ArrayList<>();
+        for (LiveWalk live : sessions.values()) {
+            if (live.pointCount() >= 2) {
+                pending.add(save(live, Instant.ofEpochMilli(live.touchedAt()), null));
+            }
+        }
+        sessions.clear();
+        if (pending.isEmpty()) {
+            return;
+        }
+        logger.info("Saving {} live walks on shutdown", pending.size());
+        try {
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).get(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Error saving live walks on shutdown", e);
+        }
+    }
+
+    public LiveWalkDTO start(String userId, Instant startTime, double[] firstPoints) {
+        LiveWalk walk = new LiveWalk(UUID.randomUUID().toString(), userId,
+            startTime != null ? startTime : Instant.now());
+        if (firstPoints != null && firstPoints.length > 0) {
+            walk.append(validated(firstPoints), null, maxPoints);
+        }
+        sessions.put(walk.id(), walk);
+        logger.info("Live walk {} started for user: {}", walk.id(), userId);
+        return walk.toDTO();
+    }
+
+    // null quando a sessão não existe (finalizada, expirada ou de antes de um reinício)
+    public LiveWalkDTO get(String id) {
+        LiveWalk walk = sessions.get(id);
+        return walk != null ? walk.toDTO() : null;
+    }
+
+    // null também quando a sessão foi encerrada por um finish concorrente
+    public LiveWalkDTO append(String id, Integer seq, double[] points) {
+        LiveWalk walk = sessions.get(id);
+        if (walk == null) {
+            return null;
+        }
+        if (!walk.append(validated(points), seq, maxPoints)) {
+            if (walk.isClosed()) {
+                return null;
+            }
+            logger.debug("Ignoring repeated batch {} for live walk {}", seq, id);
+        }
+        return walk.toDTO();
+    }
+
+    /**
+     * Grava a caminhada e encerra a sessão. Se a gravação falhar a sessão volta,
+     * para que o app possa tentar de novo. Para uma sessão já gravada devolve a
+     * caminhada criada; retorna null quando a sessão não existe.
+     */
+    public CompletableFuture<Walk> finish(String id, Instant endTime, Integer duration) {
+        LiveWalk live = sessions.remove(id);
+        if (live == null) {
+            CompletableFuture<String> saved = finished.getIfPresent(id);
+            return saved != null ? saved.thenCompose(walkStore::getWalk) : CompletableFuture.completedFuture(null);
+        }
+        return save(live, endTime != null ? endTime : Instant.now(), duration).whenComplete((walk, e) -> {
+            if (e != null) {
+                finished.invalidate(id);
+                live.reopen();
+                sessions.putIfAbsent(id, live);
+            }
+        });
+    }
+
+    public int activeCount() {
+        return sessions.size();
+    }
+
+    public boolean discard(String id) {
+        LiveWalk live = sessions.remove(id);
+        if (live == null) {
+            return false;
+        }
+        live.close();
+        return true;
+    }
+
+    // Registrada em finished antes de concluir, para um finish repetido aguardar a mesma gravação
+    private CompletableFuture<Walk> save(LiveWalk live, Instant endTime, Integer duration) {
+        live.close();
+        Walk walk = live.toWalk(endTime, duration);
+        CompletableFuture<String> created = walkStore.createWalk(walk);
+        finished.put(live.id(), created);
+        return created.thenApply(walkId -> {
+            walk.setId(walkId);
+            logger.info("Live walk {} saved as walk {} ({} points)", live.id(), walkId, walk.getPolyline().pointCount());
+            return walk;
+        });
+    }
+
+    private void expireIdle() {
+        long limit = System.currentTimeMillis() - idleTimeout.toMillis();
+        for (LiveWalk live : sessions.values()) {
+            if (live.touchedAt() >= limit || !sessions.remove(live.id(), live)) {
+                continue;
+            }
+            if (live.pointCount() < 2) {
+                logger.info("Discarding idle live walk {}", live.id());
+                continue;
+            }
+            // Termina no último lote recebido
+            save(live, Instant.ofEpochMilli(live.touchedAt()), null).whenComplete((walk, e) -> {
+                if (e != null) {
+                    logger.error("Error saving idle live walk {}", live.id(), e);
+                    finished.invalidate(live.id());
+                    live.reopen();
+                    sessions.putIfAbsent(live.id(), live); // tenta de novo na próxima passada
+                }
+            });
+        }
+    }
+
+    // Mesmas regras de coordenadas das caminhadas gravadas, mais o limite por lote
+    private static double[] validated(double[] points) {
+        if (points.length / 2 > MAX_BATCH_POINTS) {
+            throw new IllegalArgumentException("Lote excede o máximo de " + MAX_BATCH_POINTS + " pontos");
+        }
+        PolylineCodec.validate(points);
+        return points;
+    }
+}
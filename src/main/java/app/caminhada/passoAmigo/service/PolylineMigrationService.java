@@ -0,0 +1,113 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import app.caminhada.passoAmigo.util.PolylineLevels;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Converte caminhadas com polyline no formato texto legado (polylineJson)
+ * para a coluna binária polyline_data e calcula os níveis de detalhe, o
+ * retângulo envolvente e as células geohash que faltam, em lotes.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class PolylineMigrationService {
+    private static final Logger logger = LoggerFactory.getLogger(PolylineMigrationService.class);
+
+    private final WalkRepository walkRepository;
+
+    @Value("${app.polyline.migrate-on-startup:true}")
+    private boolean migrateOnStartup;
+
+    public PolylineMigrationService(WalkRepository walkRepository) {
+        this.walkRepository = walkRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onStartup() {
+        if (migrateOnStartup) {
+            migrateLegacyPolylines();
+            backfillLevels();
+            backfillSpatial();
+        }
+    }
+
+    public int migrateLegacyPolylines() {
+        int migrated = 0;
+        long lastId = 0;
+        List<WalkEntity> batch;
+        while (!(batch = walkRepository.findTop200ByPolylineDataIsNullAndPolylineJsonIsNotNullAndIdGreaterThanOrderById(lastId)).isEmpty()) {
+            for (WalkEntity entity : batch) {
+                lastId = entity.getId();
+                double[] coords = PolylineCodec.parseLegacy(entity.getPolylineJson());
+                try {
+                    PolylineCodec.validate(coords);
+                } catch (IllegalArgumentException e) {
+                    // O texto continua legível como está; o binário não representaria esses valores
+                    logger.warn("Keeping legacy polyline of walk {}: {}", entity.getId(), e.getMessage());
+                    continue;
+                }
+                entity.setPolylineData(PolylineCodec.encode(coords));
+                entity.setPolylineLevels(PolylineLevels.build(coords));
+                entity.applySpatial(coords);
+                entity.setPolylineJson(null);
+                migrated++;
+            }
+            walkRepository.saveAll(batch);
+        }
+        if (migrated > 0) {
+            logger.info("Migrated {} legacy polylines to binary format", migrated);
+        }
+        return migrated;
+    }
+
+    public int backfillLevels() {
+        int updated = 0;
+        long lastId = 0;
+        List<WalkEntity> batch;
+        while (!(batch = walkRepository.findTop200ByPolylineLevelsIsNullAndPolylineDataIsNotNullAndIdGreaterThanOrderById(lastId)).isEmpty()) {
+            for (WalkEntity entity : batch) {
+                // Polylines curtas continuam sem níveis; por isso o avanço é pelo id
+                entity.setPolylineLevels(PolylineLevels.build(PolylineCodec.decode(entity.getPolylineData())));
+                lastId = entity.getId();
+            }
+            walkRepository.saveAll(batch);
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            logger.info("Computed polyline levels for {} walks", updated);
+        }
+        return updated;
+    }
+
+    public int backfillSpatial() {
+        int updated = 0;
+        long lastId = 0;
+        List<WalkEntity> batch;
+        while (!(batch = walkRepository.findTop200ByMinLatIsNullAndPolylineDataIsNotNullAndIdGreaterThanOrderById(lastId)).isEmpty()) {
+            for (WalkEntity entity : batch) {
+                entity.applySpatial(PolylineCodec.decode(entity.getPolylineData()));
+                lastId = entity.getId();
+            }
+            walkRepository.saveAll(batch);
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            logger.info("Computed bounding boxes for {} walks", updated);
+        }
+        return updated;
+    }
+}
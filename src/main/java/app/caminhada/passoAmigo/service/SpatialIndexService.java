@@ -0,0 +1,196 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.repository.WalkCellRow;
+import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.repository.WalkSpatialRow;
+import app.caminhada.passoAmigo.util.Geohash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Índice espacial em memória: grade de células geohash -> ids de caminhadas,
+ * mais o retângulo envolvente e o início de cada caminhada para filtrar e ordenar
+ * sem ir ao banco. É reconstruído na inicialização a partir das colunas min/max
+ * e da tabela walk_cells, e mantido por DatabaseService a cada gravação.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class SpatialIndexService {
+    private static final Logger logger = LoggerFactory.getLogger(SpatialIndexService.class);
+
+    // Acima disso a área é varrida pelos retângulos em vez de célula a célula
+    private static final int MAX_COVER_CELLS = 4096;
+    private static final double METERS_PER_DEGREE_LAT = GeometryService.EARTH_RADIUS_METERS * Math.PI / 180.0;
+
+    private record Entry(long id, long startEpochSecond,
+                         double minLat, double maxLat, double minLon, double maxLon, String[] cells) {
+    }
+
+    private final WalkRepository walkRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private volatile Map<String, Set<Long>> grid = new ConcurrentHashMap<>();
+
+    public SpatialIndexService(WalkRepository walkRepository, PlatformTransactionManager transactionManager) {
+        this.walkRepository = walkRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Depois das migrações de polyline, que preenchem retângulos e células de linhas antigas
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onStartup() {
+        rebuild();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, List<String>> cellsByWalk = new HashMap<>();
+        Map<Long, Entry> newEntries = new ConcurrentHashMap<>();
+        Map<String, Set<Long>> newGrid = new ConcurrentHashMap<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<WalkCellRow> rows = walkRepository.streamAllCells()) {
+                rows.forEach(row -> cellsByWalk.computeIfAbsent(row.getWalkId(), id -> new ArrayList<>()).add(row.getCell()));
+            }
+            try (Stream<WalkSpatialRow> rows = walkRepository.streamAllBoxes()) {
+                rows.forEach(row -> {
+                    List<String> cells = cellsByWalk.getOrDefault(row.getId(), List.of());
+                    Entry entry = new Entry(row.getId(), row.getStartTime().getEpochSecond(),
+                        row.getMinLat(), row.getMaxLat(), row.getMinLon(), row.getMaxLon(),
+                        cells.toArray(new String[0]));
+                    add(newEntries, newGrid, entry);
+                });
+            }
+        });
+        this.entries = newEntries;
+        this.grid = newGrid;
+        logger.info("Spatial index rebuilt with {} walks and {} cells in {} ms",
+            newEntries.size(), newGrid.size(), System.currentTimeMillis() - start);
+    }
+
+    // Aplicado só após o commit, para que um rollback não deixe a caminhada no índice
+    public void index(WalkEntity entity) {
+        long id = entity.getId();
+        Entry entry = entity.getMinLat() == null ? null : new Entry(id, entity.getStartTime().getEpochSecond(),
+            entity.getMinLat(), entity.getMaxLat(), entity.getMinLon(), entity.getMaxLon(),
+            entity.getCells().toArray(new String[0]));
+        afterCommit(() -> {
+            removeNow(id);
+            if (entry != null) {
+                add(entries, grid, entry);
+            }
+        });
+    }
+
+    public void remove(long id) {
+        afterCommit(() -> removeNow(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void removeNow(long id) {
+        Entry old = entries.remove(id);
+        if (old != null) {
+            for (String cell : old.cells()) {
+                grid.computeIfPresent(cell, (key, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+
+    // Caminhadas com algum ponto dentro do retângulo, mais recentes primeiro
+    public List<Long> searchBox(double minLat, double minLon, double maxLat, double maxLon, int limit) {
+        return search(minLat, minLon, maxLat, maxLon, entry -> true, limit);
+    }
+
+    // Caminhadas que passam a até radiusMeters do ponto (precisão de uma célula, ~150 m)
+    public List<Long> searchNear(double lat, double lon, double radiusMeters, int limit) {
+        double dLat = radiusMeters / METERS_PER_DEGREE_LAT;
+        double dLon = dLat / Math.max(Math.cos(Math.toRadians(lat)), 1e-6);
+        return search(Math.max(lat - dLat, -90), lon - dLon, Math.min(lat + dLat, 90), lon + dLon,
+            entry -> distanceToBox(lat, lon, entry) <= radiusMeters, limit);
+    }
+
+    private List<Long> search(double minLat, double minLon, double maxLat, double maxLon,
+                              Predicate<Entry> filter, int limit) {
+        Map<Long, Entry> snapshot = entries;
+        Set<String> cover = Geohash.cover(minLat, minLon, maxLat, maxLon, Geohash.CELL_PRECISION, MAX_COVER_CELLS);
+        Collection<Long> candidates;
+        if (cover == null) {
+            candidates = snapshot.keySet();
+        } else {
+            candidates = new HashSet<>();
+            for (String cell : cover) {
+                Set<Long> ids = grid.get(cell);
+                if (ids != null) {
+                    candidates.addAll(ids);
+                }
+            }
+        }
+        return candidates.stream()
+            .map(snapshot::get)
+            .filter(entry -> entry != null
+                && entry.maxLat() >= minLat && entry.minLat() <= maxLat
+                && entry.maxLon() >= minLon && entry.minLon() <= maxLon
+                && filter.test(entry))
+            .sorted(Comparator.comparingLong(Entry::startEpochSecond).thenComparingLong(Entry::id).reversed())
+            .limit(limit)
+            .map(Entry::id)
+            .toList();
+    }
+
+    private static void add(Map<Long, Entry> entries, Map<String, Set<Long>> grid, Entry entry) {
+        entries.put(entry.id(), entry);
+        for (String cell : entry.cells()) {
+            grid.computeIfAbsent(cell, key -> ConcurrentHashMap.newKeySet()).add(entry.id());
+        }
+    }
+
+    private static double distanceToBox(double lat, double lon, Entry entry) {
+        double nearestLat = Math.max(entry.minLat(), Math.min(lat, entry.maxLat()));
+        double nearestLon = Math.max(entry.minLon(), Math.min(lon, entry.maxLon()));
+        return GeometryService.distanceMeters(new double[] {lat, lon, nearestLat, nearestLon});
+    }
+}
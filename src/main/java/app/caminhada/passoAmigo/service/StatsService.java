@@ -0,0 +1,246 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.dto.StatsBucketDTO;
+import app.caminhada.passoAmigo.dto.UserStatsDTO;
+import app.caminhada.passoAmigo.model.UserDailyStatsEntity;
+import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.repository.DailyWalkStats;
+import app.caminhada.passoAmigo.repository.UserDailyStatsRepository;
+import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.repository.WalkTotals;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Estatísticas de caminhadas por dia, semana e mês.
+ *
+ * As leituras vêm da tabela user_daily_stats, que DatabaseService mantém na
+ * mesma transação de cada gravação de caminhada; o custo é proporcional aos
+ * dias pedidos, não ao histórico. rebuildAll() recalcula a tabela a partir das
+ * caminhadas (GROUP BY startDay), em paralelo por lotes de usuários.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class StatsService {
+    private static final Logger logger = LoggerFactory.getLogger(StatsService.class);
+
+    public static final int DEFAULT_RANGE_DAYS = 31;
+    public static final int MAX_RANGE_DAYS = 3660;
+    private static final int REBUILD_CHUNK_SIZE = 100;
+    private static final LocalDate MIN_DAY = LocalDate.of(1900, 1, 1);
+    private static final LocalDate MAX_DAY = LocalDate.of(9999, 12, 31);
+
+    private final WalkRepository walkRepository;
+    private final UserDailyStatsRepository dailyStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+    private final ZoneId zone;
+
+    @Value("${app.stats.rebuild.parallelism:0}")
+    private int rebuildParallelism;
+
+    public StatsService(WalkRepository walkRepository,
+                        UserDailyStatsRepository dailyStatsRepository,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.stats.zone:UTC}") String zone) {
+        this.walkRepository = walkRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.zone = ZoneId.of(zone);
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // Dia de uma caminhada no fuso das estatísticas
+    public LocalDate dayOf(Instant startTime) {
+        return LocalDate.ofInstant(startTime, zone);
+    }
+
+    public UserStatsDTO getUserStats(String userId, LocalDate from, LocalDate to) {
+        LocalDate end = to != null ? to : LocalDate.now(zone);
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_RANGE_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("Período inválido: 'from' deve ser anterior a 'to'");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Período máximo de " + MAX_RANGE_DAYS + " dias");
+        }
+
+        List<DailyWalkStats> rows = dailyStatsRepository.findDaily(userId, start, end);
+        WalkTotals totals = dailyStatsRepository.findTotals(userId);
+
+        List<StatsBucketDTO> daily = new ArrayList<>(rows.size());
+        Map<LocalDate, StatsBucketDTO> weekly = new TreeMap<>();
+        Map<LocalDate, StatsBucketDTO> monthly = new TreeMap<>();
+        for (DailyWalkStats row : rows) {
+            double distance = row.getDistanceMeters() != null ? row.getDistanceMeters() : 0.0;
+            long count = row.getWalkCount() != null ? row.getWalkCount() : 0L;
+            long duration = row.getDurationSeconds() != null ? row.getDurationSeconds() : 0L;
+
+            daily.add(new StatsBucketDTO(row.getDay().toString()).add(distance, count, duration));
+            LocalDate week = row.getDay().with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            weekly.computeIfAbsent(week, d -> new StatsBucketDTO(d.toString())).add(distance, count, duration);
+            LocalDate month = row.getDay().withDayOfMonth(1);
+            monthly.computeIfAbsent(month, d -> new StatsBucketDTO(d.toString())).add(distance, count, duration);
+        }
+
+        UserStatsDTO stats = new UserStatsDTO();
+        stats.setUserId(userId);
+        stats.setZone(zone.getId());
+        stats.setFrom(start.toString());
+        stats.setTo(end.toString());
+        stats.setTotals(new StatsBucketDTO().add(
+            totals.getDistanceMeters() != null ? totals.getDistanceMeters() : 0.0,
+            totals.getWalkCount() != null ? totals.getWalkCount() : 0L,
+            totals.getDurationSeconds() != null ? totals.getDurationSeconds() : 0L));
+        stats.setDaily(daily);
+        stats.setWeekly(new ArrayList<>(weekly.values()));
+        stats.setMonthly(new ArrayList<>(monthly.values()));
+        return stats;
+    }
+
+    // Chamados por DatabaseService dentro da transação da gravação da caminhada
+    public void onWalkSaved(WalkEntity walk) {
+        applyDelta(walk, 1);
+    }
+
+    public void onWalkDeleted(WalkEntity walk) {
+        applyDelta(walk, -1);
+    }
+
+    // Usuário excluído junto com as caminhadas: os totais diários saem de uma vez
+    public void onUserDeleted(String userId) {
+        dailyStatsRepository.deleteByUserId(userId);
+    }
+
+    private void applyDelta(WalkEntity walk, int sign) {
+        if (walk.getStartDay() == null) {
+            return;
+        }
+        applyDelta(walk.getUserId(), walk.getStartDay(),
+            sign * (walk.getDistanceMeters() != null ? walk.getDistanceMeters() : 0.0),
+            sign,
+            sign * (walk.getDuration() != null ? walk.getDuration() : 0L));
+    }
+
+    public void applyDelta(String userId, LocalDate day, double distance, long count, long duration) {
+        if (dailyStatsRepository.addDelta(userId, day, distance, count, duration) > 0) {
+            return;
+        }
+        // Primeira caminhada do dia: cria a linha zerada em transação própria (um
+        // insert concorrente do mesmo dia só viola a chave única) e repete o incremento
+        ensureRow(userId, day);
+        dailyStatsRepository.addDelta(userId, day, distance, count, duration);
+    }
+
+    private void ensureRow(String userId, LocalDate day) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                if (!dailyStatsRepository.existsByUserIdAndDay(userId, day)) {
+                    UserDailyStatsEntity row = new UserDailyStatsEntity();
+                    row.setUserId(userId);
+                    row.setDay(day);
+                    dailyStatsRepository.saveAndFlush(row);
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Daily stats row for user {} on {} created concurrently", userId, day);
+        }
+    }
+
+    /**
+     * Recalcula user_daily_stats a partir das caminhadas. Usuários são divididos
+     * em lotes processados em paralelo; cada usuário é regravado em uma transação.
+     * Retorna o número de usuários processados.
+     */
+    public int rebuildAll() throws InterruptedException, ExecutionException {
+        long start = System.currentTimeMillis();
+        List<String> userIds = walkRepository.findDistinctUserIds();
+        int threads = rebuildParallelism > 0 ? rebuildParallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger rows = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int i = 0; i < userIds.size(); i += REBUILD_CHUNK_SIZE) {
+                List<String> chunk = userIds.subList(i, Math.min(i + REBUILD_CHUNK_SIZE, userIds.size()));
+                tasks.add(executor.submit(() -> chunk.forEach(userId -> rows.addAndGet(rebuildUser(userId)))));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        logger.info("Rebuilt daily stats for {} users ({} rows) in {} ms",
+            userIds.size(), rows.get(), System.currentTimeMillis() - start);
+        return userIds.size();
+    }
+
+    public int rebuildUser(String userId) {
+        Integer rows = transactionTemplate.execute(status -> {
+            dailyStatsRepository.deleteByUserId(userId);
+            List<UserDailyStatsEntity> days = new ArrayList<>();
+            for (DailyWalkStats row : walkRepository.aggregateDailyByUser(userId, MIN_DAY, MAX_DAY)) {
+                UserDailyStatsEntity entity = new UserDailyStatsEntity();
+                entity.setUserId(userId);
+                entity.setDay(row.getDay());
+                entity.setDistanceMeters(row.getDistanceMeters() != null ? row.getDistanceMeters() : 0.0);
+                entity.setWalkCount(row.getWalkCount() != null ? row.getWalkCount() : 0L);
+                entity.setDurationSeconds(row.getDurationSeconds() != null ? row.getDurationSeconds() : 0L);
+                days.add(entity);
+            }
+            dailyStatsRepository.saveAll(days);
+            return days.size();
+        });
+        return rows != null ? rows : 0;
+    }
+
+    // Preenche startDay em caminhadas gravadas antes da coluna existir e,
+    // se houver alguma, recalcula os totais diários
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillStartDays() throws InterruptedException, ExecutionException {
+        int updated = 0;
+        List<WalkEntity> batch;
+        while (!(batch = walkRepository.findTop200ByStartDayIsNull()).isEmpty()) {
+            for (WalkEntity entity : batch) {
+                entity.setStartDay(dayOf(entity.getStartTime()));
+            }
+            walkRepository.saveAll(batch);
+            updated += batch.size();
+        }
+        if (updated > 0) {
+            logger.info("Backfilled startDay for {} walks", updated);
+            rebuildAll();
+        }
+    }
+}
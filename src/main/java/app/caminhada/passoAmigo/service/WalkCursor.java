@@ -0,0 +1,48 @@
+package app.caminhada.passoAmigo.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * Cursor de paginação de caminhadas: posição (startTime, id) da última
+ * caminhada entregue, codificada em base64 url-safe.
+ */
+final class WalkCursor {
+    // Primeira página: começa depois de qualquer caminhada possível
+    static final WalkCursor START = new WalkCursor(Instant.parse("9999-12-31T23:59:59Z"), Long.MAX_VALUE);
+
+    private final Instant startTime;
+    private final long id;
+
+    WalkCursor(Instant startTime, long id) {
+        this.startTime = startTime;
+        this.id = id;
+    }
+
+    Instant getStartTime() {
+        return startTime;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    String encode() {
+        String raw = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static WalkCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new WalkCursor(Instant.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
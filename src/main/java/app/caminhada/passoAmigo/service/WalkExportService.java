@@ -0,0 +1,127 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Exporta todas as caminhadas de um usuário direto para o OutputStream da resposta.
+ * As entidades são lidas em fluxo e descartadas do contexto de persistência após
+ * a escrita, então o uso de memória não cresce com o histórico.
+ */
+@Service
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class WalkExportService {
+
+    private final WalkRepository walkRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public WalkExportService(WalkRepository walkRepository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager) {
+        this.walkRepository = walkRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    // Uma caminhada (mesmo formato de GET /api/walks/{id}, via WalkSerializer) por linha
+    public void writeNdjson(String userId, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+            forEachWalk(userId, entity -> {
+                try {
+                    generator.writeObject(entity.toWalk());
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    // GPX 1.1 com uma trilha (trk) por caminhada
+    public void writeGpx(String userId, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<gpx version=\"1.1\" creator=\"passoAmigo\" xmlns=\"http://www.topografix.com/GPX/1/1\">\n");
+        char[] buf = new char[PolylineCodec.MAX_QUANTIZED_LENGTH];
+        forEachWalk(userId, entity -> {
+            try {
+                writer.write("  <trk>\n    <name>" + xmlText(String.valueOf(entity.getId())) + "</name>\n");
+                writer.write("    <desc>" + xmlText(String.valueOf(entity.getStartTime())) + "</desc>\n    <trkseg>\n");
+                double[] coords = entity.decodePolyline();
+                if (coords != null) {
+                    for (int i = 0; i + 1 < coords.length; i += 2) {
+                        if (!Double.isFinite(coords[i]) || !Double.isFinite(coords[i + 1])) {
+                            continue; // só em polylines legadas em texto; não há como representar em GPX
+                        }
+                        writer.write("      <trkpt lat=\"");
+                        writeDecimal(writer, coords[i], buf);
+                        writer.write("\" lon=\"");
+                        writeDecimal(writer, coords[i + 1], buf);
+                        writer.write("\"/>\n");
+                    }
+                }
+                writer.write("    </trkseg>\n  </trk>\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.write("</gpx>\n");
+        writer.flush();
+    }
+
+    // Texto de elemento XML: escapa os caracteres de marcação
+    private static String xmlText(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private void forEachWalk(String userId, Consumer<WalkEntity> action) throws IOException {
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<WalkEntity> walks = walkRepository.streamByUserId(userId)) {
+                    walks.forEach(entity -> {
+                        action.accept(entity);
+                        entityManager.detach(entity);
+                    });
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // xsd:decimal não aceita notação científica (Double.toString escreve 1.0E-4)
+    private static void writeDecimal(Writer writer, double value, char[] buf) throws IOException {
+        int length = PolylineCodec.formatQuantized(value, buf);
+        if (length >= 0) {
+            writer.write(buf, 0, length);
+        } else {
+            writer.write(BigDecimal.valueOf(value).toPlainString());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.dto.BatchResultDTO;
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
+import app.caminhada.passoAmigo.model.User;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.service.FirestoreService;
+import app.caminhada.passoAmigo.service.GeometryService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Backend Firestore (app.storage.type=firestore) sobre os métodos *Async do
+ * FirestoreService. A listagem paginada lê as caminhadas do usuário e pagina em
+ * memória, com a mesma ordem e cursor do backend JPA.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "firestore")
+public class FirestoreStore implements UserStore, WalkStore {
+
+    private final FirestoreService firestoreService;
+
+    public FirestoreStore(FirestoreService firestoreService) {
+        this.firestoreService = firestoreService;
+    }
+
+    // Users
+    @Override
+    public CompletableFuture<String> createUser(User user) {
+        return firestoreService.createUserAsync(user);
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(String id) {
+        return firestoreService.getUserAsync(id);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> listUsers() {
+        return firestoreService.listUsersAsync();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateUser(String id, User user) {
+        return firestoreService.updateUserAsync(id, user);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteUser(String id) {
+        return firestoreService.deleteUserAsync(id);
+    }
+
+    // Walks
+    @Override
+    public CompletableFuture<String> createWalk(Walk walk) {
+        GeometryService.enrich(walk);
+        return firestoreService.createWalkAsync(walk);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> createWalks(List<Walk> walks) {
+        walks.forEach(GeometryService::enrich);
+        return firestoreService.createWalksAsync(walks, null).thenApply(result -> {
+            List<String> ids = new ArrayList<>(Collections.nCopies(walks.size(), (String) null));
+            for (BatchResultDTO.Item item : result.getResults()) {
+                ids.set(item.getIndex(), item.getId());
+            }
+            return ids;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Walk> getWalk(String id) {
+        return firestoreService.getWalkAsync(id);
+    }
+
+    @Override
+    public CompletableFuture<PageDTO<Walk>> listWalksByUser(String userId, Instant from, Instant to,
+                                                            String cursor, int limit) {
+        // Valida o cursor antes de ir ao Firestore
+        WalkPager.decode(cursor);
+        return firestoreService.listWalksByUserAsync(userId)
+            .thenApply(walks -> WalkPager.page(walks, from, to, cursor, limit));
+    }
+
+    @Override
+    public CompletableFuture<PageDTO<WalkSummaryDTO>> listWalkSummariesByUser(String userId, Instant from, Instant to,
+                                                                              String cursor, int limit) {
+        return listWalksByUser(userId, from, to, cursor, limit)
+            .thenApply(page -> page.map(WalkSummaryDTO::fromWalk));
+    }
+
+    @Override
+    public CompletableFuture<ChangesDTO<Walk>> listWalkChangesByUser(String userId, long since, int limit) {
+        return firestoreService.listWalkChangesByUserAsync(userId, since, WalkPager.pageSize(limit));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateWalk(String id, Walk walk) {
+        GeometryService.enrich(walk);
+        return firestoreService.updateWalkAsync(id, walk);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteWalk(String id) {
+        return firestoreService.deleteWalkAsync(id);
+    }
+}
@@ -0,0 +1,723 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.config.MetricsConfig;
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
+import app.caminhada.passoAmigo.model.User;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.service.GeometryService;
+import app.caminhada.passoAmigo.util.ChangeClock;
+import app.caminhada.passoAmigo.util.LongHashMap;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Backend em memória (app.storage.type=memory), sem banco nem Firebase, para
+ * implantações de borda e testes de carga.
+ *
+ * Usuários e caminhadas ficam em mapas long -> registro (LongHashMap) divididos em
+ * faixas pelo id, cada uma com seu lock: escritas de usuários diferentes quase
+ * nunca disputam o mesmo lock. Cada usuário tem um índice das suas caminhadas
+ * ordenado por início, então a paginação não ordena nada, e a lista das suas
+ * alterações em ordem de versão (sincronização incremental). Polylines ficam
+ * compactadas pelo PolylineCodec e só são decodificadas ao devolver a caminhada.
+ *
+ * Persistência opcional:
+ * - app.storage.memory.snapshot-file: snapshot periódico (e ao desligar) em arquivo
+ *   mapeado em memória, recarregado na inicialização; alterações desde o último
+ *   snapshot se perdem numa queda.
+ * - app.storage.memory.wal-dir: modo durável. Cada alteração é um acréscimo no
+ *   WriteAheadLog, e o future da operação só conclui depois do fsync (em grupo).
+ *   Quando o log passa de app.storage.memory.wal.compact-size, um snapshot no mesmo
+ *   diretório substitui as gerações antigas. Na inicialização: snapshot + log.
+ */
+@Component
+@Timed(value = MetricsConfig.STORAGE_TIMER, histogram = true)
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "memory")
+public class InMemoryStore implements UserStore, WalkStore {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryStore.class);
+
+    private static final int STRIPES = 64; // potência de 2
+    private static final String WAL_SNAPSHOT = "snapshot.bin";
+    private static final CompletableFuture<Void> DONE = CompletableFuture.completedFuture(null);
+
+    private final Stripe<User>[] userStripes = newStripes();
+    private final Stripe<WalkRecord>[] walkStripes = newStripes();
+    private final Map<String, UserWalkIndex> walksByUser = new ConcurrentHashMap<>();
+    private final AtomicLong userIds = new AtomicLong();
+    private final AtomicLong walkIds = new AtomicLong();
+
+    // Conta as alterações para pular snapshots sem mudança
+    private final AtomicLong version = new AtomicLong();
+    private long snapshotVersion;
+
+    private final Path snapshotFile;
+    private final Duration snapshotInterval;
+    private final Path walDir;
+    private final long compactBytes;
+    private final Duration commitDelay;
+    private WriteAheadLog wal;
+    private ScheduledExecutorService scheduler;
+
+    // Sem snapshot nem log
+    InMemoryStore() {
+        this("", Duration.ZERO, "", DataSize.ofMegabytes(64), Duration.ZERO);
+    }
+
+    @Autowired
+    public InMemoryStore(@Value("${app.storage.memory.snapshot-file:}") String snapshotFile,
+                         @Value("${app.storage.memory.snapshot-interval:60s}") Duration snapshotInterval,
+                         @Value("${app.storage.memory.wal-dir:}") String walDir,
+                         @Value("${app.storage.memory.wal.compact-size:64MB}") DataSize compactSize,
+                         @Value("${app.storage.memory.wal.group-commit-delay:0ms}") Duration commitDelay) {
+        this.walDir = walDir != null && !walDir.isBlank() ? Path.of(walDir) : null;
+        if (this.walDir != null) {
+            if (snapshotFile != null && !snapshotFile.isBlank()) {
+                logger.warn("app.storage.memory.snapshot-file ignored: snapshots go to {} in durable mode", walDir);
+            }
+            this.snapshotFile = this.walDir.resolve(WAL_SNAPSHOT);
+        } else {
+            this.snapshotFile = snapshotFile != null && !snapshotFile.isBlank() ? Path.of(snapshotFile) : null;
+        }
+        this.snapshotInterval = snapshotInterval;
+        this.compactBytes = compactSize.toBytes();
+        this.commitDelay = commitDelay;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (snapshotFile == null) {
+            return;
+        }
+        long generation = 0;
+        if (Files.exists(snapshotFile)) {
+            generation = restore();
+        }
+        if (walDir != null) {
+            long begin = System.currentTimeMillis();
+            // Gerações anteriores ao snapshot sobram se a queda foi no meio de uma compactação
+            WriteAheadLog.deleteGenerationsBefore(walDir, generation);
+            WriteAheadLog.Replay replay = WriteAheadLog.replay(walDir, generation, this::apply);
+            wal = new WriteAheadLog(walDir, Math.max(generation, replay.lastGeneration() + 1), replay.bytes(), commitDelay);
+            logger.info("Replayed {} write-ahead log entries ({} bytes) in {} ms",
+                replay.entries(), replay.bytes(), System.currentTimeMillis() - begin);
+            if (replay.incomplete()) {
+                // Fixa o estado repetido e descarta a geração quebrada (e as puladas):
+                // as escritas novas iriam para depois da lacuna e seriam puladas na
+                // próxima inicialização, mesmo já confirmadas
+                snapshot();
+            }
+        }
+        if (snapshotInterval != null && !snapshotInterval.isZero() && !snapshotInterval.isNegative()) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "memory-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long millis = snapshotInterval.toMillis();
+            scheduler.scheduleWithFixedDelay(this::snapshotIfNeeded, millis, millis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        if (snapshotFile == null) {
+            return;
+        }
+        // Compacta ao desligar para a próxima inicialização não repetir o log
+        if (wal == null || wal.bytesSinceCompaction() > 0) {
+            snapshotIfChanged();
+        }
+        if (wal != null) {
+            wal.close();
+        }
+    }
+
+    // Users
+    @Override
+    public CompletableFuture<String> createUser(User user) {
+        long id = userIds.incrementAndGet();
+        User stored = copy(user, Long.toString(id));
+        Stripe<User> stripe = stripe(userStripes, id);
+        CompletableFuture<Void> logged;
+        long stamp = stripe.lock.writeLock();
+        try {
+            stored.setVersion(ChangeClock.next());
+            logged = log(WriteAheadLog.USER_PUT, MemorySnapshot.userSize(stored), b -> MemorySnapshot.putUser(b, stored));
+            stripe.map.put(id, stored);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+        version.incrementAndGet();
+        return logged.thenApply(v -> stored.getId());
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(String id) {
+        long key = parseId(id);
+        User user = key > 0 ? stripe(userStripes, key).get(key) : null;
+        return CompletableFuture.completedFuture(user != null ? copy(user, user.getId()) : null);
+    }
+
+    @Override
+    public CompletableFuture<List<User>> listUsers() {
+        List<User> result = new ArrayList<>();
+        for (Stripe<User> stripe : userStripes) {
+            stripe.collect(result, u -> copy(u, u.getId()));
+        }
+        result.sort(Comparator.comparing(User::getId, WalkPager.ID_ORDER));
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateUser(String id, User user) {
+        long key = parseId(id);
+        if (key <= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        User stored = copy(user, Long.toString(key));
+        Stripe<User> stripe = stripe(userStripes, key);
+        CompletableFuture<Void> logged;
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (stripe.map.get(key) == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            stored.setVersion(ChangeClock.next());
+            logged = log(WriteAheadLog.USER_PUT, MemorySnapshot.userSize(stored), b -> MemorySnapshot.putUser(b, stored));
+            stripe.map.put(key, stored);
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+        version.incrementAndGet();
+        return logged.thenApply(v -> true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteUser(String id) {
+        long key = parseId(id);
+        if (key <= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Stripe<User> stripe = stripe(userStripes, key);
+        CompletableFuture<Void> logged;
+        long stamp = stripe.lock.writeLock();
+        try {
+            if (stripe.map.get(key) == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            logged = log(WriteAheadLog.USER_DELETE, 8, b -> b.putLong(key));
+            stripe.map.remove(key);
+            removeWalksOf(Long.toString(key));
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+        version.incrementAndGet();
+        return logged.thenApply(v -> true);
+    }
+
+    private void removeWalksOf(String userId) {
+        UserWalkIndex index = walksByUser.remove(userId);
+        if (index == null) {
+            return;
+        }
+        for (long walkId : index.ids()) {
+            Stripe<WalkRecord> stripe = stripe(walkStripes, walkId);
+            long stamp = stripe.lock.writeLock();
+            try {
+                stripe.map.remove(walkId);
+            } finally {
+                stripe.lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    private static User copy(User user, String id) {
+        User copy = new User();
+        copy.setId(id);
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+
+    // Walks
+    @Override
+    public CompletableFuture<String> createWalk(Walk walk) {
+        long id = walkIds.incrementAndGet();
+        return put(WalkRecord.of(id, enriched(walk)), false).thenApply(created -> Long.toString(id));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> createWalks(List<Walk> batch) {
+        List<String> ids = new ArrayList<>(batch.size());
+        CompletableFuture<Boolean> last = CompletableFuture.completedFuture(true);
+        for (Walk walk : batch) {
+            long id = walkIds.incrementAndGet();
+            last = put(WalkRecord.of(id, enriched(walk)), false);
+            ids.add(Long.toString(id));
+        }
+        // O log é sequencial: o fsync do último registro cobre todos os anteriores
+        return last.thenApply(v -> ids);
+    }
+
+    private static Walk enriched(Walk walk) {
+        GeometryService.enrich(walk);
+        return walk;
+    }
+
+    /**
+     * Grava o registro (update exige que a caminhada exista). O registro entra no log
+     * e no mapa sob o lock da faixa, então alterações no mesmo id saem na mesma ordem
+     * no log e na memória. A versão é tirada com o índice do usuário travado: na
+     * lista de alterações de cada usuário a ordem é a das versões, e a marca d'água
+     * da sincronização nunca pula uma gravação ainda em andamento.
+     */
+    private CompletableFuture<Boolean> put(WalkRecord record, boolean mustExist) {
+        Stripe<WalkRecord> stripe = stripe(walkStripes, record.id());
+        CompletableFuture<Void> logged;
+        long stamp = stripe.lock.writeLock();
+        try {
+            WalkRecord previous = stripe.map.get(record.id());
+            if (mustExist && previous == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            logged = withIndexes(record.userId(), previous != null ? previous.userId() : record.userId(), () -> {
+                WalkRecord versioned = record.withVersion(ChangeClock.next());
+                CompletableFuture<Void> done = log(WriteAheadLog.WALK_PUT, MemorySnapshot.walkSize(versioned),
+                    b -> MemorySnapshot.putWalk(b, versioned));
+                putLocked(stripe, versioned);
+                return done;
+            });
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+        version.incrementAndGet();
+        return logged.thenApply(v -> true);
+    }
+
+    // Trava os índices dos dois usuários (o mesmo, fora das mudanças de dono) em ordem fixa
+    private <T> T withIndexes(String userId, String otherUserId, Supplier<T> action) {
+        UserWalkIndex index = index(userId);
+        if (userId.equals(otherUserId)) {
+            synchronized (index) {
+                return action.get();
+            }
+        }
+        UserWalkIndex other = index(otherUserId);
+        UserWalkIndex first = userId.compareTo(otherUserId) < 0 ? index : other;
+        UserWalkIndex second = first == index ? other : index;
+        synchronized (first) {
+            synchronized (second) {
+                return action.get();
+            }
+        }
+    }
+
+    // Chamado com o lock da faixa (ou na inicialização, antes de atender requisições)
+    private void putLocked(Stripe<WalkRecord> stripe, WalkRecord record) {
+        WalkRecord previous = stripe.map.put(record.id(), record);
+        UserWalkIndex index = index(record.userId());
+        if (previous == null) {
+            index.add(record.startMicros(), record.id());
+            index.changed(record.id(), record.version(), 0);
+        } else if (!previous.userId().equals(record.userId())) {
+            UserWalkIndex old = index(previous.userId());
+            old.remove(previous.startMicros(), record.id());
+            old.deleted(record.id(), record.version(), previous.version());
+            index.add(record.startMicros(), record.id());
+            index.changed(record.id(), record.version(), 0);
+        } else {
+            if (previous.startMicros() != record.startMicros()) {
+                index.remove(previous.startMicros(), record.id());
+                index.add(record.startMicros(), record.id());
+            }
+            index.changed(record.id(), record.version(), previous.version());
+        }
+    }
+
+    // Idempotente: repetido do log, o registro já pode ter saído (mas a exclusão fica)
+    private boolean removeLocked(Stripe<WalkRecord> stripe, MemorySnapshot.Tombstone tombstone) {
+        WalkRecord previous = stripe.map.remove(tombstone.walkId());
+        UserWalkIndex index = index(tombstone.userId());
+        if (previous != null) {
+            index.remove(previous.startMicros(), tombstone.walkId());
+        }
+        index.deleted(tombstone.walkId(), tombstone.version(), previous != null ? previous.version() : 0);
+        return previous != null;
+    }
+
+    @Override
+    public CompletableFuture<Walk> getWalk(String id) {
+        long key = parseId(id);
+        WalkRecord record = key > 0 ? stripe(walkStripes, key).get(key) : null;
+        return CompletableFuture.completedFuture(record != null ? record.toWalk() : null);
+    }
+
+    @Override
+    public CompletableFuture<PageDTO<Walk>> listWalksByUser(String userId, Instant from, Instant to,
+                                                            String cursor, int limit) {
+        return CompletableFuture.completedFuture(page(userId, from, to, cursor, limit).map(WalkRecord::toWalk));
+    }
+
+    // Resumos direto dos registros, sem decodificar polylines
+    @Override
+    public CompletableFuture<PageDTO<WalkSummaryDTO>> listWalkSummariesByUser(String userId, Instant from, Instant to,
+                                                                              String cursor, int limit) {
+        return CompletableFuture.completedFuture(page(userId, from, to, cursor, limit).map(InMemoryStore::toSummary));
+    }
+
+    private PageDTO<WalkRecord> page(String userId, Instant from, Instant to, String cursor, int limit) {
+        int size = WalkPager.pageSize(limit);
+        Walk after = WalkPager.decode(cursor);
+        long afterStart = Long.MAX_VALUE;
+        long afterId = Long.MAX_VALUE;
+        if (after != null) {
+            afterStart = micros(after.getStartTime());
+            afterId = parseId(after.getId());
+            if (afterId <= 0) {
+                throw new IllegalArgumentException("Cursor de paginação inválido");
+            }
+        }
+        UserWalkIndex index = walksByUser.get(userId);
+        if (index == null) {
+            return new PageDTO<>(List.of(), null);
+        }
+        long[] ids = index.page(from != null ? micros(from) : Long.MIN_VALUE, to != null ? micros(to) : Long.MAX_VALUE,
+            afterStart, afterId, size + 1);
+        List<WalkRecord> rows = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            WalkRecord record = stripe(walkStripes, id).get(id);
+            if (record != null) { // excluída depois da leitura do índice
+                rows.add(record);
+            }
+        }
+        String nextCursor = null;
+        if (ids.length > size && !rows.isEmpty()) {
+            rows = rows.subList(0, Math.min(size, rows.size()));
+            WalkRecord last = rows.get(rows.size() - 1);
+            nextCursor = WalkPager.encode(last.startTime(), Long.toString(last.id()));
+        }
+        return new PageDTO<>(rows, nextCursor);
+    }
+
+    private static WalkSummaryDTO toSummary(WalkRecord record) {
+        WalkSummaryDTO dto = new WalkSummaryDTO();
+        dto.setId(Long.toString(record.id()));
+        dto.setUserId(record.userId());
+        dto.setStartTime(record.startTime().toString());
+        dto.setEndTime(record.endTime() != null ? record.endTime().toString() : null);
+        dto.setDistanceMeters(record.distanceMeters());
+        dto.setDuration(record.duration());
+        return dto;
+    }
+
+    @Override
+    public CompletableFuture<ChangesDTO<Walk>> listWalkChangesByUser(String userId, long since, int limit) {
+        int size = WalkPager.pageSize(limit);
+        UserWalkIndex index = walksByUser.get(userId);
+        long[] changes = index != null ? index.changes(since, size + 1) : new long[0];
+        int count = Math.min(size, changes.length / 2);
+        List<Walk> items = new ArrayList<>(count);
+        Set<String> deleted = new LinkedHashSet<>();
+        long watermark = since;
+        for (int i = 0; i < count; i++) {
+            watermark = changes[i * 2];
+            long id = changes[i * 2 + 1];
+            if (id < 0) {
+                deleted.add(Long.toString(-id));
+                continue;
+            }
+            WalkRecord record = stripe(walkStripes, id).get(id);
+            // Alterada depois da leitura da lista: vai a versão atual, ou a exclusão mais adiante
+            if (record != null && record.userId().equals(userId)) {
+                items.add(record.toWalk());
+            }
+        }
+        // Caminhada que saiu e voltou para o usuário: vale a gravação, que é mais recente
+        items.forEach(walk -> deleted.remove(walk.getId()));
+        return CompletableFuture.completedFuture(
+            new ChangesDTO<>(items, new ArrayList<>(deleted), watermark, changes.length / 2 > size));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateWalk(String id, Walk walk) {
+        long key = parseId(id);
+        if (key <= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return put(WalkRecord.of(key, enriched(walk)), true);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteWalk(String id) {
+        long key = parseId(id);
+        if (key <= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        Stripe<WalkRecord> stripe = stripe(walkStripes, key);
+        CompletableFuture<Void> logged;
+        long stamp = stripe.lock.writeLock();
+        try {
+            WalkRecord previous = stripe.map.get(key);
+            if (previous == null) {
+                return CompletableFuture.completedFuture(false);
+            }
+            logged = withIndexes(previous.userId(), previous.userId(), () -> {
+                MemorySnapshot.Tombstone tombstone = new MemorySnapshot.Tombstone(key, previous.userId(), ChangeClock.next());
+                CompletableFuture<Void> done = log(WriteAheadLog.WALK_DELETE, MemorySnapshot.tombstoneSize(tombstone),
+                    b -> MemorySnapshot.putTombstone(b, tombstone));
+                removeLocked(stripe, tombstone);
+                return done;
+            });
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+        version.incrementAndGet();
+        return logged.thenApply(v -> true);
+    }
+
+    private UserWalkIndex index(String userId) {
+        return walksByUser.computeIfAbsent(userId, u -> new UserWalkIndex());
+    }
+
+    // Persistência
+
+    private CompletableFuture<Void> log(byte type, int size, Consumer<ByteBuffer> writer) {
+        return wal != null ? wal.append(type, size, writer) : DONE;
+    }
+
+    // Repete um registro do log na inicialização; put e delete são idempotentes
+    private void apply(WriteAheadLog.Entry entry) {
+        ByteBuffer payload = entry.payload();
+        switch (entry.type()) {
+            case WriteAheadLog.USER_PUT, WriteAheadLog.USER_PUT_V1 -> {
+                User user = MemorySnapshot.getUser(payload, entry.type() == WriteAheadLog.USER_PUT);
+                long id = parseId(user.getId());
+                stripe(userStripes, id).map.put(id, versioned(user));
+                userIds.accumulateAndGet(id, Math::max);
+            }
+            case WriteAheadLog.USER_DELETE -> {
+                long id = payload.getLong();
+                stripe(userStripes, id).map.remove(id);
+                removeWalksOf(Long.toString(id));
+            }
+            case WriteAheadLog.WALK_PUT, WriteAheadLog.WALK_PUT_V1 -> {
+                WalkRecord record = versioned(MemorySnapshot.getWalk(payload, entry.type() == WriteAheadLog.WALK_PUT));
+                putLocked(stripe(walkStripes, record.id()), record);
+                walkIds.accumulateAndGet(record.id(), Math::max);
+            }
+            case WriteAheadLog.WALK_DELETE -> {
+                MemorySnapshot.Tombstone tombstone = MemorySnapshot.getTombstone(payload);
+                ChangeClock.advanceTo(tombstone.version());
+                removeLocked(stripe(walkStripes, tombstone.walkId()), tombstone);
+            }
+            case WriteAheadLog.WALK_DELETE_V1 -> {
+                long id = payload.getLong();
+                Stripe<WalkRecord> stripe = stripe(walkStripes, id);
+                WalkRecord previous = stripe.map.get(id);
+                if (previous != null) {
+                    removeLocked(stripe, new MemorySnapshot.Tombstone(id, previous.userId(), ChangeClock.next()));
+                }
+            }
+            default -> throw new IllegalStateException("Tipo de registro desconhecido no log: " + entry.type());
+        }
+    }
+
+    // Registros lidos: versões gravadas adiantam o ChangeClock; formato antigo (0) recebe uma nova
+    private static User versioned(User user) {
+        if (user.getVersion() > 0) {
+            ChangeClock.advanceTo(user.getVersion());
+        } else {
+            user.setVersion(ChangeClock.next());
+        }
+        return user;
+    }
+
+    private static WalkRecord versioned(WalkRecord record) {
+        if (record.version() > 0) {
+            ChangeClock.advanceTo(record.version());
+            return record;
+        }
+        return record.withVersion(ChangeClock.next());
+    }
+
+    /**
+     * Grava todos os dados no arquivo de snapshot e retorna o número de caminhadas.
+     * Cada faixa é copiada sob seu lock de leitura; escritas concorrentes em outras
+     * faixas podem ou não entrar. No modo durável o log troca de geração antes da
+     * cópia, então o que não entrou está na geração nova e é repetido por cima.
+     */
+    public synchronized int snapshot() throws IOException {
+        if (snapshotFile == null) {
+            throw new IllegalStateException("app.storage.memory.snapshot-file não configurado");
+        }
+        long start = System.currentTimeMillis();
+        long current = version.get();
+        long generation = wal != null ? wal.rotate() : 0;
+        List<User> users = new ArrayList<>();
+        for (Stripe<User> stripe : userStripes) {
+            stripe.collect(users, Function.identity());
+        }
+        List<WalkRecord> walks = new ArrayList<>();
+        for (Stripe<WalkRecord> stripe : walkStripes) {
+            stripe.collect(walks, Function.identity());
+        }
+        // Depois das caminhadas: a exclusão de uma mudança de dono copiada já está no índice
+        List<MemorySnapshot.Tombstone> tombstones = new ArrayList<>();
+        walksByUser.forEach((userId, index) -> {
+            long[] pairs = index.tombstones();
+            for (int i = 0; i < pairs.length; i += 2) {
+                tombstones.add(new MemorySnapshot.Tombstone(pairs[i + 1], userId, pairs[i]));
+            }
+        });
+        // Lidas depois das faixas: nenhum id copiado é maior que a sequência gravada
+        MemorySnapshot.write(snapshotFile,
+            new MemorySnapshot.Data(userIds.get(), walkIds.get(), generation, users, walks, tombstones));
+        if (wal != null) {
+            wal.deleteBefore(generation);
+        }
+        snapshotVersion = current;
+        logger.info("Snapshot of {} users and {} walks written to {} in {} ms",
+            users.size(), walks.size(), snapshotFile, System.currentTimeMillis() - start);
+        return walks.size();
+    }
+
+    // Tarefa periódica: no modo durável compacta pelo tamanho do log, senão grava se mudou
+    private void snapshotIfNeeded() {
+        if (wal != null && wal.bytesSinceCompaction() < compactBytes) {
+            return;
+        }
+        snapshotIfChanged();
+    }
+
+    private synchronized void snapshotIfChanged() {
+        if (version.get() == snapshotVersion && (wal == null || wal.bytesSinceCompaction() == 0)) {
+            return;
+        }
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error writing snapshot to {}", snapshotFile, e);
+        }
+    }
+
+    // Carrega o snapshot e retorna a geração do log a partir da qual repetir
+    private long restore() throws IOException {
+        long start = System.currentTimeMillis();
+        MemorySnapshot.Data data = MemorySnapshot.read(snapshotFile);
+        for (User user : data.users()) {
+            long id = parseId(user.getId());
+            stripe(userStripes, id).map.put(id, versioned(user));
+        }
+        for (WalkRecord walk : data.walks()) {
+            putLocked(stripe(walkStripes, walk.id()), versioned(walk));
+        }
+        for (MemorySnapshot.Tombstone tombstone : data.tombstones()) {
+            ChangeClock.advanceTo(tombstone.version());
+            index(tombstone.userId()).deleted(tombstone.walkId(), tombstone.version(), 0);
+        }
+        userIds.set(data.userSeq());
+        walkIds.set(data.walkSeq());
+        logger.info("Restored {} users and {} walks from {} in {} ms",
+            data.users().size(), data.walks().size(), snapshotFile, System.currentTimeMillis() - start);
+        return data.logGeneration();
+    }
+
+    // Ids
+
+    // Id numérico positivo, ou -1 (ids de outros backends nunca existem aqui)
+    private static long parseId(String id) {
+        if (id == null) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // Microssegundos desde a época, saturado nos extremos (filtros from/to arbitrários)
+    static long micros(Instant instant) {
+        long seconds = instant.getEpochSecond();
+        if (seconds >= Long.MAX_VALUE / 1_000_000L) {
+            return Long.MAX_VALUE;
+        }
+        if (seconds <= Long.MIN_VALUE / 1_000_000L) {
+            return Long.MIN_VALUE;
+        }
+        return seconds * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private static <V> Stripe<V> stripe(Stripe<V>[] stripes, long id) {
+        return stripes[(int) (id & (STRIPES - 1))];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <V> Stripe<V>[] newStripes() {
+        Stripe<V>[] stripes = (Stripe<V>[]) new Stripe<?>[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>();
+        }
+        return stripes;
+    }
+
+    private static final class Stripe<V> {
+        final StampedLock lock = new StampedLock();
+        final LongHashMap<V> map = new LongHashMap<>();
+
+        V get(long id) {
+            long stamp = lock.readLock();
+            try {
+                return map.get(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        <R> void collect(List<R> target, Function<V, R> mapper) {
+            long stamp = lock.readLock();
+            try {
+                map.forEachValue(v -> target.add(mapper.apply(v)));
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+    }
+}
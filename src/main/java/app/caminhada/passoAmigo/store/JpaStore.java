@@ -0,0 +1,105 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
+import app.caminhada.passoAmigo.model.User;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.service.DatabaseService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Backend JPA (padrão, app.storage.type=jpa): delega ao DatabaseService, que
+ * mantém cache, totais diários, níveis de simplificação e índice espacial.
+ * As chamadas são síncronas; os futures já saem concluídos.
+ */
+@Component
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "jpa", matchIfMissing = true)
+public class JpaStore implements UserStore, WalkStore {
+
+    private final DatabaseService databaseService;
+
+    public JpaStore(DatabaseService databaseService) {
+        this.databaseService = databaseService;
+    }
+
+    // Users
+    @Override
+    public CompletableFuture<String> createUser(User user) {
+        return CompletableFuture.completedFuture(databaseService.createUser(user));
+    }
+
+    @Override
+    public CompletableFuture<User> getUser(String id) {
+        return CompletableFuture.completedFuture(databaseService.getUser(id));
+    }
+
+    @Override
+    public CompletableFuture<List<User>> listUsers() {
+        return CompletableFuture.completedFuture(databaseService.listUsers());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateUser(String id, User user) {
+        return CompletableFuture.completedFuture(databaseService.updateUser(id, user));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteUser(String id) {
+        return CompletableFuture.completedFuture(databaseService.deleteUser(id));
+    }
+
+    // Walks
+    @Override
+    public CompletableFuture<String> createWalk(Walk walk) {
+        return CompletableFuture.completedFuture(databaseService.createWalk(walk));
+    }
+
+    @Override
+    public CompletableFuture<List<String>> createWalks(List<Walk> walks) {
+        return CompletableFuture.completedFuture(databaseService.createWalks(walks));
+    }
+
+    @Override
+    public CompletableFuture<Walk> getWalk(String id) {
+        return CompletableFuture.completedFuture(databaseService.getWalk(id));
+    }
+
+    @Override
+    public CompletableFuture<Walk> getWalkSimplified(String id, Double toleranceMeters, Integer zoom) {
+        return CompletableFuture.completedFuture(databaseService.getWalkSimplified(id, toleranceMeters, zoom));
+    }
+
+    @Override
+    public CompletableFuture<PageDTO<Walk>> listWalksByUser(String userId, Instant from, Instant to,
+                                                            String cursor, int limit) {
+        return CompletableFuture.completedFuture(databaseService.listWalksByUser(userId, from, to, cursor, limit));
+    }
+
+    @Override
+    public CompletableFuture<PageDTO<WalkSummaryDTO>> listWalkSummariesByUser(String userId, Instant from, Instant to,
+                                                                              String cursor, int limit) {
+        return CompletableFuture.completedFuture(databaseService.listWalkSummariesByUser(userId, from, to, cursor, limit)
+            .map(WalkSummaryDTO::fromSummary));
+    }
+
+    @Override
+    public CompletableFuture<ChangesDTO<Walk>> listWalkChangesByUser(String userId, long since, int limit) {
+        return CompletableFuture.completedFuture(databaseService.listWalkChangesByUser(userId, since, limit));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateWalk(String id, Walk walk) {
+        return CompletableFuture.completedFuture(databaseService.updateWalk(id, walk));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteWalk(String id) {
+        return CompletableFuture.completedFuture(databaseService.deleteWalk(id));
+    }
+}
@@ -0,0 +1,260 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.model.User;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Arquivo de snapshot do InMemoryStore, escrito e lido por mmap.
+ *
+ * Layout: magic, versão, sequências de ids de usuários e caminhadas, geração do
+ * log a partir da qual repetir (versão 2), usuários, caminhadas (polyline já no
+ * formato do PolylineCodec), caminhadas excluídas (versão 3) e CRC32 de tudo o que
+ * vem antes. Desde a versão 3 usuários e caminhadas levam a versão do ChangeClock;
+ * nas anteriores ela é lida como 0. A escrita vai para um
+ * arquivo temporário que substitui o anterior com um move atômico, então um
+ * snapshot pela metade nunca é lido.
+ *
+ * A codificação de usuários e caminhadas também é usada pelo WriteAheadLog.
+ */
+final class MemorySnapshot {
+
+    private static final int MAGIC = 0x50415731; // "PAW1"
+    private static final int VERSION = 3;
+    private static final int NULL_LENGTH = -1;
+
+    record Data(long userSeq, long walkSeq, long logGeneration, List<User> users, List<WalkRecord> walks,
+                List<Tombstone> tombstones) {
+    }
+
+    // Caminhada excluída (ou movida de userId para outro usuário) na versão informada
+    record Tombstone(long walkId, String userId, long version) {
+    }
+
+    private MemorySnapshot() {
+    }
+
+    static void write(Path file, Data data) throws IOException {
+        long size = 4 + 4 + 8 + 8 + 8 + 4 + 4 + 4 + 8;
+        for (User user : data.users()) {
+            size += userSize(user);
+        }
+        for (WalkRecord walk : data.walks()) {
+            size += walkSize(walk);
+        }
+        for (Tombstone tombstone : data.tombstones()) {
+            size += tombstoneSize(tombstone);
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Snapshot excede 2 GB: " + size + " bytes");
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(data.userSeq()).putLong(data.walkSeq()).putLong(data.logGeneration());
+            buffer.putInt(data.users().size());
+            for (User user : data.users()) {
+                putUser(buffer, user);
+            }
+            buffer.putInt(data.walks().size());
+            for (WalkRecord walk : data.walks()) {
+                putWalk(buffer, walk);
+            }
+            buffer.putInt(data.tombstones().size());
+            for (Tombstone tombstone : data.tombstones()) {
+                putTombstone(buffer, tombstone);
+            }
+            buffer.putLong(crc(buffer, buffer.position()));
+            buffer.force();
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static Data read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < 4 + 4 + 8 || size > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Snapshot inválido: " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodyEnd = (int) size - 8;
+            int version = buffer.getInt(4);
+            if (buffer.getInt(0) != MAGIC || version < 1 || version > VERSION || crc(buffer, bodyEnd) != buffer.getLong(bodyEnd)) {
+                throw new IllegalStateException("Snapshot corrompido: " + file);
+            }
+            buffer.position(8);
+            long userSeq = buffer.getLong();
+            long walkSeq = buffer.getLong();
+            long logGeneration = version >= 2 ? buffer.getLong() : 0;
+            boolean versioned = version >= 3;
+            int userCount = buffer.getInt();
+            List<User> users = new ArrayList<>(userCount);
+            for (int i = 0; i < userCount; i++) {
+                users.add(getUser(buffer, versioned));
+            }
+            int walkCount = buffer.getInt();
+            List<WalkRecord> walks = new ArrayList<>(walkCount);
+            for (int i = 0; i < walkCount; i++) {
+                walks.add(getWalk(buffer, versioned));
+            }
+            List<Tombstone> tombstones = new ArrayList<>();
+            if (versioned) {
+                int tombstoneCount = buffer.getInt();
+                for (int i = 0; i < tombstoneCount; i++) {
+                    tombstones.add(getTombstone(buffer));
+                }
+            }
+            return new Data(userSeq, walkSeq, logGeneration, users, walks, tombstones);
+        }
+    }
+
+    // Registros (versioned = false lê o formato anterior às versões)
+
+    static int userSize(User user) {
+        return stringSize(user.getId()) + stringSize(user.getName()) + stringSize(user.getEmail()) + 8;
+    }
+
+    static void putUser(ByteBuffer buffer, User user) {
+        putString(buffer, user.getId());
+        putString(buffer, user.getName());
+        putString(buffer, user.getEmail());
+        buffer.putLong(user.getVersion());
+    }
+
+    static User getUser(ByteBuffer buffer, boolean versioned) {
+        User user = new User();
+        user.setId(getString(buffer));
+        user.setName(getString(buffer));
+        user.setEmail(getString(buffer));
+        user.setVersion(versioned ? buffer.getLong() : 0);
+        return user;
+    }
+
+    static int walkSize(WalkRecord walk) {
+        return 8 + stringSize(walk.userId()) + 12 + 1 + 12 + 8 + 4 + 8 + 4
+            + (walk.polyline() != null ? walk.polyline().length : 0) + 8;
+    }
+
+    static void putWalk(ByteBuffer buffer, WalkRecord walk) {
+        buffer.putLong(walk.id());
+        putString(buffer, walk.userId());
+        putInstant(buffer, walk.startTime());
+        buffer.put((byte) (walk.endTime() != null ? 1 : 0));
+        putInstant(buffer, walk.endTime() != null ? walk.endTime() : Instant.EPOCH);
+        buffer.putDouble(walk.distanceMeters());
+        buffer.putInt(walk.duration() != null ? walk.duration() : NULL_LENGTH);
+        buffer.putDouble(walk.paceSecondsPerKm() != null ? walk.paceSecondsPerKm() : Double.NaN);
+        if (walk.polyline() != null) {
+            buffer.putInt(walk.polyline().length).put(walk.polyline());
+        } else {
+            buffer.putInt(NULL_LENGTH);
+        }
+        buffer.putLong(walk.version());
+    }
+
+    static WalkRecord getWalk(ByteBuffer buffer, boolean versioned) {
+        long id = buffer.getLong();
+        String userId = getString(buffer);
+        Instant start = getInstant(buffer);
+        boolean hasEnd = buffer.get() != 0;
+        Instant end = getInstant(buffer);
+        double distance = buffer.getDouble();
+        int duration = buffer.getInt();
+        double pace = buffer.getDouble();
+        int length = buffer.getInt();
+        byte[] polyline = null;
+        if (length != NULL_LENGTH) {
+            polyline = new byte[length];
+            buffer.get(polyline);
+        }
+        long version = versioned ? buffer.getLong() : 0;
+        return new WalkRecord(id, userId, start, hasEnd ? end : null, distance,
+            duration != NULL_LENGTH ? duration : null, Double.isNaN(pace) ? null : pace, polyline, version);
+    }
+
+    static int tombstoneSize(Tombstone tombstone) {
+        return 8 + stringSize(tombstone.userId()) + 8;
+    }
+
+    static void putTombstone(ByteBuffer buffer, Tombstone tombstone) {
+        buffer.putLong(tombstone.walkId());
+        putString(buffer, tombstone.userId());
+        buffer.putLong(tombstone.version());
+    }
+
+    static Tombstone getTombstone(ByteBuffer buffer) {
+        return new Tombstone(buffer.getLong(), getString(buffer), buffer.getLong());
+    }
+
+    private static long crc(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, length));
+        return crc.getValue();
+    }
+
+    private static int stringSize(String value) {
+        return 4 + (value != null ? utf8Length(value) : 0);
+    }
+
+    // Tamanho em UTF-8 sem alocar o array de bytes
+    private static int utf8Length(String value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (Character.isSurrogate(c)) {
+                length += 1; // getBytes troca surrogate isolado por '?'
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putInstant(ByteBuffer buffer, Instant value) {
+        buffer.putLong(value.getEpochSecond()).putInt(value.getNano());
+    }
+
+    private static Instant getInstant(ByteBuffer buffer) {
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+    }
+}
@@ -0,0 +1,28 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.model.User;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Armazenamento de usuários. O backend é escolhido na inicialização por
+ * app.storage.type (jpa, firestore ou memory); só o escolhido é carregado.
+ *
+ * Os métodos devolvem CompletableFuture para que backends remotos não prendam a
+ * thread da requisição; os locais devolvem futures já concluídos.
+ */
+public interface UserStore {
+
+    CompletableFuture<String> createUser(User user);
+
+    // null quando o usuário não existe
+    CompletableFuture<User> getUser(String id);
+
+    CompletableFuture<List<User>> listUsers();
+
+    CompletableFuture<Boolean> updateUser(String id, User user);
+
+    // Exclui também as caminhadas do usuário
+    CompletableFuture<Boolean> deleteUser(String id);
+}
@@ -0,0 +1,172 @@
+package app.caminhada.passoAmigo.store;
+
+import java.util.Arrays;
+
+/**
+ * Caminhadas de um usuário ordenadas por (início em microssegundos, id), em dois
+ * arrays paralelos. Caminhadas novas costumam ser as mais recentes e entram no
+ * fim sem deslocar nada. Cada usuário tem seu próprio monitor.
+ *
+ * Também guarda a lista de alterações do usuário para a sincronização incremental:
+ * (versão, id) da última gravação de cada caminhada e (versão, -id) das excluídas ou
+ * movidas para outro usuário, em ordem de versão. As versões vêm do ChangeClock e
+ * só crescem, então as alterações também entram no fim.
+ */
+final class UserWalkIndex {
+
+    private long[] starts = new long[8];
+    private long[] ids = new long[8];
+    private int size;
+
+    private long[] changeVersions = new long[8];
+    private long[] changeIds = new long[8];
+    private int changeCount;
+
+    synchronized void add(long start, long id) {
+        int pos = position(start, id);
+        if (pos >= 0) {
+            return;
+        }
+        pos = -pos - 1;
+        if (size == ids.length) {
+            starts = Arrays.copyOf(starts, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+        System.arraycopy(starts, pos, starts, pos + 1, size - pos);
+        System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+        starts[pos] = start;
+        ids[pos] = id;
+        size++;
+    }
+
+    synchronized void remove(long start, long id) {
+        int pos = position(start, id);
+        if (pos < 0) {
+            return;
+        }
+        System.arraycopy(starts, pos + 1, starts, pos, size - pos - 1);
+        System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+        size--;
+    }
+
+    // Caminhada gravada na versão version; a entrada da gravação anterior sai da lista
+    synchronized void changed(long id, long version, long previousVersion) {
+        removeChange(previousVersion, id);
+        insertChange(version, id);
+    }
+
+    // Caminhada excluída (ou movida) na versão version
+    synchronized void deleted(long id, long version, long previousVersion) {
+        removeChange(previousVersion, id);
+        insertChange(version, -id);
+    }
+
+    /**
+     * Até limit alterações com versão maior que since, em pares (versão, id) no
+     * array: id negativo é exclusão.
+     */
+    synchronized long[] changes(long since, int limit) {
+        int from = changePosition(since);
+        from = from >= 0 ? from + 1 : -from - 1;
+        int count = Math.min(limit, changeCount - from);
+        long[] result = new long[count * 2];
+        for (int i = 0; i < count; i++) {
+            result[i * 2] = changeVersions[from + i];
+            result[i * 2 + 1] = changeIds[from + i];
+        }
+        return result;
+    }
+
+    // Exclusões, em pares (versão, id), para o snapshot
+    synchronized long[] tombstones() {
+        long[] result = new long[changeCount * 2];
+        int count = 0;
+        for (int i = 0; i < changeCount; i++) {
+            if (changeIds[i] < 0) {
+                result[count++] = changeVersions[i];
+                result[count++] = -changeIds[i];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    private void insertChange(long version, long id) {
+        int pos = changePosition(version);
+        if (pos >= 0) {
+            changeIds[pos] = id; // repetição do log
+            return;
+        }
+        pos = -pos - 1;
+        if (changeCount == changeIds.length) {
+            changeVersions = Arrays.copyOf(changeVersions, changeCount * 2);
+            changeIds = Arrays.copyOf(changeIds, changeCount * 2);
+        }
+        System.arraycopy(changeVersions, pos, changeVersions, pos + 1, changeCount - pos);
+        System.arraycopy(changeIds, pos, changeIds, pos + 1, changeCount - pos);
+        changeVersions[pos] = version;
+        changeIds[pos] = id;
+        changeCount++;
+    }
+
+    private void removeChange(long version, long id) {
+        int pos = changePosition(version);
+        if (pos < 0 || changeIds[pos] != id) {
+            return;
+        }
+        System.arraycopy(changeVersions, pos + 1, changeVersions, pos, changeCount - pos - 1);
+        System.arraycopy(changeIds, pos + 1, changeIds, pos, changeCount - pos - 1);
+        changeCount--;
+    }
+
+    private int changePosition(long version) {
+        return Arrays.binarySearch(changeVersions, 0, changeCount, version);
+    }
+
+    synchronized long[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    /**
+     * Até limit ids, do mais recente para o mais antigo, com from <= início < to
+     * e posicionados antes de (afterStart, afterId) na ordem decrescente.
+     */
+    synchronized long[] page(long from, long to, long afterStart, long afterId, int limit) {
+        // Primeira posição (crescente) que não vem antes do cursor nem de "to"
+        int end = Math.min(lowerBound(to, Long.MIN_VALUE), lowerBound(afterStart, afterId));
+        long[] result = new long[Math.min(limit, end)];
+        int count = 0;
+        for (int i = end - 1; i >= 0 && count < result.length && starts[i] >= from; i--) {
+            result[count++] = ids[i];
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    // Índice da entrada ou -(ponto de inserção) - 1
+    private int position(long start, long id) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compare(starts[mid], ids[mid], start, id);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -lo - 1;
+    }
+
+    // Primeira posição com (start, id) >= (a chave informada)
+    private int lowerBound(long start, long id) {
+        int pos = position(start, id);
+        return pos >= 0 ? pos : -pos - 1;
+    }
+
+    private static int compare(long startA, long idA, long startB, long idB) {
+        int cmp = Long.compare(startA, startB);
+        return cmp != 0 ? cmp : Long.compare(idA, idB);
+    }
+}
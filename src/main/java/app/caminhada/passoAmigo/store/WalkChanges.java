@@ -0,0 +1,53 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.model.Walk;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Monta a resposta da sincronização incremental para backends que consultam
+ * caminhadas e exclusões separadamente (JPA e Firestore): junta as duas listas em
+ * ordem de versão até size alterações. Cada lista deve vir ordenada por versão com
+ * até size + 1 itens; o que sobrar indica que há mais.
+ *
+ * A marca d'água não passa de stable (ChangeClock.stable(), lido antes das consultas):
+ * uma gravação ainda sem commit com versão menor que as lidas entra na próxima
+ * sincronização. As alterações acima da marca voltam nela de novo, e o app as aplica
+ * outra vez sem efeito.
+ */
+public final class WalkChanges {
+
+    // Caminhada excluída (ou movida para outro usuário) na versão informada
+    public record Deletion(String walkId, long version) {
+    }
+
+    private WalkChanges() {
+    }
+
+    public static ChangesDTO<Walk> merge(List<Walk> walks, List<Deletion> deletions, long since, int size, long stable) {
+        List<Walk> items = new ArrayList<>();
+        Set<String> deleted = new LinkedHashSet<>();
+        long watermark = since;
+        int w = 0;
+        int d = 0;
+        while (w + d < size && (w < walks.size() || d < deletions.size())) {
+            if (d == deletions.size() || (w < walks.size() && walks.get(w).getVersion() < deletions.get(d).version())) {
+                Walk walk = walks.get(w++);
+                items.add(walk);
+                watermark = walk.getVersion();
+            } else {
+                Deletion deletion = deletions.get(d++);
+                deleted.add(deletion.walkId());
+                watermark = deletion.version();
+            }
+        }
+        // Caminhada que saiu e voltou para o usuário: vale a gravação, que é mais recente
+        items.forEach(walk -> deleted.remove(walk.getId()));
+        boolean more = w < walks.size() || d < deletions.size();
+        return new ChangesDTO<>(items, new ArrayList<>(deleted), Math.max(since, Math.min(watermark, stable)), more);
+    }
+}
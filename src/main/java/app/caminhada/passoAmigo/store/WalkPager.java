@@ -0,0 +1,78 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.model.Walk;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Paginação em memória para backends sem consulta por cursor: mesma ordem
+ * (startTime, id) decrescente e mesmo formato de cursor do backend JPA.
+ * Ids numéricos são comparados pelo valor (tamanho, depois texto).
+ */
+final class WalkPager {
+
+    static final Comparator<String> ID_ORDER = Comparator.comparingInt(String::length)
+        .thenComparing(Comparator.naturalOrder());
+
+    static final Comparator<Walk> NEWEST_FIRST = Comparator.comparing(Walk::getStartTime)
+        .thenComparing(Walk::getId, ID_ORDER)
+        .reversed();
+
+    private WalkPager() {
+    }
+
+    static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, WalkStore.MAX_PAGE_SIZE));
+    }
+
+    // walks: todas as caminhadas do usuário, em qualquer ordem
+    static PageDTO<Walk> page(Collection<Walk> walks, Instant from, Instant to, String cursor, int limit) {
+        int size = pageSize(limit);
+        Walk after = decode(cursor);
+        List<Walk> rows = walks.stream()
+            .filter(w -> from == null || !w.getStartTime().isBefore(from))
+            .filter(w -> to == null || w.getStartTime().isBefore(to))
+            .filter(w -> after == null || NEWEST_FIRST.compare(w, after) > 0)
+            .sorted(NEWEST_FIRST)
+            .limit(size + 1L)
+            .toList();
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            nextCursor = encode(rows.get(size - 1));
+        }
+        return new PageDTO<>(rows, nextCursor);
+    }
+
+    static String encode(Walk last) {
+        return encode(last.getStartTime(), last.getId());
+    }
+
+    static String encode(Instant startTime, String id) {
+        String raw = startTime + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Posição do cursor como uma caminhada só com startTime e id; null na primeira página
+    static Walk decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            Walk position = new Walk();
+            position.setStartTime(Instant.parse(raw.substring(0, sep)));
+            position.setId(raw.substring(sep + 1));
+            return position;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginação inválido");
+        }
+    }
+}
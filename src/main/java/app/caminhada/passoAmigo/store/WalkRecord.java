@@ -0,0 +1,47 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+
+import java.time.Instant;
+
+/**
+ * Caminhada como guardada pelo InMemoryStore: id primitivo e polyline compactada
+ * pelo PolylineCodec (2 a 3 bytes por coordenada em vez de 8). Imutável.
+ * version é a do ChangeClock, definida ao gravar (0 antes disso).
+ */
+record WalkRecord(long id, String userId, Instant startTime, Instant endTime, double distanceMeters,
+                  Integer duration, Double paceSecondsPerKm, byte[] polyline, long version) {
+
+    static WalkRecord of(long id, Walk walk) {
+        byte[] packed = walk.getPolyline() != null ? PolylineCodec.encode(walk.getPolyline().coordinates()) : null;
+        return new WalkRecord(id, walk.getUserId(), walk.getStartTime(), walk.getEndTime(),
+            walk.getDistanceMeters(), walk.getDuration(), walk.getPaceSecondsPerKm(), packed, 0);
+    }
+
+    WalkRecord withVersion(long version) {
+        return new WalkRecord(id, userId, startTime, endTime, distanceMeters, duration, paceSecondsPerKm, polyline, version);
+    }
+
+    // Chave de ordenação do índice por usuário
+    long startMicros() {
+        return InMemoryStore.micros(startTime);
+    }
+
+    Walk toWalk() {
+        Walk walk = new Walk();
+        walk.setId(Long.toString(id));
+        walk.setUserId(userId);
+        walk.setStartTime(startTime);
+        walk.setEndTime(endTime);
+        walk.setDistanceMeters(distanceMeters);
+        walk.setDuration(duration);
+        walk.setPaceSecondsPerKm(paceSecondsPerKm);
+        walk.setVersion(version);
+        if (polyline != null) {
+            walk.setPolyline(new Polyline(PolylineCodec.decode(polyline)));
+        }
+        return walk;
+    }
+}
@@ -0,0 +1,76 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.util.PolylineSimplifier;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Armazenamento de caminhadas (ver UserStore sobre a escolha do backend).
+ *
+ * Distância, duração e ritmo são calculados pelo backend antes de gravar
+ * (GeometryService.enrich). Caminhadas devolvidas podem estar em cache: não modificar.
+ */
+public interface WalkStore {
+
+    int DEFAULT_PAGE_SIZE = 50;
+    int MAX_PAGE_SIZE = 200;
+
+    CompletableFuture<String> createWalk(Walk walk);
+
+    // Ids na ordem da entrada; null nas posições que não foram gravadas
+    CompletableFuture<List<String>> createWalks(List<Walk> walks);
+
+    // null quando a caminhada não existe
+    CompletableFuture<Walk> getWalk(String id);
+
+    /**
+     * Caminhada com a polyline simplificada por tolerância (metros) ou zoom.
+     * O padrão simplifica na hora; o backend JPA usa os níveis pré-calculados.
+     */
+    default CompletableFuture<Walk> getWalkSimplified(String id, Double toleranceMeters, Integer zoom) {
+        if (toleranceMeters != null && toleranceMeters < 0) {
+            throw new IllegalArgumentException("Tolerância deve ser maior ou igual a zero");
+        }
+        if (toleranceMeters == null) {
+            // Valida o zoom mesmo que a caminhada não exista
+            PolylineSimplifier.toleranceForZoom(zoom, 0.0);
+        }
+        return getWalk(id).thenApply(walk -> {
+            if (walk == null || walk.getPolyline() == null || walk.getPolyline().isEmpty()) {
+                return walk;
+            }
+            double[] coords = walk.getPolyline().coordinates();
+            double tolerance = toleranceMeters != null
+                ? toleranceMeters
+                : PolylineSimplifier.toleranceForZoom(zoom, coords[0]);
+            Walk simplified = walk.copy();
+            simplified.setPolyline(new Polyline(PolylineSimplifier.simplify(coords, tolerance)));
+            return simplified;
+        });
+    }
+
+    // Página de caminhadas do usuário, mais recentes primeiro, com filtro opcional [from, to)
+    CompletableFuture<PageDTO<Walk>> listWalksByUser(String userId, Instant from, Instant to, String cursor, int limit);
+
+    // Igual a listWalksByUser, mas sem polyline
+    CompletableFuture<PageDTO<WalkSummaryDTO>> listWalkSummariesByUser(String userId, Instant from, Instant to,
+                                                                       String cursor, int limit);
+
+    /**
+     * Caminhadas do usuário criadas ou alteradas depois da versão since, e ids das
+     * excluídas (ou movidas para outro usuário), em ordem de versão, até limit
+     * alterações. since = 0 traz todas; a marca d'água devolvida é o since seguinte.
+     */
+    CompletableFuture<ChangesDTO<Walk>> listWalkChangesByUser(String userId, long since, int limit);
+
+    CompletableFuture<Boolean> updateWalk(String id, Walk walk);
+
+    CompletableFuture<Boolean> deleteWalk(String id);
+}
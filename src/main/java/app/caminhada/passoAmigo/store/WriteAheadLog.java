@@ -0,0 +1,386 @@
+package app.caminhada.passoAmigo.store;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Log de escrita antecipada (WAL) do InMemoryStore: arquivos só de acréscimo,
+ * mapeados em memória, um por geração (wal-<geração>.log).
+ *
+ * Registro: tamanho do conteúdo (int), CRC32 de tipo + conteúdo (int), tipo (byte)
+ * e conteúdo. O arquivo é pré-estendido com zeros; tamanho 0 marca o fim. Na
+ * leitura, um registro truncado ou com CRC errado (escrita interrompida por queda)
+ * encerra a geração.
+ *
+ * Commit em grupo: append só copia o registro para o mapeamento e devolve um future;
+ * uma thread faz o force (fsync) de tudo o que foi acrescentado desde o último e
+ * conclui de uma vez os futures cobertos. Enquanto um fsync roda, os acréscimos
+ * seguintes se acumulam para o próximo.
+ */
+final class WriteAheadLog implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(WriteAheadLog.class);
+
+    // 1, 3 e 4: formato anterior às versões (ChangeClock), só lidos na repetição
+    static final byte USER_PUT_V1 = 1;
+    static final byte USER_DELETE = 2;
+    static final byte WALK_PUT_V1 = 3;
+    static final byte WALK_DELETE_V1 = 4;
+    static final byte USER_PUT = 5;
+    static final byte WALK_PUT = 6;
+    static final byte WALK_DELETE = 7; // MemorySnapshot.Tombstone
+
+    private static final int HEADER = 9;
+    private static final int INITIAL_MAPPING = 1 << 20;
+    private static final int MAX_SEGMENT = 256 << 20;
+
+    // Um registro lido do log; payload fica posicionado no conteúdo
+    record Entry(byte type, ByteBuffer payload) {
+    }
+
+    // Resultado da leitura: última geração encontrada, bytes válidos e se alguma geração terminou antes do fim
+    record Replay(long lastGeneration, long bytes, long entries, boolean incomplete) {
+    }
+
+    private record Waiter(long end, CompletableFuture<Void> future) {
+    }
+
+    private final Path dir;
+    private final long commitDelayNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+    private final Thread flusher;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long generation;
+    private int position;
+    // Totais desde a abertura, contando todas as gerações
+    private long appendedTotal;
+    private long flushedTotal;
+    private long segmentBase;
+    private long bytesSinceCompaction;
+    private boolean closed;
+
+    WriteAheadLog(Path dir, long generation, long bytesSinceCompaction, Duration commitDelay) throws IOException {
+        this.dir = dir;
+        this.commitDelayNanos = commitDelay != null ? commitDelay.toNanos() : 0;
+        this.bytesSinceCompaction = bytesSinceCompaction;
+        Files.createDirectories(dir);
+        openSegment(generation);
+        flusher = new Thread(this::flushLoop, "wal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Acrescenta um registro; writer recebe um buffer com exatamente size bytes.
+     * O future conclui quando o registro estiver em disco.
+     */
+    CompletableFuture<Void> append(byte type, int size, Consumer<ByteBuffer> writer) {
+        if (HEADER + size > MAX_SEGMENT) {
+            throw new IllegalArgumentException("Registro excede o tamanho máximo do log: " + size + " bytes");
+        }
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Log fechado");
+            }
+            ensureCapacity(HEADER + size);
+            int start = position;
+            ByteBuffer payload = buffer.slice(start + HEADER, size);
+            writer.accept(payload);
+            buffer.put(start + 8, type);
+            buffer.putInt(start + 4, (int) crc(type, buffer.slice(start + HEADER, size)));
+            buffer.putInt(start, size);
+            position += HEADER + size;
+            appendedTotal += HEADER + size;
+            bytesSinceCompaction += HEADER + size;
+            waiters.add(new Waiter(appendedTotal, future));
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future;
+    }
+
+    // Bytes acrescentados desde o último snapshot (inclui os lidos na inicialização)
+    long bytesSinceCompaction() {
+        lock.lock();
+        try {
+            return bytesSinceCompaction;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fecha a geração atual (com fsync) e passa a escrever na próxima.
+     * Retorna a nova geração: um snapshot tirado depois disso cobre as anteriores.
+     */
+    long rotate() throws IOException {
+        lock.lock();
+        try {
+            rotateLocked();
+            bytesSinceCompaction = 0;
+            return generation;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Remove as gerações já cobertas por um snapshot
+    void deleteBefore(long generation) throws IOException {
+        deleteGenerationsBefore(dir, generation);
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            appended.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        lock.lock();
+        try {
+            syncLocked();
+            channel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void ensureCapacity(int size) throws UncheckedIOException {
+        if (position + size <= buffer.capacity()) {
+            return;
+        }
+        try {
+            long needed = (long) position + size;
+            if (needed <= MAX_SEGMENT) {
+                // Cresce o mapeamento; o que já foi escrito vai a disco antes da troca
+                syncLocked();
+                long capacity = buffer.capacity();
+                while (capacity < needed) {
+                    capacity *= 2;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.min(capacity, MAX_SEGMENT));
+            } else {
+                rotateLocked();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void rotateLocked() throws IOException {
+        syncLocked();
+        channel.close();
+        openSegment(generation + 1);
+    }
+
+    private void openSegment(long generation) throws IOException {
+        this.generation = generation;
+        channel = FileChannel.open(dir.resolve(fileName(generation)),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_MAPPING);
+        position = 0;
+        segmentBase = appendedTotal;
+    }
+
+    // fsync síncrono de tudo o que está pendente no segmento atual (com o lock)
+    private void syncLocked() {
+        if (flushedTotal == appendedTotal) {
+            return;
+        }
+        int from = (int) (flushedTotal - segmentBase);
+        buffer.force(from, position - from);
+        flushedTotal = appendedTotal;
+        List<Waiter> done = new ArrayList<>();
+        while (!waiters.isEmpty() && waiters.peek().end() <= flushedTotal) {
+            done.add(waiters.poll());
+        }
+        done.forEach(w -> w.future().complete(null));
+    }
+
+    private void flushLoop() {
+        while (true) {
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long end;
+            lock.lock();
+            try {
+                while (flushedTotal == appendedTotal && !closed) {
+                    appended.awaitUninterruptibly();
+                }
+                if (flushedTotal == appendedTotal) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (commitDelayNanos > 0) {
+                // Espera mais escritas para o mesmo fsync
+                try {
+                    TimeUnit.NANOSECONDS.sleep(commitDelayNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            lock.lock();
+            try {
+                // Só o segmento atual: rotações e crescimento já fazem o fsync do anterior
+                target = buffer;
+                from = (int) Math.max(0, flushedTotal - segmentBase);
+                to = position;
+                end = appendedTotal;
+            } finally {
+                lock.unlock();
+            }
+
+            Throwable error = null;
+            try {
+                target.force(from, to - from);
+            } catch (RuntimeException e) {
+                error = e;
+                logger.error("Error syncing write-ahead log", e);
+            }
+
+            // Com erro, as escritas cobertas falham e o próximo fsync segue adiante
+            List<Waiter> done = new ArrayList<>();
+            lock.lock();
+            try {
+                flushedTotal = Math.max(flushedTotal, end);
+                while (!waiters.isEmpty() && waiters.peek().end() <= end) {
+                    done.add(waiters.poll());
+                }
+            } finally {
+                lock.unlock();
+            }
+            for (Waiter waiter : done) {
+                if (error == null) {
+                    waiter.future().complete(null);
+                } else {
+                    waiter.future().completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    /**
+     * Lê as gerações a partir de fromGeneration, em ordem, entregando cada registro
+     * válido ao handler. Arquivos inexistentes resultam em lastGeneration = fromGeneration - 1.
+     * Um registro truncado ou com checksum errado encerra a leitura: as gerações seguintes
+     * não são repetidas por cima da lacuna, mas continuam contando em lastGeneration.
+     * Com incomplete, quem chama precisa compactar antes de gravar: uma geração nova
+     * depois do trecho quebrado seria pulada na próxima leitura.
+     */
+    static Replay replay(Path dir, long fromGeneration, Consumer<Entry> handler) throws IOException {
+        List<Long> generations = generations(dir).stream().filter(g -> g >= fromGeneration).toList();
+        long lastGeneration = generations.isEmpty() ? fromGeneration - 1 : generations.get(generations.size() - 1);
+        long bytes = 0;
+        long entries = 0;
+        for (long generation : generations) {
+            boolean complete = true;
+            try (FileChannel channel = FileChannel.open(dir.resolve(fileName(generation)), StandardOpenOption.READ)) {
+                long size = channel.size();
+                MappedByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                int pos = 0;
+                while (pos + HEADER <= size) {
+                    int length = data.getInt(pos);
+                    if (length == 0) {
+                        break;
+                    }
+                    if (length < 0 || pos + HEADER + (long) length > size) {
+                        logger.warn("Truncated write-ahead log record at {} in generation {}", pos, generation);
+                        complete = false;
+                        break;
+                    }
+                    byte type = data.get(pos + 8);
+                    ByteBuffer payload = data.slice(pos + HEADER, length);
+                    if ((int) crc(type, payload.duplicate()) != data.getInt(pos + 4)) {
+                        logger.warn("Write-ahead log record with bad checksum at {} in generation {}", pos, generation);
+                        complete = false;
+                        break;
+                    }
+                    handler.accept(new Entry(type, payload));
+                    pos += HEADER + length;
+                    entries++;
+                }
+                bytes += pos;
+            }
+            if (!complete) {
+                if (generation != lastGeneration) {
+                    logger.error("Write-ahead log generation {} ends early; skipping generations {} to {}",
+                        generation, generation + 1, lastGeneration);
+                }
+                return new Replay(lastGeneration, bytes, entries, true);
+            }
+        }
+        return new Replay(lastGeneration, bytes, entries, false);
+    }
+
+    static void deleteGenerationsBefore(Path dir, long generation) throws IOException {
+        for (long existing : generations(dir)) {
+            if (existing < generation) {
+                Files.deleteIfExists(dir.resolve(fileName(existing)));
+            }
+        }
+    }
+
+    private static List<Long> generations(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString())
+                .filter(name -> name.startsWith("wal-") && name.endsWith(".log"))
+                .map(name -> Long.parseLong(name.substring(4, name.length() - 4)))
+                .sorted()
+                .toList();
+        }
+    }
+
+    private static String fileName(long generation) {
+        return String.format("wal-%016d.log", generation);
+    }
+
+    private static long crc(byte type, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        return crc.getValue();
+    }
+}
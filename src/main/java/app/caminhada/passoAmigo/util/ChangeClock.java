@@ -0,0 +1,79 @@
+package app.caminhada.passoAmigo.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Versões de usuários e caminhadas: microssegundos desde a época, estritamente
+ * crescentes no processo (duas gravações no mesmo microssegundo recebem valores
+ * distintos). Servem de ETag, de Last-Modified (updatedAt) e de marca d'água da
+ * sincronização incremental (GET /api/walks/user/{userId}/changes?since=).
+ *
+ * Uma versão tirada antes do commit (JPA, Firestore) só fica visível depois dele,
+ * e outra gravação pode terminar antes com versão maior. Por isso essas versões
+ * ficam pendentes até a gravação terminar, e a marca d'água não passa de stable().
+ *
+ * Entre processos diferentes (Firestore com várias instâncias) a ordem depende
+ * dos relógios das máquinas, e as pendências de um processo não são vistas pelos outros.
+ */
+public final class ChangeClock {
+
+    private static final AtomicLong last = new AtomicLong();
+    private static final TreeSet<Long> pending = new TreeSet<>();
+
+    private ChangeClock() {
+    }
+
+    public static long next() {
+        Instant now = Instant.now();
+        long micros = now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+        return last.accumulateAndGet(micros, (previous, current) -> Math.max(previous + 1, current));
+    }
+
+    // Como next(), mas pendente até release(): stable() fica abaixo dela enquanto isso
+    public static synchronized long nextPending() {
+        long version = next();
+        pending.add(version);
+        return version;
+    }
+
+    public static synchronized void release(long version) {
+        pending.remove(version);
+    }
+
+    // Pendente até o commit ou rollback da transação corrente, se houver uma
+    public static long nextInTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return next();
+        }
+        long version = nextPending();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                release(version);
+            }
+        });
+        return version;
+    }
+
+    /**
+     * Maior versão abaixo da qual nenhuma gravação está pendente: tudo até ela já
+     * está visível (ou foi desfeito). Deve ser lida antes da consulta de alterações.
+     */
+    public static synchronized long stable() {
+        return pending.isEmpty() ? last.get() : pending.first() - 1;
+    }
+
+    // Depois de carregar versões gravadas (relógio pode ter voltado desde então)
+    public static void advanceTo(long version) {
+        last.accumulateAndGet(version, Math::max);
+    }
+
+    public static Instant toInstant(long version) {
+        return Instant.ofEpochSecond(Math.floorDiv(version, 1_000_000L), Math.floorMod(version, 1_000_000L) * 1_000L);
+    }
+}
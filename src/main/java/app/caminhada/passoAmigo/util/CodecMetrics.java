@@ -0,0 +1,43 @@
+package app.caminhada.passoAmigo.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Contadores dos codecs de polyline. Ficam no registro global do Micrometer, ao
+ * qual o Spring Boot liga o registro da aplicação (management.metrics.use-global-registry),
+ * porque os codecs são estáticos e também rodam fora do contexto (testes, benchmarks).
+ */
+public final class CodecMetrics {
+
+    public static final String POINTS_PARSED = "passoamigo.polyline.points.parsed";
+    public static final String BYTES_SERIALIZED = "passoamigo.serialized.bytes";
+
+    static final Counter JSON_POINTS = pointsParsed("json");
+    static final Counter BINARY_POINTS = pointsParsed("binary");
+    static final Counter LEGACY_POINTS = pointsParsed("legacy");
+    static final Counter POLYLINE_BYTES = bytesSerialized("polyline");
+
+    private CodecMetrics() {
+    }
+
+    // Pontos lidos do corpo JSON de uma requisição (Polyline.of)
+    public static void jsonPointsParsed(int points) {
+        JSON_POINTS.increment(points);
+    }
+
+    public static Counter pointsParsed(String format) {
+        return Counter.builder(POINTS_PARSED)
+            .description("Pontos de polyline lidos, por formato de origem")
+            .tag("format", format)
+            .register(Metrics.globalRegistry);
+    }
+
+    public static Counter bytesSerialized(String format) {
+        return Counter.builder(BYTES_SERIALIZED)
+            .description("Bytes gravados pelos serializadores, por formato")
+            .baseUnit("bytes")
+            .tag("format", format)
+            .register(Metrics.globalRegistry);
+    }
+}
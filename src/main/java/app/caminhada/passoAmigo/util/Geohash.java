@@ -0,0 +1,93 @@
+package app.caminhada.passoAmigo.util;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Geohash (base32) para indexar caminhadas por célula.
+ *
+ * Na precisão 7 cada célula tem ~153 x 153 m; como o app grava um ponto por
+ * metro e descarta saltos de 50 m, os pontos de uma caminhada cobrem todas as
+ * células por onde ela passa.
+ */
+public final class Geohash {
+
+    public static final int CELL_PRECISION = 7;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        int bit = 0;
+        int value = 0;
+        int pos = 0;
+        while (pos < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    value = (value << 1) | 1;
+                    minLon = mid;
+                } else {
+                    value <<= 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    value = (value << 1) | 1;
+                    minLat = mid;
+                } else {
+                    value <<= 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash[pos++] = BASE32[value];
+                bit = 0;
+                value = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    // Células visitadas pelos pontos de [lat1, lon1, lat2, lon2, ...]
+    public static Set<String> cellsOf(double[] coords, int precision) {
+        Set<String> cells = new LinkedHashSet<>();
+        for (int i = 0; i + 1 < coords.length; i += 2) {
+            cells.add(encode(coords[i], coords[i + 1], precision));
+        }
+        return cells;
+    }
+
+    /**
+     * Células que cobrem o retângulo, ou null se forem mais que maxCells
+     * (quem chama decide o que fazer com áreas grandes).
+     */
+    public static Set<String> cover(double minLat, double minLon, double maxLat, double maxLon,
+                                    int precision, int maxCells) {
+        int bits = precision * 5;
+        double cellLon = 360.0 / (1L << ((bits + 1) / 2));
+        double cellLat = 180.0 / (1L << (bits / 2));
+        long rows = (long) (Math.floor((maxLat + 90) / cellLat) - Math.floor((minLat + 90) / cellLat)) + 1;
+        long cols = (long) (Math.floor((maxLon + 180) / cellLon) - Math.floor((minLon + 180) / cellLon)) + 1;
+        if (rows * cols > maxCells) {
+            return null;
+        }
+        Set<String> cells = new LinkedHashSet<>();
+        double startLat = (Math.floor((minLat + 90) / cellLat) + 0.5) * cellLat - 90;
+        double startLon = (Math.floor((minLon + 180) / cellLon) + 0.5) * cellLon - 180;
+        for (long r = 0; r < rows; r++) {
+            for (long c = 0; c < cols; c++) {
+                cells.add(encode(startLat + r * cellLat, startLon + c * cellLon, precision));
+            }
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,75 @@
+package app.caminhada.passoAmigo.util;
+
+import java.time.Instant;
+
+/**
+ * Instant no mesmo texto de Instant.toString() (ISO-8601 em UTC, fração em grupos
+ * de 3 dígitos), escrito num char[] do chamador em vez de um StringBuilder e uma
+ * String por data. Anos fora de 0000-9999 ficam para Instant.toString().
+ */
+public final class IsoInstant {
+
+    // "yyyy-MM-ddTHH:mm:ss.nnnnnnnnnZ"
+    public static final int MAX_LENGTH = 30;
+
+    private static final long MIN_SECOND = -62167219200L; // 0000-01-01T00:00:00Z
+    private static final long MAX_SECOND = 253402300799L; // 9999-12-31T23:59:59Z
+
+    private IsoInstant() {
+    }
+
+    // Número de caracteres escritos, ou -1 quando o ano não cabe em 4 dígitos
+    public static int format(Instant instant, char[] buf) {
+        long seconds = instant.getEpochSecond();
+        if (seconds < MIN_SECOND || seconds > MAX_SECOND) {
+            return -1;
+        }
+        long days = Math.floorDiv(seconds, 86400);
+        int secondOfDay = Math.floorMod(seconds, 86400);
+
+        // Data civil a partir dos dias desde 1970-01-01 (calendário gregoriano proléptico)
+        long z = days + 719468;
+        long era = Math.floorDiv(z, 146097);
+        int dayOfEra = (int) (z - era * 146097);
+        int yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        int dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        int mp = (5 * dayOfYear + 2) / 153;
+        int day = dayOfYear - (153 * mp + 2) / 5 + 1;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = (int) (yearOfEra + era * 400) + (month <= 2 ? 1 : 0);
+
+        int pos = digits(buf, 0, year, 4);
+        buf[pos++] = '-';
+        pos = digits(buf, pos, month, 2);
+        buf[pos++] = '-';
+        pos = digits(buf, pos, day, 2);
+        buf[pos++] = 'T';
+        pos = digits(buf, pos, secondOfDay / 3600, 2);
+        buf[pos++] = ':';
+        pos = digits(buf, pos, secondOfDay / 60 % 60, 2);
+        buf[pos++] = ':';
+        pos = digits(buf, pos, secondOfDay % 60, 2);
+
+        int nanos = instant.getNano();
+        if (nanos > 0) {
+            buf[pos++] = '.';
+            if (nanos % 1_000_000 == 0) {
+                pos = digits(buf, pos, nanos / 1_000_000, 3);
+            } else if (nanos % 1000 == 0) {
+                pos = digits(buf, pos, nanos / 1000, 6);
+            } else {
+                pos = digits(buf, pos, nanos, 9);
+            }
+        }
+        buf[pos++] = 'Z';
+        return pos;
+    }
+
+    private static int digits(char[] buf, int pos, int value, int width) {
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+}
@@ -0,0 +1,216 @@
+package app.caminhada.passoAmigo.util;
+
+import java.util.Arrays;
+
+/**
+ * Codec binário compacto para polylines no formato [lat1, lon1, lat2, lon2, ...].
+ *
+ * Layout: 1 byte de versão, varint com o número de pontos e, para cada ponto,
+ * os deltas de latitude e longitude em ponto fixo (1e-6 graus, ~11 cm) codificados
+ * como varints zigzag. Pontos GPS consecutivos ficam próximos, então a maioria dos
+ * deltas cabe em 1 ou 2 bytes.
+ */
+public final class PolylineCodec {
+
+    public static final byte VERSION = 1;
+
+    private static final double SCALE = 1e6;
+
+    // Maior saída de formatQuantized: sinal, 9 dígitos inteiros, ponto e 6 casas
+    public static final int MAX_QUANTIZED_LENGTH = 17;
+
+    private PolylineCodec() {
+    }
+
+    /**
+     * Pares (lat, lon) com |lat| <= 90 e |lon| <= 180. Fora disso o ponto fixo de
+     * 32 bits estoura, então encode recusa em vez de gravar valores corrompidos.
+     */
+    public static void validate(double[] coords) {
+        if (coords.length % 2 != 0) {
+            throw new IllegalArgumentException("Polyline deve ter pares de latitude e longitude");
+        }
+        for (int i = 0; i < coords.length; i += 2) {
+            if (!(Math.abs(coords[i]) <= 90) || !(Math.abs(coords[i + 1]) <= 180)) {
+                throw new IllegalArgumentException("Coordenadas inválidas na polyline");
+            }
+        }
+    }
+
+    public static byte[] encode(double[] coords) {
+        validate(coords);
+        int points = coords.length / 2;
+        // Pior caso: 5 bytes por varint de 32 bits
+        byte[] buffer = new byte[1 + 5 + points * 10];
+        int pos = 0;
+        buffer[pos++] = VERSION;
+        pos = writeVarint(buffer, pos, points);
+
+        int prevLat = 0;
+        int prevLon = 0;
+        for (int i = 0; i < points; i++) {
+            int lat = toFixed(coords[2 * i]);
+            int lon = toFixed(coords[2 * i + 1]);
+            pos = writeVarint(buffer, pos, zigzag(lat - prevLat));
+            pos = writeVarint(buffer, pos, zigzag(lon - prevLon));
+            prevLat = lat;
+            prevLon = lon;
+        }
+        CodecMetrics.POLYLINE_BYTES.increment(pos);
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    public static double[] decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return new double[0];
+        }
+        if (data[0] != VERSION) {
+            throw new IllegalArgumentException("Versão de polyline desconhecida: " + data[0]);
+        }
+        int[] cursor = {1};
+        int points = readVarint(data, cursor);
+        // Cada ponto ocupa ao menos 2 bytes: evita alocar a partir de um cabeçalho inválido
+        if (points < 0 || points > (data.length - cursor[0]) / 2) {
+            throw new IllegalArgumentException("Polyline binária truncada");
+        }
+        double[] coords = new double[points * 2];
+
+        int lat = 0;
+        int lon = 0;
+        for (int i = 0; i < points; i++) {
+            lat += unzigzag(readVarint(data, cursor));
+            lon += unzigzag(readVarint(data, cursor));
+            coords[2 * i] = lat / SCALE;
+            coords[2 * i + 1] = lon / SCALE;
+        }
+        CodecMetrics.BINARY_POINTS.increment(points);
+        return coords;
+    }
+
+    // Coordenadas arredondadas à precisão do codec, iguais às que decode devolverá
+    public static double[] quantize(double[] coords) {
+        double[] result = new double[coords.length];
+        for (int i = 0; i < coords.length; i++) {
+            result[i] = toFixed(coords[i]) / SCALE;
+        }
+        return result;
+    }
+
+    /**
+     * Coordenada na precisão do codec (ver quantize) como decimal no buf, sem alocar:
+     * -23.550512 vira "-23.550512", -23.5 vira "-23.5". Devolve o número de caracteres,
+     * ou -1 quando o valor tem mais casas do que o codec guarda (use Double.toString).
+     */
+    public static int formatQuantized(double value, char[] buf) {
+        if (!(Math.abs(value) < 1e9) || (value == 0 && Double.doubleToRawLongBits(value) != 0)) {
+            return -1; // NaN, infinitos, fora da faixa ou -0.0
+        }
+        long fixed = Math.round(value * SCALE);
+        if (fixed / SCALE != value) {
+            return -1;
+        }
+        int pos = 0;
+        if (fixed < 0) {
+            buf[pos++] = '-';
+            fixed = -fixed;
+        }
+        pos = writeDigits(buf, pos, fixed / 1_000_000, 1);
+        buf[pos++] = '.';
+        int fraction = (int) (fixed % 1_000_000);
+        int width = 6;
+        while (width > 1 && fraction % 10 == 0) {
+            fraction /= 10;
+            width--;
+        }
+        return writeDigits(buf, pos, fraction, width);
+    }
+
+    /**
+     * Lê o formato legado de texto ("[lat1, lon1, ...]") gravado em polylineJson.
+     * Valores inválidos são ignorados, como no parser antigo.
+     */
+    public static double[] parseLegacy(String json) {
+        if (json == null) {
+            return new double[0];
+        }
+        String text = json.trim();
+        if (!text.startsWith("[") || !text.endsWith("]")) {
+            return new double[0];
+        }
+        double[] values = new double[16];
+        int count = 0;
+        int start = 1;
+        int end = text.length() - 1;
+        while (start < end) {
+            int comma = text.indexOf(',', start);
+            int tokenEnd = comma < 0 || comma > end ? end : comma;
+            String token = text.substring(start, tokenEnd).trim();
+            if (!token.isEmpty()) {
+                try {
+                    double value = Double.parseDouble(token);
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count * 2);
+                    }
+                    values[count++] = value;
+                } catch (NumberFormatException e) {
+                    // Ignora valores inválidos
+                }
+            }
+            start = tokenEnd + 1;
+        }
+        CodecMetrics.LEGACY_POINTS.increment(count / 2);
+        return Arrays.copyOf(values, count);
+    }
+
+    private static int toFixed(double degrees) {
+        return (int) Math.round(degrees * SCALE);
+    }
+
+    // value com ao menos minWidth dígitos (zeros à esquerda)
+    private static int writeDigits(char[] buf, int pos, long value, int minWidth) {
+        int width = 1;
+        for (long rest = value / 10; rest > 0; rest /= 10) {
+            width++;
+        }
+        width = Math.max(width, minWidth);
+        for (int i = pos + width - 1; i >= pos; i--) {
+            buf[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return pos + width;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarint(byte[] buffer, int pos, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static int readVarint(byte[] data, int[] cursor) {
+        int pos = cursor[0];
+        int result = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (pos >= data.length) {
+                throw new IllegalArgumentException("Polyline binária truncada");
+            }
+            b = data[pos++];
+            result |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        cursor[0] = pos;
+        return result;
+    }
+}
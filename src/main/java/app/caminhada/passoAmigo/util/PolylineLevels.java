@@ -0,0 +1,88 @@
+package app.caminhada.passoAmigo.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Níveis de detalhe pré-calculados de uma polyline, gravados junto com a caminhada
+ * para que leituras com ?tolerance= ou ?zoom= não paguem o custo da simplificação.
+ *
+ * Layout: 1 byte de versão, latitude de referência (double), quantidade de níveis
+ * e, para cada nível, a tolerância em metros (float), o tamanho e os bytes do
+ * PolylineCodec. Os níveis ficam em ordem crescente de tolerância.
+ */
+public final class PolylineLevels {
+
+    public static final byte VERSION = 1;
+
+    // ~1 px nos zooms 17, 15, 13 e 11 em latitudes brasileiras
+    public static final float[] TOLERANCES_METERS = {1f, 4f, 16f, 64f};
+
+    private PolylineLevels() {
+    }
+
+    public static byte[] build(double[] coords) {
+        if (coords.length < 6) {
+            return null; // Dois pontos ou menos: nada a simplificar
+        }
+        byte[][] encoded = new byte[TOLERANCES_METERS.length][];
+        int size = 1 + 8 + 1;
+        for (int i = 0; i < encoded.length; i++) {
+            // Cada nível parte das coordenadas originais, então o desvio fica
+            // dentro da tolerância gravada para ele e o select pode confiar nela
+            encoded[i] = PolylineCodec.encode(PolylineSimplifier.simplify(coords, TOLERANCES_METERS[i]));
+            size += 4 + 4 + encoded[i].length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put(VERSION);
+        buffer.putDouble(coords[0]);
+        buffer.put((byte) encoded.length);
+        for (int i = 0; i < encoded.length; i++) {
+            buffer.putFloat(TOLERANCES_METERS[i]);
+            buffer.putInt(encoded[i].length);
+            buffer.put(encoded[i]);
+        }
+        return buffer.array();
+    }
+
+    public static double referenceLatitude(byte[] data) {
+        return header(data).getDouble();
+    }
+
+    /**
+     * Nível mais simplificado cuja tolerância não passa da pedida,
+     * ou null se a pedida for menor que o nível mais detalhado.
+     */
+    public static double[] select(byte[] data, double toleranceMeters) {
+        ByteBuffer buffer = header(data);
+        buffer.getDouble();
+        int levels = buffer.get();
+        int offset = -1;
+        int length = 0;
+        for (int i = 0; i < levels; i++) {
+            float tolerance = buffer.getFloat();
+            int size = buffer.getInt();
+            if (tolerance > toleranceMeters) {
+                break;
+            }
+            offset = buffer.position();
+            length = size;
+            buffer.position(offset + size);
+        }
+        if (offset < 0) {
+            return null;
+        }
+        byte[] level = new byte[length];
+        System.arraycopy(data, offset, level, 0, length);
+        return PolylineCodec.decode(level);
+    }
+
+    private static ByteBuffer header(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Versão de níveis de polyline desconhecida: " + version);
+        }
+        return buffer;
+    }
+}
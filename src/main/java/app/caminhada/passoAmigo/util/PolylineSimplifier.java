@@ -0,0 +1,105 @@
+package app.caminhada.passoAmigo.util;
+
+import java.util.Arrays;
+
+/**
+ * Simplificação de polylines por Douglas-Peucker, com tolerância em metros.
+ *
+ * As coordenadas são projetadas em um plano local (equiretangular em torno do
+ * primeiro ponto), o que é preciso o bastante na escala de uma caminhada.
+ * A recursão é feita com uma pilha explícita para suportar trajetos com
+ * centenas de milhares de pontos.
+ */
+public final class PolylineSimplifier {
+
+    public static final int MAX_ZOOM = 22;
+
+    private static final double EARTH_RADIUS_METERS = 6_371_008.8;
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180.0;
+    // Metros por pixel no equador em zoom 0 (tiles de 256 px, Web Mercator)
+    private static final double EQUATOR_METERS_PER_PIXEL = 156_543.03392;
+
+    private PolylineSimplifier() {
+    }
+
+    public static double[] simplify(double[] coords, double toleranceMeters) {
+        int points = coords.length / 2;
+        if (points <= 2 || toleranceMeters <= 0) {
+            return coords;
+        }
+
+        double cosLat = Math.cos(Math.toRadians(coords[0]));
+        double[] x = new double[points];
+        double[] y = new double[points];
+        for (int i = 0; i < points; i++) {
+            y[i] = coords[2 * i] * METERS_PER_DEGREE;
+            x[i] = coords[2 * i + 1] * METERS_PER_DEGREE * cosLat;
+        }
+
+        boolean[] keep = new boolean[points];
+        keep[0] = true;
+        keep[points - 1] = true;
+        double toleranceSq = toleranceMeters * toleranceMeters;
+
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = points - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            int farthest = -1;
+            double maxSq = toleranceSq;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > maxSq) {
+                    maxSq = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0) {
+                keep[farthest] = true;
+                if (top + 4 > stack.length) {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) kept++;
+        }
+        double[] result = new double[kept * 2];
+        int pos = 0;
+        for (int i = 0; i < points; i++) {
+            if (keep[i]) {
+                result[pos++] = coords[2 * i];
+                result[pos++] = coords[2 * i + 1];
+            }
+        }
+        return result;
+    }
+
+    // Tolerância equivalente a um pixel no zoom do mapa, na latitude informada
+    public static double toleranceForZoom(int zoom, double latitude) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("Zoom deve estar entre 0 e " + MAX_ZOOM);
+        }
+        return EQUATOR_METERS_PER_PIXEL * Math.cos(Math.toRadians(latitude)) / (1L << zoom);
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSq = dx * dx + dy * dy;
+        double t = lengthSq == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSq;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
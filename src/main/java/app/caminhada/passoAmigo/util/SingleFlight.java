@@ -0,0 +1,63 @@
+package app.caminhada.passoAmigo.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalescência de leituras idênticas: enquanto uma chamada com a mesma chave está
+ * em andamento, as outras recebem o mesmo future em vez de repetir a consulta.
+ * Nada fica guardado depois que o future completa, então não é um cache; só quem
+ * chega durante a consulta divide o resultado (que deve ser tratado como imutável).
+ *
+ * Quantas chamadas pegaram carona fica em passoamigo.singleflight.shared{name}.
+ */
+public final class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter shared;
+
+    public SingleFlight(String name) {
+        this.shared = Counter.builder("passoamigo.singleflight.shared")
+            .description("Leituras atendidas por uma consulta idêntica já em andamento")
+            .tag("name", name)
+            .register(Metrics.globalRegistry);
+    }
+
+    public CompletableFuture<V> run(K key, Supplier<CompletableFuture<V>> call) {
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+        CompletableFuture<V> result = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(key, result);
+        if (existing != null) {
+            shared.increment();
+            return existing;
+        }
+        try {
+            call.get().whenComplete((value, e) -> {
+                // Sai do mapa antes de completar: quem chegar depois faz uma consulta nova
+                inFlight.remove(key, result);
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(key, result);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    public int inFlight() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,45 @@
+package app.caminhada.passoAmigo.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket sem lock, no formato GCRA: o estado é um único long com o instante
+ * (System.nanoTime) em que o balde estaria cheio de novo. Cada requisição empurra
+ * esse instante em um intervalo; se ele passar de capacity intervalos à frente de
+ * agora, o balde está vazio. Um compareAndSet por requisição, sem thread de recarga.
+ */
+public final class TokenBucket {
+
+    private final long interval;
+    private final long burst;
+    private final AtomicLong fullAt;
+
+    // capacity requisições de rajada, recarregando perSecond por segundo
+    public TokenBucket(int capacity, double perSecond) {
+        if (capacity < 1 || !(perSecond > 0)) {
+            throw new IllegalArgumentException("Capacidade e taxa do token bucket devem ser positivas");
+        }
+        this.interval = Math.max(1, (long) (1_000_000_000L / perSecond));
+        this.burst = interval * capacity;
+        this.fullAt = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * Consome um token. Devolve 0 quando a requisição pode seguir, ou os
+     * nanossegundos até haver um token disponível.
+     */
+    public long tryAcquire() {
+        while (true) {
+            long now = System.nanoTime();
+            long current = fullAt.get();
+            long next = Math.max(current, now) + interval;
+            long wait = next - now - burst;
+            if (wait > 0) {
+                return wait;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.model.User;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.service.DatabaseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "app.polyline.migrate-on-startup=false")
+class CacheConfigTest {
+
+	@Autowired
+	private DatabaseService databaseService;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	private Cache users;
+	private Cache walks;
+
+	@BeforeEach
+	void clearCaches() {
+		users = cacheManager.getCache(CacheConfig.USERS);
+		walks = cacheManager.getCache(CacheConfig.WALKS);
+		users.clear();
+		walks.clear();
+	}
+
+	@Test
+	void cachesWalkReadsAndEvictsOnUpdateAndDelete() {
+		String id = databaseService.createWalk(walk("cache-walk", 100));
+
+		Walk first = databaseService.getWalk(id);
+		assertThat(walks.get(id)).isNotNull();
+		assertThat(databaseService.getWalk(id)).isSameAs(first);
+
+		databaseService.updateWalk(id, walk("cache-walk", 250));
+		assertThat(walks.get(id)).isNull();
+		assertThat(databaseService.getWalk(id).getStartTime()).isEqualTo(Instant.parse("2025-03-10T08:04:10Z"));
+
+		databaseService.deleteWalk(id);
+		assertThat(walks.get(id)).isNull();
+		assertThat(databaseService.getWalk(id)).isNull();
+		// Ausência não é guardada: a próxima leitura consulta de novo
+		assertThat(walks.get(id)).isNull();
+	}
+
+	@Test
+	void cachesUserReadsAndEvictsOnUpdate() {
+		String id = databaseService.createUser(user("Ana"));
+
+		User first = databaseService.getUser(id);
+		assertThat(users.get(id)).isNotNull();
+		assertThat(databaseService.getUser(id)).isSameAs(first);
+
+		databaseService.updateUser(id, user("Ana Maria"));
+		assertThat(users.get(id)).isNull();
+		assertThat(databaseService.getUser(id).getName()).isEqualTo("Ana Maria");
+	}
+
+	@Test
+	void deletingUserEvictsUserAndAllWalks() {
+		String userId = databaseService.createUser(user("Bia"));
+		String own = databaseService.createWalk(walk(userId, 100));
+		String other = databaseService.createWalk(walk("someone-else", 100));
+		databaseService.getUser(userId);
+		databaseService.getWalk(own);
+		databaseService.getWalk(other);
+
+		databaseService.deleteUser(userId);
+
+		assertThat(users.get(userId)).isNull();
+		assertThat(walks.get(own)).isNull();
+		assertThat(walks.get(other)).isNull();
+		assertThat(databaseService.getWalk(own)).isNull();
+	}
+
+	private static Walk walk(String userId, int offsetSeconds) {
+		Walk walk = new Walk();
+		walk.setUserId(userId);
+		walk.setStartTime(Instant.parse("2025-03-10T08:00:00Z").plusSeconds(offsetSeconds));
+		return walk;
+	}
+
+	private static User user(String name) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(name.toLowerCase().replace(' ', '.') + "@example.com");
+		return user;
+	}
+}
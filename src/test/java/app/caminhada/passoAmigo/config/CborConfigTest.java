@@ -0,0 +1,62 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.dto.WalkDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.polyline.migrate-on-startup=false")
+@AutoConfigureMockMvc
+class CborConfigTest {
+
+	private final ObjectMapper cbor = new ObjectMapper(new CBORFactory());
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void negotiatesCborWithPackedPolyline() throws Exception {
+		WalkDTO walk = new WalkDTO();
+		walk.setUserId("cbor");
+		walk.setStartTime("2025-03-10T08:00:00Z");
+		walk.setPolyline(new Polyline(new double[]{-23.55, -46.63, -23.56, -46.64}));
+
+		MvcResult created = mockMvc.perform(post("/api/walks")
+						.contentType(MediaType.APPLICATION_CBOR)
+						.accept(MediaType.APPLICATION_CBOR)
+						.content(cbor.writeValueAsBytes(walk)))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		byte[] body = mockMvc.perform(asyncDispatch(created))
+				.andExpect(status().isCreated())
+				.andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+				.andReturn().getResponse().getContentAsByteArray();
+		WalkDTO response = cbor.readValue(body, WalkDTO.class);
+		assertThat(response.getPolyline().coordinates()).containsExactly(-23.55, -46.63, -23.56, -46.64);
+
+		// Sem Accept a mesma caminhada continua em JSON, com a polyline como array
+		MvcResult json = mockMvc.perform(get("/api/walks/" + response.getId()))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(json))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.polyline[2]").value(-23.56));
+	}
+}
@@ -0,0 +1,47 @@
+package app.caminhada.passoAmigo.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.polyline.migrate-on-startup=false")
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsConfigTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void exposesEndpointStorageAndCodecMetrics() throws Exception {
+		MvcResult created = mockMvc.perform(post("/api/walks").contentType(MediaType.APPLICATION_JSON)
+						.content("{\"userId\":\"metrics\",\"startTime\":\"2025-03-10T08:00:00Z\","
+								+ "\"polyline\":[-23.55,-46.63,-23.56,-46.64]}"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(created)).andExpect(status().isCreated());
+
+		MvcResult result = mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isOk()).andReturn();
+		String scrape = result.getResponse().getContentAsString();
+
+		assertThat(scrape)
+				.contains("http_server_requests_seconds_bucket{")
+				.containsPattern("passoamigo_storage_seconds_bucket\\{[^}]*method=\"createWalk\"")
+				.containsPattern("passoamigo_polyline_points_parsed_total\\{[^}]*format=\"json\"")
+				.containsPattern("passoamigo_serialized_bytes_total\\{[^}]*format=\"json\"")
+				.contains("cache_gets_total{")
+				.contains("passoamigo_live_walks");
+	}
+}
@@ -0,0 +1,52 @@
+package app.caminhada.passoAmigo.config;
+
+import app.caminhada.passoAmigo.exception.TooManyRequestsException;
+import jakarta.servlet.DispatcherType;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RateLimitInterceptorTest {
+
+	private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+	@Test
+	void rejectsClientAfterBurstWithoutAffectingOthers() {
+		RateLimitInterceptor interceptor = new RateLimitInterceptor(3, 0.5, 100);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(interceptor.preHandle(request("10.0.0.1"), response, null)).isTrue();
+		}
+		assertThatThrownBy(() -> interceptor.preHandle(request("10.0.0.1"), response, null))
+			.isInstanceOfSatisfying(TooManyRequestsException.class,
+				e -> assertThat(e.getRetryAfterSeconds()).isBetween(1L, 2L));
+
+		// O despacho assíncrono da mesma requisição não consome outro token
+		MockHttpServletRequest async = request("10.0.0.1");
+		async.setDispatcherType(DispatcherType.ASYNC);
+		assertThat(interceptor.preHandle(async, response, null)).isTrue();
+
+		assertThat(interceptor.preHandle(request("10.0.0.2"), response, null)).isTrue();
+	}
+
+	@Test
+	void keepsAtMostMaxClientsBuckets() {
+		RateLimitInterceptor interceptor = new RateLimitInterceptor(1, 0.001, 50);
+
+		// Baldes vazios (recarga de ~17 min) não expiram: só o limite de tamanho os contém
+		for (int i = 0; i < 10_000; i++) {
+			interceptor.preHandle(request("10.0." + (i >> 8) + "." + (i & 0xff)), response, null);
+		}
+
+		assertThat(interceptor.clients()).isLessThanOrEqualTo(50);
+	}
+
+	private static MockHttpServletRequest request(String remoteAddr) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users/u1/walks");
+		request.setRemoteAddr(remoteAddr);
+		return request;
+	}
+}
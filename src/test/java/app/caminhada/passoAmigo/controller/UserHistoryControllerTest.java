@@ -0,0 +1,86 @@
+package app.caminhada.passoAmigo.controller;
+
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.service.DatabaseService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"app.polyline.migrate-on-startup=false", "app.export.timeout=2m"})
+@AutoConfigureMockMvc
+class UserHistoryControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private DatabaseService databaseService;
+
+	@Test
+	void exportsGpxWithPlainDecimalsAndItsOwnTimeout() throws Exception {
+		Walk walk = new Walk();
+		walk.setUserId("export-user");
+		walk.setStartTime(Instant.parse("2025-03-10T08:00:00Z"));
+		walk.setPolyline(new Polyline(new double[]{0.0001, -0.00002, 0.0002, 0}));
+		databaseService.createWalk(walk);
+
+		MvcResult started = mockMvc.perform(get("/api/users/export-user/walks/export?format=gpx"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(120_000);
+
+		String gpx = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/gpx+xml"))
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"walks-export-user.gpx\""))
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(gpx)
+				.contains("<trkpt lat=\"0.0001\" lon=\"-0.00002\"/>")
+				.contains("<trkpt lat=\"0.0002\" lon=\"0.0\"/>")
+				.doesNotContain("E-");
+	}
+
+	@Test
+	void exportsNdjsonAndRejectsUnknownFormats() throws Exception {
+		Walk walk = new Walk();
+		walk.setUserId("export-ndjson");
+		walk.setStartTime(Instant.parse("2025-03-10T08:00:00Z"));
+		databaseService.createWalk(walk);
+		databaseService.createWalk(walk);
+
+		MvcResult started = mockMvc.perform(get("/api/users/export-ndjson/walks/export"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String ndjson = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "application/x-ndjson"))
+				.andReturn().getResponse().getContentAsString();
+		assertThat(ndjson.lines()).hasSize(2).allMatch(line -> line.contains("\"userId\":\"export-ndjson\""));
+
+		mockMvc.perform(get("/api/users/export-ndjson/walks/export?format=csv"))
+				.andExpect(status().isBadRequest());
+
+		// Aspas e quebras de linha do id não chegam ao cabeçalho
+		MvcResult odd = mockMvc.perform(get("/api/users/{id}/walks/export", "a\"b\r\nX-Injected: 1"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(odd))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"walks-a_b__X-Injected__1.ndjson\""))
+				.andExpect(header().doesNotExist("X-Injected"));
+	}
+}
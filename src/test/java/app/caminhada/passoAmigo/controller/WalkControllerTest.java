@@ -0,0 +1,145 @@
+package app.caminhada.passoAmigo.controller;
+
+import app.caminhada.passoAmigo.dto.BatchResultDTO;
+import app.caminhada.passoAmigo.dto.BatchResultDTO.Item;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "app.polyline.migrate-on-startup=false")
+@AutoConfigureMockMvc
+class WalkControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void rejectsPolylinesTheCodecCannotStore() throws Exception {
+		String[] polylines = {"[-23.55,-46.63,-23.56]", "[10000,-46.63]", "[-23.55,-200]", "[-23.55,\"x\"]"};
+		for (String polyline : polylines) {
+			mockMvc.perform(post("/api/walks").contentType(MediaType.APPLICATION_JSON)
+							.content("{\"userId\":\"u1\",\"startTime\":\"2025-03-10T08:00:00Z\",\"polyline\":" + polyline + "}"))
+					.andExpect(status().isBadRequest());
+		}
+	}
+
+	@Test
+	void batchCreatesValidItemsAndReportsInvalidOnes() throws Exception {
+		String batch = "[{\"userId\":\"batch-user\",\"startTime\":\"2025-03-10T08:00:00Z\"},"
+				+ "{\"startTime\":\"2025-03-10T09:00:00Z\"},"
+				+ "null,"
+				+ "{\"userId\":\"batch-user\",\"startTime\":\"2025-03-10T10:00:00Z\",\"distanceMeters\":-5},"
+				+ "{\"userId\":\"batch-user\",\"startTime\":\"2025-03-10T11:00:00Z\"}]";
+
+		BatchResultDTO first = postBatch(batch);
+		assertThat(first.getCreated()).isEqualTo(2);
+		assertThat(first.getFailed()).isEqualTo(3);
+		assertThat(first.getResults()).extracting(Item::getIndex).containsExactly(0, 1, 2, 3, 4);
+		assertThat(first.getResults()).extracting(Item::getStatus).containsExactly(201, 400, 400, 400, 201);
+		assertThat(first.getResults().get(1).getErrors()).containsKey("userId");
+		assertThat(first.getResults().get(3).getErrors()).containsKey("distanceMeters");
+
+		// Um reenvio idêntico (sincronização offline repetida) grava de novo, com ids novos
+		BatchResultDTO second = postBatch(batch);
+		assertThat(second.getCreated()).isEqualTo(2);
+		assertThat(ids(second)).doesNotContainAnyElementsOf(ids(first));
+
+		MvcResult listed = mockMvc.perform(get("/api/walks/user/batch-user"))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(listed))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.items.length()").value(4));
+	}
+
+	@Test
+	void getAnswersConditionalRequestsWithNotModified() throws Exception {
+		String walk = "{\"userId\":\"conditional-user\",\"startTime\":\"2025-03-10T08:00:00Z\"}";
+		MvcResult created = mockMvc.perform(post("/api/walks").contentType(MediaType.APPLICATION_JSON).content(walk))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String id = objectMapper.readTree(mockMvc.perform(asyncDispatch(created))
+				.andExpect(status().isCreated())
+				.andReturn().getResponse().getContentAsString()).get("id").asText();
+
+		MockHttpServletResponse first = dispatch(get("/api/walks/" + id));
+		assertThat(first.getStatus()).isEqualTo(200);
+		String eTag = first.getHeader(HttpHeaders.ETAG);
+		String lastModified = first.getHeader(HttpHeaders.LAST_MODIFIED);
+		assertThat(eTag).matches("W/\"\\d+\"");
+		assertThat(lastModified).isNotNull();
+		assertThat(first.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache");
+		assertThat(first.getHeaders(HttpHeaders.VARY)).contains(HttpHeaders.ACCEPT);
+
+		MockHttpServletResponse byETag = dispatch(get("/api/walks/" + id).header(HttpHeaders.IF_NONE_MATCH, eTag));
+		assertThat(byETag.getStatus()).isEqualTo(304);
+		assertThat(byETag.getContentAsString()).isEmpty();
+		// Comparação fraca: a versão sem W/ enviada pelo app também vale
+		assertThat(dispatch(get("/api/walks/" + id).header(HttpHeaders.IF_NONE_MATCH, eTag.substring(2))).getStatus())
+				.isEqualTo(304);
+		assertThat(dispatch(get("/api/walks/" + id).header(HttpHeaders.IF_MODIFIED_SINCE, lastModified)).getStatus())
+				.isEqualTo(304);
+
+		MvcResult updated = mockMvc.perform(put("/api/walks/" + id).contentType(MediaType.APPLICATION_JSON).content(walk))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		mockMvc.perform(asyncDispatch(updated)).andExpect(status().isOk());
+		MockHttpServletResponse changed = dispatch(get("/api/walks/" + id).header(HttpHeaders.IF_NONE_MATCH, eTag));
+		assertThat(changed.getStatus()).isEqualTo(200);
+		assertThat(changed.getHeader(HttpHeaders.ETAG)).isNotEqualTo(eTag);
+
+		// Sincronização: a ETag é a marca d'água
+		MockHttpServletResponse changes = dispatch(get("/api/walks/user/conditional-user/changes"));
+		assertThat(changes.getStatus()).isEqualTo(200);
+		assertThat(dispatch(get("/api/walks/user/conditional-user/changes")
+				.header(HttpHeaders.IF_NONE_MATCH, changes.getHeader(HttpHeaders.ETAG))).getStatus()).isEqualTo(304);
+	}
+
+	private MockHttpServletResponse dispatch(MockHttpServletRequestBuilder builder) throws Exception {
+		MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+		return mockMvc.perform(asyncDispatch(started)).andReturn().getResponse();
+	}
+
+	private BatchResultDTO postBatch(String body) throws Exception {
+		MvcResult started = mockMvc.perform(post("/api/walks/batch").contentType(MediaType.APPLICATION_JSON).content(body))
+				.andExpect(request().asyncStarted())
+				.andReturn();
+		String response = mockMvc.perform(asyncDispatch(started))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+		return objectMapper.readValue(response, BatchResultDTO.class);
+	}
+
+	private static List<String> ids(BatchResultDTO result) {
+		List<String> ids = new ArrayList<>();
+		for (Item item : result.getResults()) {
+			if (item.getId() != null) {
+				ids.add(item.getId());
+			}
+		}
+		return ids;
+	}
+}
@@ -0,0 +1,87 @@
+package app.caminhada.passoAmigo.dto;
+
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.Walk;
+import com.fasterxml.jackson.core.json.JsonWriteFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.MismatchedInputException;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalkSerializerTest {
+
+	private final ObjectMapper mapper = new ObjectMapper().registerModule(WalkSerializer.module());
+
+	@Test
+	void writesSameJsonAsWalkDto() throws Exception {
+		String[] times = {"2025-03-10T08:00:00Z", "2025-03-10T08:00:00.120Z", "2024-02-29T23:59:59.000123Z",
+				"1969-12-31T23:59:59.999999999Z", "0000-01-01T00:00:00Z", "+10000-01-01T00:00:00Z"};
+		for (String time : times) {
+			Walk walk = new Walk();
+			walk.setId("1");
+			walk.setUserId("42");
+			walk.setStartTime(Instant.parse(time));
+			walk.setDistanceMeters(1234.5);
+			walk.setPolyline(new Polyline(new double[]{-23.55, -46.63, -23.56, -46.64}));
+			assertThat(mapper.writeValueAsString(walk)).isEqualTo(mapper.writeValueAsString(dto(walk)));
+
+			walk.setEndTime(Instant.parse(time).plusSeconds(3600));
+			walk.setDuration(3000);
+			walk.setPaceSecondsPerKm(600.0);
+			walk.setVersion(1_741_593_600_123_456L);
+			walk.setPolyline(null);
+			assertThat(mapper.writeValueAsString(walk)).isEqualTo(mapper.writeValueAsString(dto(walk)));
+		}
+	}
+
+	@Test
+	void readsPolylineIntoPrimitiveArray() throws Exception {
+		StringBuilder json = new StringBuilder("{\"userId\":\"42\",\"polyline\":[");
+		for (int i = 0; i < 1000; i++) {
+			json.append(i > 0 ? "," : "").append(i % 2 == 0 ? -23 : -46).append('.').append(i);
+		}
+		WalkDTO dto = mapper.readValue(json.append("]}").toString(), WalkDTO.class);
+
+		assertThat(dto.getPolyline().size()).isEqualTo(1000);
+		assertThat(dto.getPolyline().lat(0)).isEqualTo(-23.0);
+		assertThat(dto.getPolyline().lon(499)).isEqualTo(-46.999);
+		assertThatThrownBy(() -> mapper.readValue("{\"polyline\":[-23.5,\"x\"]}", WalkDTO.class))
+				.isInstanceOf(MismatchedInputException.class);
+	}
+
+	@Test
+	void polylineFollowsGeneratorNumberFeatures() throws Exception {
+		Polyline polyline = new Polyline(new double[]{-23.55, -46.63, 0.0001, 1e-7});
+		ObjectMapper quoted = JsonMapper.builder().enable(JsonWriteFeature.WRITE_NUMBERS_AS_STRINGS).build();
+
+		assertThat(mapper.writeValueAsString(polyline)).isEqualTo("[-23.55,-46.63,0.0001,1.0E-7]");
+		assertThat(quoted.writeValueAsString(polyline)).isEqualTo("[\"-23.55\",\"-46.63\",\"0.0001\",\"1.0E-7\"]");
+		// Writer e OutputStream usam geradores diferentes
+		assertThat(new String(quoted.writeValueAsBytes(polyline), StandardCharsets.UTF_8))
+				.isEqualTo(quoted.writeValueAsString(polyline));
+	}
+
+	// Referência: a cópia em WalkDTO que os controllers serializavam antes do WalkSerializer
+	private static WalkDTO dto(Walk walk) {
+		WalkDTO dto = new WalkDTO();
+		dto.setId(walk.getId());
+		dto.setUserId(walk.getUserId());
+		dto.setStartTime(walk.getStartTime() != null ? walk.getStartTime().toString() : null);
+		dto.setEndTime(walk.getEndTime() != null ? walk.getEndTime().toString() : null);
+		dto.setDistanceMeters(walk.getDistanceMeters());
+		dto.setPolyline(walk.getPolyline());
+		dto.setDuration(walk.getDuration());
+		dto.setPaceSecondsPerKm(walk.getPaceSecondsPerKm());
+		if (walk.getVersion() > 0) {
+			dto.setVersion(walk.getVersion());
+			dto.setUpdatedAt(walk.getUpdatedAt().toString());
+		}
+		return dto;
+	}
+}
@@ -0,0 +1,284 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.StatsBucketDTO;
+import app.caminhada.passoAmigo.dto.UserStatsDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.User;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.model.WalkEntity;
+import app.caminhada.passoAmigo.repository.WalkRepository;
+import app.caminhada.passoAmigo.repository.WalkSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest(properties = "app.stats.zone=UTC")
+@Import({DatabaseService.class, StatsService.class, GeometryService.class, SpatialIndexService.class,
+		PolylineMigrationService.class})
+class DatabaseServiceTest {
+
+	private static final Instant DAY = Instant.parse("2025-03-10T00:00:00Z");
+
+	@Autowired
+	private DatabaseService databaseService;
+
+	@Autowired
+	private StatsService statsService;
+
+	@Autowired
+	private SpatialIndexService spatialIndexService;
+
+	@Autowired
+	private PolylineMigrationService polylineMigrationService;
+
+	@Autowired
+	private WalkRepository walkRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void pagesThroughWalksNewestFirst() {
+		for (int i = 0; i < 5; i++) {
+			databaseService.createWalk(walk("1", DAY.plusSeconds(3600L * i), 100));
+		}
+		// Mesmo horário de início: desempate por id
+		databaseService.createWalk(walk("1", DAY.plusSeconds(3600L * 4), 100));
+		databaseService.createWalk(walk("2", DAY, 100));
+
+		List<Walk> all = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			PageDTO<Walk> page = databaseService.listWalksByUser("1", null, null, cursor, 2);
+			all.addAll(page.getItems());
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(all).hasSize(6).allMatch(w -> w.getUserId().equals("1"));
+		assertThat(all).extracting(Walk::getId).doesNotHaveDuplicates();
+		for (int i = 1; i < all.size(); i++) {
+			assertThat(all.get(i - 1).getStartTime()).isAfterOrEqualTo(all.get(i).getStartTime());
+		}
+	}
+
+	@Test
+	void migratesValidLegacyPolylinesAndKeepsInvalidOnesAsText() {
+		WalkEntity valid = legacy("[-23.55, -46.63, -23.56, -46.64]");
+		WalkEntity invalid = legacy("[-23.55, -46.63, 10000, -46.64]");
+
+		assertThat(polylineMigrationService.migrateLegacyPolylines()).isEqualTo(1);
+
+		WalkEntity migrated = walkRepository.findById(valid.getId()).orElseThrow();
+		assertThat(migrated.getPolylineJson()).isNull();
+		assertThat(migrated.decodePolyline()).containsExactly(-23.55, -46.63, -23.56, -46.64);
+		WalkEntity kept = walkRepository.findById(invalid.getId()).orElseThrow();
+		assertThat(kept.getPolylineData()).isNull();
+		assertThat(kept.decodePolyline()).containsExactly(-23.55, -46.63, 10000, -46.64);
+	}
+
+	@Test
+	void filtersByTimeRange() {
+		databaseService.createWalk(walk("1", DAY.minusSeconds(60), 100));
+		databaseService.createWalk(walk("1", DAY.plusSeconds(60), 200));
+		databaseService.createWalk(walk("1", DAY.plusSeconds(86_400), 300));
+
+		PageDTO<Walk> page = databaseService.listWalksByUser("1", DAY, DAY.plusSeconds(86_400), null, 50);
+
+		assertThat(page.getItems()).extracting(Walk::getDistanceMeters).containsExactly(200.0);
+		assertThat(page.getNextCursor()).isNull();
+	}
+
+	@Test
+	void summariesMatchFullListing() {
+		Walk withRoute = walk("1", DAY, 150);
+		withRoute.setPolyline(Polyline.of(-23.55, -46.63, -23.56, -46.64));
+		databaseService.createWalk(withRoute);
+		databaseService.createWalk(walk("1", DAY.plusSeconds(60), 250));
+
+		PageDTO<WalkSummary> summaries = databaseService.listWalkSummariesByUser("1", null, null, null, 1);
+		PageDTO<WalkSummary> next = databaseService.listWalkSummariesByUser("1", null, null, summaries.getNextCursor(), 1);
+
+		assertThat(summaries.getItems()).extracting(WalkSummary::getDistanceMeters).containsExactly(250.0);
+		assertThat(next.getItems()).extracting(WalkSummary::getStartTime).containsExactly(DAY);
+		assertThat(next.getNextCursor()).isNull();
+	}
+
+	@Test
+	void aggregatesStatsByDayWeekAndMonth() {
+		// 2025-03-10 é segunda-feira
+		databaseService.createWalk(walk("1", DAY.plusSeconds(3600), 1000));
+		databaseService.createWalk(walk("1", DAY.plusSeconds(7200), 500));
+		databaseService.createWalk(walk("1", DAY.minusSeconds(3600), 300));
+		databaseService.createWalk(walk("1", DAY.minusSeconds(86_400 * 20), 50));
+		databaseService.createWalk(walk("2", DAY, 999));
+
+		UserStatsDTO stats = statsService.getUserStats("1", LocalDate.parse("2025-03-01"), LocalDate.parse("2025-03-10"));
+
+		assertThat(stats.getDaily()).extracting(StatsBucketDTO::getStart).containsExactly("2025-03-09", "2025-03-10");
+		assertThat(stats.getDaily().get(1).getDistanceMeters()).isEqualTo(1500.0);
+		assertThat(stats.getDaily().get(1).getWalkCount()).isEqualTo(2);
+		assertThat(stats.getDaily().get(1).getDurationSeconds()).isEqualTo(3600);
+		assertThat(stats.getWeekly()).extracting(StatsBucketDTO::getStart).containsExactly("2025-03-03", "2025-03-10");
+		assertThat(stats.getMonthly()).singleElement().extracting(StatsBucketDTO::getDistanceMeters).isEqualTo(1800.0);
+		assertThat(stats.getTotals().getDistanceMeters()).isEqualTo(1850.0);
+		assertThat(stats.getTotals().getWalkCount()).isEqualTo(4);
+	}
+
+	@Test
+	void keepsDailyRollupInSyncWithUpdatesAndDeletes() {
+		String kept = databaseService.createWalk(walk("1", DAY, 1000));
+		String moved = databaseService.createWalk(walk("1", DAY, 400));
+		String removed = databaseService.createWalk(walk("1", DAY, 250));
+
+		databaseService.updateWalk(moved, walk("1", DAY.plusSeconds(86_400), 600));
+		databaseService.deleteWalk(removed);
+
+		UserStatsDTO stats = statsService.getUserStats("1", LocalDate.parse("2025-03-10"), LocalDate.parse("2025-03-11"));
+		assertThat(kept).isNotNull();
+		assertThat(stats.getDaily()).extracting(StatsBucketDTO::getDistanceMeters).containsExactly(1000.0, 600.0);
+		assertThat(stats.getTotals().getWalkCount()).isEqualTo(2);
+
+		// O recálculo a partir das caminhadas chega aos mesmos totais
+		statsService.rebuildUser("1");
+		UserStatsDTO rebuilt = statsService.getUserStats("1", LocalDate.parse("2025-03-10"), LocalDate.parse("2025-03-11"));
+		assertThat(rebuilt.getDaily()).extracting(StatsBucketDTO::getDistanceMeters).containsExactly(1000.0, 600.0);
+		assertThat(rebuilt.getTotals().getDurationSeconds()).isEqualTo(3600);
+	}
+
+	@Test
+	void deletingUserRemovesTheirWalksAndCells() {
+		User user = new User();
+		user.setName("Ana");
+		user.setEmail("ana@example.com");
+		String userId = databaseService.createUser(user);
+		Walk route = walk(userId, DAY, 0);
+		route.setPolyline(Polyline.of(-23.5614, -46.6559, -23.5630, -46.6540));
+		String withCells = databaseService.createWalk(route);
+		String plain = databaseService.createWalk(walk(userId, DAY.plusSeconds(3600), 500));
+		String other = databaseService.createWalk(walk("outro", DAY, 300));
+
+		assertThat(databaseService.deleteUser(userId)).isTrue();
+
+		assertThat(databaseService.getWalk(withCells)).isNull();
+		assertThat(databaseService.getWalk(plain)).isNull();
+		assertThat(databaseService.getWalk(other)).isNotNull();
+		assertThat(walkRepository.findIdsByUserId(userId)).isEmpty();
+		assertThat(statsService.getUserStats(userId, null, null).getTotals().getWalkCount()).isZero();
+		assertThat(databaseService.deleteUser(userId)).isFalse();
+	}
+
+	@Test
+	void computesDistanceDurationAndPaceFromPolyline() {
+		// 0,01° de latitude ≈ 1111,95 m; a distância enviada pelo cliente é ignorada
+		Walk route = walk("1", DAY, 5);
+		route.setPolyline(Polyline.of(-23.55, -46.63, -23.545, -46.63, -23.54, -46.63));
+
+		Walk saved = databaseService.getWalk(databaseService.createWalk(route));
+
+		assertThat(saved.getDistanceMeters()).isCloseTo(1111.95, within(0.01));
+		assertThat(saved.getDuration()).isEqualTo(1800);
+		assertThat(saved.getPaceSecondsPerKm()).isCloseTo(1618.78, within(0.01));
+	}
+
+	@Test
+	void findsWalksNearPointAndInsideBox() {
+		Walk paulista = walk("1", DAY, 0);
+		paulista.setPolyline(Polyline.of(-23.5614, -46.6559, -23.5630, -46.6540, -23.5646, -46.6522));
+		Walk ibirapuera = walk("2", DAY.plusSeconds(60), 0);
+		ibirapuera.setPolyline(Polyline.of(-23.5874, -46.6576, -23.5880, -46.6590));
+		long near = Long.parseLong(databaseService.createWalk(paulista));
+		long far = Long.parseLong(databaseService.createWalk(ibirapuera));
+		databaseService.createWalk(walk("3", DAY, 100)); // sem polyline: fora do índice
+
+		// O teste nunca faz commit; o índice é reconstruído a partir das colunas e de walk_cells
+		spatialIndexService.rebuild();
+
+		assertThat(spatialIndexService.size()).isEqualTo(2);
+		assertThat(spatialIndexService.searchNear(-23.5632, -46.6545, 300, 10)).containsExactly(near);
+		assertThat(spatialIndexService.searchNear(-23.5877, -46.6583, 200, 10)).containsExactly(far);
+		List<Long> inBox = spatialIndexService.searchBox(-23.60, -46.70, -23.55, -46.60, 10);
+		assertThat(inBox).containsExactly(far, near);
+		assertThat(databaseService.listWalkSummariesByIds(inBox))
+				.extracting(WalkSummary::getUserId).containsExactly("2", "1");
+	}
+
+	@Test
+	void rejectsInvalidCursor() {
+		assertThatThrownBy(() -> databaseService.listWalksByUser("1", null, null, "not-a-cursor", 10))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	void watermarkStaysBelowWalkCommittedLate() throws Exception {
+		String userId = "sync-" + UUID.randomUUID();
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch commit = new CountDownLatch(1);
+		// Primeira transação: tira a versão ao gravar e só faz commit depois da segunda
+		CompletableFuture<String> late = CompletableFuture.supplyAsync(() -> tx.execute(status -> {
+			String id = databaseService.createWalk(walk(userId, DAY, 100));
+			written.countDown();
+			try {
+				commit.await(10, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return id;
+		}));
+		assertThat(written.await(10, TimeUnit.SECONDS)).isTrue();
+		// Outro dia: não disputa a linha de totais diários com a primeira
+		String early = databaseService.createWalk(walk(userId, DAY.plusSeconds(86400), 100));
+
+		ChangesDTO<Walk> first = databaseService.listWalkChangesByUser(userId, 0, 50);
+		commit.countDown();
+		String lateId = late.get(10, TimeUnit.SECONDS);
+
+		assertThat(first.getItems()).extracting(Walk::getId).containsExactly(early);
+		long lateVersion = databaseService.getWalk(lateId).getVersion();
+		assertThat(lateVersion).isLessThan(databaseService.getWalk(early).getVersion());
+		assertThat(first.getWatermark()).isLessThan(lateVersion);
+		ChangesDTO<Walk> next = databaseService.listWalkChangesByUser(userId, first.getWatermark(), 50);
+		assertThat(next.getItems()).extracting(Walk::getId).containsExactly(lateId, early);
+		assertThat(next.getWatermark()).isEqualTo(databaseService.getWalk(early).getVersion());
+	}
+
+	static Walk walk(String userId, Instant start, double distance) {
+		Walk walk = new Walk();
+		walk.setUserId(userId);
+		walk.setStartTime(start);
+		walk.setEndTime(start.plusSeconds(1800));
+		walk.setDistanceMeters(distance);
+		return walk;
+	}
+
+	private WalkEntity legacy(String polylineJson) {
+		WalkEntity entity = WalkEntity.fromWalk(walk("legacy", DAY, 100));
+		entity.setPolylineData(null);
+		entity.setPolylineJson(polylineJson);
+		return walkRepository.save(entity);
+	}
+}
@@ -0,0 +1,107 @@
+package app.caminhada.passoAmigo.service;
+
+import app.caminhada.passoAmigo.dto.LiveWalkDTO;
+import app.caminhada.passoAmigo.model.Walk;
+import app.caminhada.passoAmigo.store.InMemoryStore;
+import app.caminhada.passoAmigo.util.PolylineCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class LiveWalkServiceTest {
+
+	private static final Instant START = Instant.parse("2025-03-10T08:00:00Z");
+
+	private InMemoryStore store;
+	private LiveWalkService service;
+
+	@BeforeEach
+	void setUp() {
+		store = new InMemoryStore("", Duration.ZERO, "", DataSize.ofMegabytes(64), Duration.ZERO);
+		service = new LiveWalkService(store, Duration.ofMinutes(30), 1000);
+	}
+
+	@Test
+	void appendsBatchesAndKeepsRunningTotals() {
+		double[] route = {-23.5505, -46.6333, -23.5510, -46.6340, -23.5520, -46.6335, -23.5515, -46.6320};
+		String id = service.start("7", START, new double[] {route[0], route[1], route[2], route[3]}).getId();
+
+		LiveWalkDTO live = service.append(id, 0, new double[] {route[4], route[5], route[6], route[7]});
+
+		assertThat(live.getPoints()).isEqualTo(4);
+		assertThat(live.getNextSeq()).isEqualTo(1);
+		assertThat(live.getDistanceMeters()).isCloseTo(GeometryService.distanceMeters(route), within(1e-6));
+		assertThat(live.getBbox()).containsExactly(-23.5520, -46.6340, -23.5505, -46.6320);
+
+		Walk walk = service.finish(id, START.plusSeconds(600), 540).join();
+
+		assertThat(service.get(id)).isNull();
+		Walk stored = store.getWalk(walk.getId()).join();
+		assertThat(stored.getPolyline().coordinates()).containsExactly(route);
+		assertThat(stored.getDistanceMeters()).isCloseTo(live.getDistanceMeters(), within(1e-6));
+		assertThat(stored.getDuration()).isEqualTo(540);
+	}
+
+	@Test
+	void repeatedBatchIsIgnoredAndGapIsRejected() {
+		String id = service.start("7", START, null).getId();
+		service.append(id, 0, new double[] {-23.55, -46.63});
+
+		assertThat(service.append(id, 0, new double[] {-23.55, -46.63}).getPoints()).isEqualTo(1);
+		assertThatThrownBy(() -> service.append(id, 2, new double[] {-23.56, -46.63}))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("esperado seq 1");
+		assertThat(service.append(id, 1, PolylineCodec.decode(PolylineCodec.encode(new double[] {-23.56, -46.63})))
+				.getPoints()).isEqualTo(2);
+	}
+
+	@Test
+	void rejectsInvalidBatches() {
+		String id = service.start("7", START, null).getId();
+
+		assertThatThrownBy(() -> service.append(id, null, new double[] {-23.55}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.append(id, null, new double[] {95, -46.63}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> service.append(id, null, new double[2002]))
+				.hasMessageContaining("1000 pontos");
+		assertThat(service.append("desconhecida", null, new double[] {-23.55, -46.63})).isNull();
+	}
+
+	@Test
+	void repeatedFinishReturnsTheSavedWalk() {
+		String id = service.start("7", START, new double[] {-23.55, -46.63, -23.56, -46.63}).getId();
+
+		Walk walk = service.finish(id, START.plusSeconds(600), null).join();
+		Walk again = service.finish(id, START.plusSeconds(900), null).join();
+
+		assertThat(again.getId()).isEqualTo(walk.getId());
+		assertThat(service.discard(id)).isFalse();
+		assertThat(store.listWalksByUser("7", null, null, null, 10).join().getItems()).hasSize(1);
+		assertThat(service.finish("desconhecida", null, null).join()).isNull();
+	}
+
+	@Test
+	void batchAfterFinishStartedIsNotAccepted() {
+		// Um append que pegou a sessão antes do finish chega depois da cópia dos pontos
+		LiveWalk live = new LiveWalk("s1", "7", START);
+		live.append(new double[] {-23.55, -46.63}, 0, 1000);
+		live.close();
+		assertThat(live.append(new double[] {-23.56, -46.63}, 1, 1000)).isFalse();
+		assertThat(live.pointCount()).isEqualTo(1);
+		// Gravação falhou: a sessão volta a aceitar o lote
+		live.reopen();
+		assertThat(live.append(new double[] {-23.56, -46.63}, 1, 1000)).isTrue();
+
+		String id = service.start("7", START, new double[] {-23.55, -46.63, -23.56, -46.63}).getId();
+		service.finish(id, START.plusSeconds(600), null).join();
+		assertThat(service.append(id, 0, new double[] {-23.57, -46.63})).isNull();
+	}
+}
@@ -0,0 +1,69 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.model.Walk;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.Firestore;
+import com.google.firebase.cloud.FirestoreClient;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Roda só com o emulador: FIRESTORE_EMULATOR_HOST=localhost:8080 (firebase emulators:start --only firestore)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("firestore")
+@EnabledIfEnvironmentVariable(named = "FIRESTORE_EMULATOR_HOST", matches = ".+")
+class FirestoreStoreTest extends StoreContractTest {
+
+	@Autowired
+	private FirestoreStore store;
+
+	@Override
+	protected UserStore userStore() {
+		return store;
+	}
+
+	@Override
+	protected WalkStore walkStore() {
+		return store;
+	}
+
+	@Test
+	void updateReplacesLegacyPolylineField() throws Exception {
+		String userId = "legacy-" + UUID.randomUUID();
+		String id = store.createWalk(walk(userId, DAY, -23.5, -46.6, -23.501, -46.601)).join();
+		DocumentReference ref = FirestoreClient.getFirestore().collection("walks").document(id);
+		// Documento no formato antigo: array de números além do Blob
+		ref.update("polyline", List.of(-1.0, -1.0, -2.0, -2.0)).get();
+
+		assertThat(store.updateWalk(id, walk(userId, DAY, -23.6, -46.7, -23.601, -46.701)).join()).isTrue();
+
+		assertThat(ref.get().get().contains("polyline")).isFalse();
+		Walk updated = store.getWalk(id).join();
+		assertThat(updated.getPolyline().coordinates()).containsExactly(-23.6, -46.7, -23.601, -46.701);
+		assertThat(store.updateUser("missing-" + UUID.randomUUID(), user("Ninguém")).join()).isFalse();
+	}
+
+	@Test
+	void deletingUserRemovesWalksAndTombstonesBeforeTheUser() throws Exception {
+		String userId = store.createUser(user("Bia")).join();
+		String kept = store.createWalk(walk(userId, DAY, -23.5, -46.6, -23.501, -46.601)).join();
+		String removed = store.createWalk(walk(userId, DAY.plusSeconds(3600))).join();
+		assertThat(store.deleteWalk(removed).join()).isTrue();
+		Firestore db = FirestoreClient.getFirestore();
+		assertThat(db.collection("walk_tombstones").whereEqualTo("userId", userId).get().get().isEmpty()).isFalse();
+
+		assertThat(store.deleteUser(userId).join()).isTrue();
+
+		assertThat(db.collection("walks").document(kept).get().get().exists()).isFalse();
+		assertThat(db.collection("walk_tombstones").whereEqualTo("userId", userId).get().get().isEmpty()).isTrue();
+		assertThat(store.getUser(userId).join()).isNull();
+		assertThat(store.deleteUser(userId).join()).isFalse();
+	}
+}
@@ -0,0 +1,242 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.model.Walk;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InMemoryStoreTest extends StoreContractTest {
+
+	private InMemoryStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new InMemoryStore();
+	}
+
+	@Override
+	protected UserStore userStore() {
+		return store;
+	}
+
+	@Override
+	protected WalkStore walkStore() {
+		return store;
+	}
+
+	@Test
+	void restoresFromSnapshotAndKeepsIdSequence(@TempDir Path dir) throws Exception {
+		Path file = dir.resolve("store.snapshot");
+		InMemoryStore first = snapshotStore(file.toString());
+		first.start();
+		String userId = first.createUser(user("Ana")).join();
+		String walkId = first.createWalk(walk(userId, DAY, -23.55, -46.63, -23.54, -46.63)).join();
+		first.createWalk(walk(userId, DAY.plusSeconds(60))).join();
+		first.stop();
+
+		InMemoryStore restored = snapshotStore(file.toString());
+		restored.start();
+
+		assertThat(restored.getUser(userId).join().getEmail()).isEqualTo("ana@example.com");
+		Walk walk = restored.getWalk(walkId).join();
+		assertThat(walk.getPolyline().coordinates()).containsExactly(-23.55, -46.63, -23.54, -46.63);
+		assertThat(walk.getPaceSecondsPerKm()).isNotNull();
+		assertThat(restored.listWalksByUser(userId, null, null, null, 10).join().getItems())
+				.extracting(Walk::getStartTime).containsExactly(DAY.plusSeconds(60), DAY);
+		assertThat(List.of(restored.createWalk(walk(userId, DAY)).join())).doesNotContain(walkId, "1", "2");
+
+		// Snapshot alterado não é carregado
+		byte[] bytes = Files.readAllBytes(file);
+		bytes[bytes.length / 2] ^= 1;
+		Files.write(file, bytes);
+		assertThatThrownBy(() -> snapshotStore(file.toString()).start())
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void replaysWriteAheadLogAfterCrash(@TempDir Path dir) throws Exception {
+		InMemoryStore first = durableStore(dir, DataSize.ofMegabytes(64));
+		first.start();
+		String userId = first.createUser(user("Ana")).join();
+		String other = first.createUser(user("Bia")).join();
+		String walkId = first.createWalk(walk(userId, DAY, -23.55, -46.63, -23.54, -46.63)).join();
+		String moved = first.createWalk(walk(userId, DAY.plusSeconds(60))).join();
+		first.updateWalk(moved, walk(other, DAY.plusSeconds(120))).join();
+		String deleted = first.createWalk(walk(userId, DAY.plusSeconds(180))).join();
+		first.deleteWalk(deleted).join();
+		first.deleteUser(other).join();
+		long version = first.getWalk(walkId).join().getVersion();
+		// Sem stop(): simula uma queda, nada foi compactado
+
+		InMemoryStore replayed = durableStore(dir, DataSize.ofMegabytes(64));
+		replayed.start();
+
+		assertThat(replayed.listUsers().join()).extracting(u -> u.getId()).containsExactly(userId);
+		assertThat(replayed.getWalk(walkId).join().getPolyline().coordinates())
+				.containsExactly(-23.55, -46.63, -23.54, -46.63);
+		assertThat(replayed.getWalk(moved).join()).isNull();
+		assertThat(replayed.getWalk(deleted).join()).isNull();
+		assertThat(replayed.listWalksByUser(userId, null, null, null, 10).join().getItems())
+				.extracting(Walk::getId).containsExactly(walkId);
+		assertThat(replayed.getWalk(walkId).join().getVersion()).isEqualTo(version);
+		assertThat(replayed.listWalkChangesByUser(userId, version, 10).join().getDeleted()).containsExactly(moved, deleted);
+		assertThat(Long.parseLong(replayed.createWalk(walk(userId, DAY)).join()))
+				.isGreaterThan(Long.parseLong(deleted));
+		replayed.stop();
+	}
+
+	@Test
+	void compactsLogIntoSnapshot(@TempDir Path dir) throws Exception {
+		InMemoryStore first = durableStore(dir, DataSize.ofBytes(1));
+		first.start();
+		String userId = first.createUser(user("Ana")).join();
+		String walkId = first.createWalk(walk(userId, DAY, -23.55, -46.63)).join();
+		String deleted = first.createWalk(walk(userId, DAY.plusSeconds(30))).join();
+		first.deleteWalk(deleted).join();
+		first.snapshot();
+		String after = first.createWalk(walk(userId, DAY.plusSeconds(60))).join();
+
+		try (var files = Files.list(dir)) {
+			assertThat(files.map(f -> f.getFileName().toString()).filter(n -> n.startsWith("wal-"))).hasSize(1);
+		}
+
+		// Snapshot + a geração nova do log
+		InMemoryStore restored = durableStore(dir, DataSize.ofBytes(1));
+		restored.start();
+		assertThat(restored.listWalksByUser(userId, null, null, null, 10).join().getItems())
+				.extracting(Walk::getId).containsExactly(after, walkId);
+		assertThat(restored.listWalkChangesByUser(userId, 0, 10).join().getDeleted()).containsExactly(deleted);
+		restored.stop();
+	}
+
+	@Test
+	void ignoresTornTailOfLog(@TempDir Path dir) throws Exception {
+		InMemoryStore first = durableStore(dir, DataSize.ofMegabytes(64));
+		first.start();
+		String userId = first.createUser(user("Ana")).join();
+		String walkId = first.createWalk(walk(userId, DAY)).join();
+
+		tearTail(dir);
+
+		InMemoryStore replayed = durableStore(dir, DataSize.ofMegabytes(64));
+		replayed.start();
+		assertThat(replayed.getWalk(walkId).join()).isNotNull();
+		assertThat(replayed.createWalk(walk(userId, DAY)).join()).isNotEqualTo(walkId);
+		replayed.stop();
+	}
+
+	@Test
+	void keepsWritesAfterTornTailAcrossCrashes(@TempDir Path dir) throws Exception {
+		InMemoryStore first = durableStore(dir, DataSize.ofMegabytes(64));
+		first.start();
+		String userId = first.createUser(user("Ana")).join();
+		tearTail(dir);
+
+		// Duas quedas seguidas, sem stop() (que compactaria e esconderia a lacuna)
+		InMemoryStore second = durableStore(dir, DataSize.ofMegabytes(64));
+		second.start();
+		String walkId = second.createWalk(walk(userId, DAY)).join();
+
+		InMemoryStore third = durableStore(dir, DataSize.ofMegabytes(64));
+		third.start();
+		assertThat(third.getUser(userId).join()).isNotNull();
+		assertThat(third.getWalk(walkId).join()).isNotNull();
+		third.stop();
+	}
+
+	@Test
+	void stopsReplayAtCorruptionInEarlierGeneration(@TempDir Path dir) throws Exception {
+		InMemoryStore first = durableStore(dir, DataSize.ofMegabytes(64));
+		first.start();
+		String userId = first.createUser(user("Ana")).join();
+		String lost = first.createWalk(walk(userId, DAY)).join();
+
+		// Segunda inicialização sem compactar: a caminhada nova vai para a geração seguinte
+		InMemoryStore second = durableStore(dir, DataSize.ofMegabytes(64));
+		second.start();
+		String afterGap = second.createWalk(walk(userId, DAY.plusSeconds(60))).join();
+
+		// Checksum errado no último registro da primeira geração
+		Path log;
+		try (var files = Files.list(dir)) {
+			log = files.filter(f -> f.getFileName().toString().startsWith("wal-")).sorted().findFirst().orElseThrow();
+		}
+		try (var channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long last = 0;
+			long end = 0;
+			var buffer = ByteBuffer.allocate(4);
+			while (true) {
+				buffer.clear();
+				channel.read(buffer, end);
+				int length = buffer.flip().getInt();
+				if (length == 0) {
+					break;
+				}
+				last = end;
+				end += 9 + length;
+			}
+			var payload = ByteBuffer.allocate(1);
+			channel.read(payload, last + 9);
+			channel.write(ByteBuffer.allocate(1).put(0, (byte) ~payload.get(0)), last + 9);
+		}
+
+		InMemoryStore replayed = durableStore(dir, DataSize.ofMegabytes(64));
+		replayed.start();
+		assertThat(replayed.getUser(userId).join()).isNotNull();
+		assertThat(replayed.getWalk(lost).join()).isNull();
+		// A geração seguinte não é aplicada por cima da lacuna
+		assertThat(replayed.getWalk(afterGap).join()).isNull();
+		String kept = replayed.createWalk(walk(userId, DAY.plusSeconds(120))).join();
+
+		// Nem volta na próxima inicialização, e o que foi gravado depois continua lá
+		InMemoryStore restarted = durableStore(dir, DataSize.ofMegabytes(64));
+		restarted.start();
+		assertThat(restarted.getWalk(kept).join()).isNotNull();
+		assertThat(restarted.getWalk(afterGap).join()).isNull();
+		assertThat(restarted.listWalksByUser(userId, null, null, null, 10).join().getItems())
+				.extracting(Walk::getId).containsExactly(kept);
+		restarted.stop();
+	}
+
+	// Registro gravado pela metade no fim da primeira geração: tamanho sem o conteúdo
+	private static void tearTail(Path dir) throws Exception {
+		Path log;
+		try (var files = Files.list(dir)) {
+			log = files.filter(f -> f.getFileName().toString().startsWith("wal-")).sorted().findFirst().orElseThrow();
+		}
+		try (var channel = FileChannel.open(log, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			long end = 0;
+			var buffer = ByteBuffer.allocate(4);
+			while (true) {
+				buffer.clear();
+				channel.read(buffer, end);
+				int length = buffer.flip().getInt();
+				if (length == 0) {
+					break;
+				}
+				end += 9 + length;
+			}
+			channel.write(ByteBuffer.allocate(4).putInt(0, 500), end);
+		}
+	}
+
+	private static InMemoryStore snapshotStore(String file) {
+		return new InMemoryStore(file, Duration.ZERO, "", DataSize.ofMegabytes(64), Duration.ZERO);
+	}
+
+	private static InMemoryStore durableStore(Path dir, DataSize compactSize) {
+		return new InMemoryStore("", Duration.ZERO, dir.toString(), compactSize, Duration.ZERO);
+	}
+}
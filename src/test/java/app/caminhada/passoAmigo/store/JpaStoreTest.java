@@ -0,0 +1,26 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.service.DatabaseService;
+import app.caminhada.passoAmigo.service.SpatialIndexService;
+import app.caminhada.passoAmigo.service.StatsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+@DataJpaTest(properties = "app.stats.zone=UTC")
+@Import({JpaStore.class, DatabaseService.class, StatsService.class, SpatialIndexService.class})
+class JpaStoreTest extends StoreContractTest {
+
+	@Autowired
+	private JpaStore store;
+
+	@Override
+	protected UserStore userStore() {
+		return store;
+	}
+
+	@Override
+	protected WalkStore walkStore() {
+		return store;
+	}
+}
@@ -0,0 +1,238 @@
+package app.caminhada.passoAmigo.store;
+
+import app.caminhada.passoAmigo.dto.ChangesDTO;
+import app.caminhada.passoAmigo.dto.PageDTO;
+import app.caminhada.passoAmigo.dto.WalkSummaryDTO;
+import app.caminhada.passoAmigo.model.Polyline;
+import app.caminhada.passoAmigo.model.User;
+import app.caminhada.passoAmigo.model.Walk;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Contrato comum de UserStore e WalkStore: cada backend estende esta classe.
+ * Os testes não supõem banco vazio (o emulador do Firestore mantém dados entre execuções).
+ */
+abstract class StoreContractTest {
+
+	static final Instant DAY = Instant.parse("2025-03-10T00:00:00Z");
+
+	protected abstract UserStore userStore();
+
+	protected abstract WalkStore walkStore();
+
+	@Test
+	void createsReadsUpdatesAndDeletesUsers() {
+		String id = userStore().createUser(user("Ana")).join();
+
+		assertThat(userStore().getUser(id).join().getName()).isEqualTo("Ana");
+		assertThat(userStore().updateUser(id, user("Ana Maria")).join()).isTrue();
+		assertThat(userStore().getUser(id).join().getName()).isEqualTo("Ana Maria");
+		assertThat(userStore().listUsers().join()).extracting(User::getId).contains(id);
+
+		assertThat(userStore().deleteUser(id).join()).isTrue();
+		assertThat(userStore().getUser(id).join()).isNull();
+		assertThat(userStore().updateUser(id, user("Ana")).join()).isFalse();
+		assertThat(userStore().deleteUser(id).join()).isFalse();
+	}
+
+	@Test
+	void computesDistanceDurationAndPaceOnCreate() {
+		// 0,01° de latitude ≈ 1111,95 m; a distância enviada pelo cliente é ignorada
+		Walk route = walk(newUserId(), DAY, -23.55, -46.63, -23.545, -46.63, -23.54, -46.63);
+		route.setDistanceMeters(5);
+
+		Walk saved = walkStore().getWalk(walkStore().createWalk(route).join()).join();
+
+		assertThat(saved.getDistanceMeters()).isCloseTo(1111.95, within(0.01));
+		assertThat(saved.getDuration()).isEqualTo(1800);
+		assertThat(saved.getPaceSecondsPerKm()).isCloseTo(1618.78, within(0.01));
+		assertThat(saved.getPolyline().pointCount()).isEqualTo(3);
+	}
+
+	@Test
+	void pagesThroughWalksNewestFirst() {
+		String userId = newUserId();
+		for (int i = 0; i < 5; i++) {
+			walkStore().createWalk(walk(userId, DAY.plusSeconds(3600L * i))).join();
+		}
+		// Mesmo horário de início: desempate por id
+		walkStore().createWalk(walk(userId, DAY.plusSeconds(3600L * 4))).join();
+		walkStore().createWalk(walk(newUserId(), DAY)).join();
+
+		List<Walk> all = new ArrayList<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			PageDTO<Walk> page = walkStore().listWalksByUser(userId, null, null, cursor, 2).join();
+			all.addAll(page.getItems());
+			cursor = page.getNextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertThat(pages).isEqualTo(3);
+		assertThat(all).hasSize(6).allMatch(w -> w.getUserId().equals(userId));
+		assertThat(all).extracting(Walk::getId).doesNotHaveDuplicates();
+		for (int i = 1; i < all.size(); i++) {
+			assertThat(all.get(i - 1).getStartTime()).isAfterOrEqualTo(all.get(i).getStartTime());
+		}
+	}
+
+	@Test
+	void filtersByTimeRangeAndListsSummaries() {
+		String userId = newUserId();
+		walkStore().createWalk(walk(userId, DAY.minusSeconds(60))).join();
+		String inRange = walkStore().createWalk(walk(userId, DAY.plusSeconds(60), -23.55, -46.63, -23.54, -46.63)).join();
+		walkStore().createWalk(walk(userId, DAY.plusSeconds(86_400))).join();
+
+		PageDTO<Walk> page = walkStore().listWalksByUser(userId, DAY, DAY.plusSeconds(86_400), null, 50).join();
+		PageDTO<WalkSummaryDTO> summaries = walkStore()
+				.listWalkSummariesByUser(userId, DAY, DAY.plusSeconds(86_400), null, 50).join();
+
+		assertThat(page.getItems()).extracting(Walk::getId).containsExactly(inRange);
+		assertThat(page.getNextCursor()).isNull();
+		assertThat(summaries.getItems()).singleElement().satisfies(s -> {
+			assertThat(s.getId()).isEqualTo(inRange);
+			assertThat(s.getDistanceMeters()).isCloseTo(1111.95, within(0.01));
+			assertThat(s.getStartTime()).isEqualTo(DAY.plusSeconds(60).toString());
+		});
+	}
+
+	@Test
+	void createsWalksInBatchKeepingOrder() {
+		String userId = newUserId();
+		List<Walk> batch = List.of(walk(userId, DAY), walk(userId, DAY.plusSeconds(60)), walk(userId, DAY.plusSeconds(120)));
+
+		List<String> ids = walkStore().createWalks(batch).join();
+
+		assertThat(ids).hasSize(3).doesNotContainNull().doesNotHaveDuplicates();
+		for (int i = 0; i < ids.size(); i++) {
+			assertThat(walkStore().getWalk(ids.get(i)).join().getStartTime()).isEqualTo(DAY.plusSeconds(60L * i));
+		}
+	}
+
+	@Test
+	void updatesAndDeletesWalks() {
+		String userId = newUserId();
+		String id = walkStore().createWalk(walk(userId, DAY)).join();
+
+		assertThat(walkStore().updateWalk(id, walk(userId, DAY.plusSeconds(60), -23.55, -46.63, -23.54, -46.63)).join()).isTrue();
+		Walk updated = walkStore().getWalk(id).join();
+		assertThat(updated.getStartTime()).isEqualTo(DAY.plusSeconds(60));
+		assertThat(updated.getDistanceMeters()).isCloseTo(1111.95, within(0.01));
+
+		assertThat(walkStore().deleteWalk(id).join()).isTrue();
+		assertThat(walkStore().getWalk(id).join()).isNull();
+		assertThat(walkStore().deleteWalk(id).join()).isFalse();
+		assertThat(walkStore().updateWalk(id, walk(userId, DAY)).join()).isFalse();
+		assertThat(walkStore().listWalksByUser(userId, null, null, null, 50).join().getItems()).isEmpty();
+	}
+
+	@Test
+	void deletingUserDeletesTheirWalks() {
+		String userId = userStore().createUser(user("Bia")).join();
+		String walkId = walkStore().createWalk(walk(userId, DAY)).join();
+		walkStore().createWalk(walk(userId, DAY.plusSeconds(60))).join();
+
+		assertThat(userStore().deleteUser(userId).join()).isTrue();
+
+		assertThat(walkStore().getWalk(walkId).join()).isNull();
+		assertThat(walkStore().listWalksByUser(userId, null, null, null, 50).join().getItems()).isEmpty();
+	}
+
+	@Test
+	void syncsChangesSinceWatermark() {
+		String userId = newUserId();
+		String first = walkStore().createWalk(walk(userId, DAY)).join();
+		String second = walkStore().createWalk(walk(userId, DAY.plusSeconds(60))).join();
+
+		ChangesDTO<Walk> all = walkStore().listWalkChangesByUser(userId, 0, 50).join();
+		assertThat(all.getItems()).extracting(Walk::getId).containsExactly(first, second);
+		assertThat(all.getDeleted()).isEmpty();
+		assertThat(all.isMore()).isFalse();
+		assertThat(all.getWatermark()).isEqualTo(walkStore().getWalk(second).join().getVersion());
+
+		ChangesDTO<Walk> none = walkStore().listWalkChangesByUser(userId, all.getWatermark(), 50).join();
+		assertThat(none.getItems()).isEmpty();
+		assertThat(none.getWatermark()).isEqualTo(all.getWatermark());
+
+		// Alteração, exclusão e mudança de dono
+		long before = walkStore().getWalk(first).join().getVersion();
+		walkStore().updateWalk(first, walk(userId, DAY.plusSeconds(30))).join();
+		assertThat(walkStore().getWalk(first).join().getVersion()).isGreaterThan(before);
+		walkStore().deleteWalk(second).join();
+		String third = walkStore().createWalk(walk(userId, DAY.plusSeconds(90))).join();
+		String otherUser = newUserId();
+		walkStore().updateWalk(third, walk(otherUser, DAY.plusSeconds(90))).join();
+
+		ChangesDTO<Walk> delta = walkStore().listWalkChangesByUser(userId, all.getWatermark(), 50).join();
+		assertThat(delta.getItems()).extracting(Walk::getId).containsExactly(first);
+		assertThat(delta.getDeleted()).containsExactly(second, third);
+		assertThat(walkStore().listWalkChangesByUser(otherUser, 0, 50).join().getItems())
+				.extracting(Walk::getId).containsExactly(third);
+
+		// Limite: o restante vem a partir da nova marca d'água
+		ChangesDTO<Walk> firstPage = walkStore().listWalkChangesByUser(userId, all.getWatermark(), 2).join();
+		assertThat(firstPage.isMore()).isTrue();
+		assertThat(firstPage.getItems().size() + firstPage.getDeleted().size()).isEqualTo(2);
+		ChangesDTO<Walk> rest = walkStore().listWalkChangesByUser(userId, firstPage.getWatermark(), 2).join();
+		assertThat(rest.isMore()).isFalse();
+		assertThat(rest.getDeleted()).containsExactly(third);
+	}
+
+	@Test
+	void simplifiesPolylineByTolerance() {
+		// Linha reta com desvios de ~10 cm: com 10 m de tolerância sobram as pontas
+		double[] coords = new double[400];
+		for (int i = 0; i < 200; i++) {
+			coords[2 * i] = -23.55 + i * 0.00005;
+			coords[2 * i + 1] = -46.63 + (i % 2) * 0.000001;
+		}
+		String id = walkStore().createWalk(walk(newUserId(), DAY, coords)).join();
+
+		Walk simplified = walkStore().getWalkSimplified(id, 10.0, null).join();
+
+		assertThat(simplified.getPolyline().pointCount()).isEqualTo(2);
+		assertThat(walkStore().getWalk(id).join().getPolyline().pointCount()).isEqualTo(200);
+		assertThat(walkStore().getWalkSimplified(id, 0.0, 22).join().getPolyline().pointCount()).isEqualTo(200);
+	}
+
+	@Test
+	void rejectsInvalidCursorAndTolerance() {
+		assertThatThrownBy(() -> walkStore().listWalksByUser("1", null, null, "not-a-cursor", 10).join())
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> walkStore().getWalkSimplified("1", -1.0, null).join())
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	// Usuário sem cadastro: isola as caminhadas de cada teste
+	static String newUserId() {
+		return "u-" + UUID.randomUUID();
+	}
+
+	static User user(String name) {
+		User user = new User();
+		user.setName(name);
+		user.setEmail(name.toLowerCase().replace(' ', '.') + "@example.com");
+		return user;
+	}
+
+	static Walk walk(String userId, Instant start, double... coords) {
+		Walk walk = new Walk();
+		walk.setUserId(userId);
+		walk.setStartTime(start);
+		walk.setEndTime(start.plusSeconds(1800));
+		if (coords.length > 0) {
+			walk.setPolyline(new Polyline(coords));
+		}
+		return walk;
+	}
+}
@@ -0,0 +1,95 @@
+package app.caminhada.passoAmigo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineCodecTest {
+
+	@Test
+	void roundTripKeepsMicrodegreePrecision() {
+		double[] coords = {-23.5505199, -46.6333094, -23.5505301, -46.6333001, 0.0, 180.0, -90.0, -180.0};
+
+		double[] decoded = PolylineCodec.decode(PolylineCodec.encode(coords));
+
+		assertThat(decoded).hasSize(coords.length);
+		for (int i = 0; i < coords.length; i++) {
+			assertThat(decoded[i]).isCloseTo(coords[i], within(1e-6));
+		}
+	}
+
+	@Test
+	void rejectsOddLengthAndOutOfRangeCoordinates() {
+		assertThatThrownBy(() -> PolylineCodec.encode(new double[]{-23.55, -46.63, -23.56}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PolylineCodec.encode(new double[]{1e4, -46.63}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PolylineCodec.encode(new double[]{-23.55, 180.5}))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> PolylineCodec.encode(new double[]{Double.NaN, 0}))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void emptyPolyline() {
+		assertThat(PolylineCodec.decode(PolylineCodec.encode(new double[0]))).isEmpty();
+		assertThat(PolylineCodec.decode(null)).isEmpty();
+	}
+
+	@Test
+	void binaryIsMuchSmallerThanLegacyText() {
+		double[] coords = syntheticWalk(5_000);
+		List<Double> boxed = new ArrayList<>();
+		for (double value : coords) {
+			boxed.add(value);
+		}
+
+		int binary = PolylineCodec.encode(coords).length;
+		int text = boxed.toString().getBytes(StandardCharsets.UTF_8).length;
+
+		assertThat(binary * 10).isLessThan(text);
+	}
+
+	@Test
+	void parsesLegacyText() {
+		double[] parsed = PolylineCodec.parseLegacy("[-23.55, -46.63, abc, -23.56, -46.64]");
+
+		assertThat(parsed).containsExactly(-23.55, -46.63, -23.56, -46.64);
+		assertThat(PolylineCodec.parseLegacy("[]")).isEmpty();
+		assertThat(PolylineCodec.parseLegacy("invalid")).isEmpty();
+	}
+
+	@Test
+	void formatsQuantizedCoordinatesAsShortDecimals() {
+		char[] buf = new char[PolylineCodec.MAX_QUANTIZED_LENGTH];
+		for (double value : PolylineCodec.quantize(syntheticWalk(1_000))) {
+			int length = PolylineCodec.formatQuantized(value, buf);
+			assertThat(Double.parseDouble(new String(buf, 0, length))).isEqualTo(value);
+		}
+		assertThat(new String(buf, 0, PolylineCodec.formatQuantized(-23.5, buf))).isEqualTo("-23.5");
+		assertThat(new String(buf, 0, PolylineCodec.formatQuantized(180, buf))).isEqualTo("180.0");
+		assertThat(new String(buf, 0, PolylineCodec.formatQuantized(-0.000001, buf))).isEqualTo("-0.000001");
+		assertThat(PolylineCodec.formatQuantized(-23.5505199, buf)).isEqualTo(-1);
+		assertThat(PolylineCodec.formatQuantized(Double.NaN, buf)).isEqualTo(-1);
+	}
+
+	// Trajeto com um ponto por metro, como o rastreador do app grava
+	static double[] syntheticWalk(int points) {
+		double[] coords = new double[points * 2];
+		double lat = -23.5505;
+		double lon = -46.6333;
+		for (int i = 0; i < points; i++) {
+			lat += 0.000009 * Math.cos(i / 50.0);
+			lon += 0.000009 * Math.sin(i / 50.0);
+			coords[2 * i] = lat;
+			coords[2 * i + 1] = lon;
+		}
+		return coords;
+	}
+}
@@ -0,0 +1,108 @@
+package app.caminhada.passoAmigo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineSimplifierTest {
+
+	@Test
+	void collinearPointsCollapseToEndpoints() {
+		double[] coords = new double[200];
+		for (int i = 0; i < 100; i++) {
+			coords[2 * i] = -23.5 + i * 0.00001;
+			coords[2 * i + 1] = -46.6;
+		}
+
+		double[] simplified = PolylineSimplifier.simplify(coords, 1.0);
+
+		assertThat(simplified).containsExactly(coords[0], coords[1], coords[198], coords[199]);
+	}
+
+	@Test
+	void keepsCornerAboveTolerance() {
+		// Desvio de ~11 m no ponto do meio
+		double[] coords = {-23.5, -46.6, -23.4999, -46.6005, -23.5, -46.601};
+
+		assertThat(PolylineSimplifier.simplify(coords, 5.0)).hasSize(6);
+		assertThat(PolylineSimplifier.simplify(coords, 20.0)).hasSize(4);
+	}
+
+	@Test
+	void levelsSelectCoarsestWithinTolerance() {
+		double[] coords = new double[2000];
+		for (int i = 0; i < 1000; i++) {
+			coords[2 * i] = -23.5 + i * 0.000009;
+			coords[2 * i + 1] = -46.6 + 0.0001 * Math.sin(i / 20.0);
+		}
+		byte[] levels = PolylineLevels.build(coords);
+
+		assertThat(PolylineLevels.referenceLatitude(levels)).isCloseTo(-23.5, within(1e-9));
+		assertThat(PolylineLevels.select(levels, 0.5)).isNull();
+		double[] fine = PolylineLevels.select(levels, 1.0);
+		double[] coarse = PolylineLevels.select(levels, 100.0);
+		assertThat(fine.length).isLessThan(coords.length);
+		assertThat(coarse.length).isLessThan(fine.length);
+		assertThat(PolylineLevels.build(new double[] {-23.5, -46.6, -23.6, -46.7})).isNull();
+
+		// Trajeto irregular: cada nível precisa ficar dentro da própria tolerância
+		// em relação ao original, sem somar o erro dos níveis anteriores
+		Random random = new Random(42);
+		double[] route = new double[20000];
+		double heading = 0;
+		route[0] = -23.5;
+		route[1] = -46.6;
+		for (int i = 1; i < 10000; i++) {
+			heading += random.nextGaussian() * 0.3;
+			route[2 * i] = route[2 * i - 2] + 0.000009 * Math.cos(heading);
+			route[2 * i + 1] = route[2 * i - 1] + 0.000009 * Math.sin(heading);
+		}
+		byte[] routeLevels = PolylineLevels.build(route);
+		for (float tolerance : PolylineLevels.TOLERANCES_METERS) {
+			double[] level = PolylineLevels.select(routeLevels, tolerance);
+			// Folga para a quantização de 1e-6 grau do PolylineCodec
+			assertThat(maxDeviationMeters(route, level)).isLessThanOrEqualTo(tolerance + 0.2);
+		}
+	}
+
+	// Maior distância de um ponto original até o segmento simplificado que o cobre,
+	// no mesmo plano local do simplificador. Os vértices simplificados são pontos
+	// do original, então basta avançar pelo segmento a cada vértice encontrado.
+	private static double maxDeviationMeters(double[] original, double[] simplified) {
+		double metersPerDegree = 6_371_008.8 * Math.PI / 180.0;
+		double cosLat = Math.cos(Math.toRadians(original[0]));
+		double max = 0;
+		int segment = 0;
+		for (int i = 0; i < original.length; i += 2) {
+			if (segment + 3 < simplified.length
+					&& Math.abs(original[i] - simplified[segment + 2]) < 1e-6
+					&& Math.abs(original[i + 1] - simplified[segment + 3]) < 1e-6) {
+				segment += 2;
+			}
+			if (segment + 3 >= simplified.length) {
+				break;
+			}
+			double px = original[i + 1] * metersPerDegree * cosLat;
+			double py = original[i] * metersPerDegree;
+			double ax = simplified[segment + 1] * metersPerDegree * cosLat;
+			double ay = simplified[segment] * metersPerDegree;
+			double dx = simplified[segment + 3] * metersPerDegree * cosLat - ax;
+			double dy = simplified[segment + 2] * metersPerDegree - ay;
+			double lengthSq = dx * dx + dy * dy;
+			double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSq));
+			max = Math.max(max, Math.hypot(px - ax - t * dx, py - ay - t * dy));
+		}
+		return max;
+	}
+
+	@Test
+	void zoomToleranceIsOnePixel() {
+		assertThat(PolylineSimplifier.toleranceForZoom(17, 0.0)).isCloseTo(1.194, within(0.001));
+		assertThatThrownBy(() -> PolylineSimplifier.toleranceForZoom(23, 0.0))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+}
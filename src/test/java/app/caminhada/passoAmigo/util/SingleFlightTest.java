@@ -0,0 +1,41 @@
+package app.caminhada.passoAmigo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTest {
+
+	@Test
+	void concurrentCallsShareOneComputation() {
+		SingleFlight<String, Integer> flights = new SingleFlight<>("test");
+		AtomicInteger calls = new AtomicInteger();
+		CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+		CompletableFuture<Integer> first = flights.run("user-1", () -> {
+			calls.incrementAndGet();
+			return pending;
+		});
+		CompletableFuture<Integer> second = flights.run("user-1", () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(-1);
+		});
+		CompletableFuture<Integer> other = flights.run("user-2", () -> {
+			calls.incrementAndGet();
+			return CompletableFuture.completedFuture(2);
+		});
+
+		assertThat(second).isSameAs(first);
+		assertThat(other.join()).isEqualTo(2);
+		pending.complete(1);
+		assertThat(second.join()).isEqualTo(1);
+		assertThat(flights.inFlight()).isZero();
+
+		// Depois de completar não há cache: a próxima chamada consulta de novo
+		assertThat(flights.run("user-1", () -> CompletableFuture.completedFuture(3)).join()).isEqualTo(3);
+		assertThat(calls.get()).isEqualTo(2);
+	}
+}
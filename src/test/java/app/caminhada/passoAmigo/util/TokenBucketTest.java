@@ -0,0 +1,22 @@
+package app.caminhada.passoAmigo.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TokenBucketTest {
+
+	@Test
+	void allowsBurstThenRejectsUntilRefill() {
+		TokenBucket bucket = new TokenBucket(3, 0.5);
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(bucket.tryAcquire()).isZero();
+		}
+		long wait = bucket.tryAcquire();
+		assertThat(wait).isPositive().isLessThanOrEqualTo(2_000_000_000L);
+
+		assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+}